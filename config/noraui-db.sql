@@ -49,3 +49,10 @@ CREATE TABLE sampleRESTAPI (
 );
 INSERT INTO sampleRESTAPI VALUES (1, 'rennes', 'java', '');
 INSERT INTO sampleRESTAPI VALUES (2, 'rennes', 'javascript', '');
+CREATE TABLE NORAUI_RESULTS (
+    SCENARIO varchar(255),
+    LINE integer,
+    RESULT_COLUMN varchar(255),
+    RESULT_VALUE varchar(4000),
+    WRITTEN_AT timestamp
+);
@@ -24,6 +24,7 @@ import com.github.noraui.application.page.Page;
 import com.github.noraui.application.page.Page.PageElement;
 import com.github.noraui.browser.WindowManager;
 import com.github.noraui.cucumber.annotation.Conditioned;
+import com.github.noraui.data.DataIndex;
 import com.github.noraui.exception.AssertError;
 import com.github.noraui.exception.Callbacks;
 import com.github.noraui.exception.FailureException;
@@ -332,9 +333,10 @@ public class CommonSteps extends Step {
             new Result.Failure<>(e.getMessage(), Messages.getMessage(Messages.FAIL_MESSAGE_UNABLE_TO_FIND_ELEMENT), true, Page.getInstance(page).getCallBack());
         }
         Context.getCurrentScenario().write(Messages.format("Value of %s is: %s\n", field, value));
-        for (final Integer line : Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndexes()) {
+        final DataIndex dataIndex = Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData());
+        for (int i = 0; i < dataIndex.size(); i++) {
             try {
-                Context.getDataOutputProvider().writeDataResult(targetColumn, line, value);
+                Context.getDataOutputProvider().writeDataResult(targetColumn, dataIndex.getIndex(i), value);
             } catch (final TechnicalException e) {
                 new Result.Warning<>(e.getMessage(), Messages.format(Messages.getMessage(Messages.FAIL_MESSAGE_UNABLE_TO_WRITE_MESSAGE_IN_RESULT_FILE), targetColumn), false, 0);
             }
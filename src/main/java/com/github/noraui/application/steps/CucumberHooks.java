@@ -60,6 +60,7 @@ public class CucumberHooks {
         printProgressBuild(scenario);
         if (Context.getCurrentScenarioData() >= Context.getDataInputProvider().getNbGherkinExample()) {
             logger.debug("Go to next feature");
+            Context.flushDataOutputProvider();
             Context.goToNextFeature();
         } else {
             logger.debug("No go to next feature");
@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.noraui.cucumber.annotation.Conditioned;
+import com.github.noraui.data.DataIndex;
 import com.github.noraui.exception.Callbacks;
 import com.github.noraui.exception.FailureException;
 import com.github.noraui.exception.HttpServiceException;
@@ -76,6 +77,52 @@ public class RESTSteps extends Step {
         Context.saveValue(targetKey, json);
     }
 
+    /**
+     * Save one value of the JSON result of REST API in memory if all 'expected' parameters equals 'actual' parameters in conditions. The value is extracted while the result is
+     * read, so the whole result is neither kept in memory nor logged.
+     * 
+     * @param jsonPath
+     *            path of the value in the JSON result (field names and array indexes, for example $.items[0].login)
+     * @param method
+     *            GET or POST
+     * @param pageKey
+     *            is the key of page (example: GOOGLE_HOME)
+     * @param uri
+     *            end of the url
+     * @param targetKey
+     *            Target key to save retrieved value.
+     * @param conditions
+     *            List of 'expected' values condition and 'actual' values ({@link com.github.noraui.gherkin.GherkinStepCondition}).
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     *             Exception with {@value com.github.noraui.exception.TechnicalException#TECHNICAL_ERROR_MESSAGE_WRONG_JSON_PATH} message if jsonPath is malformed.
+     * @throws FailureException
+     *             if the scenario encounters a functional error
+     */
+    @Conditioned
+    @Et("Je sauvegarde la valeur '(.*)' de cette API REST '(.*)' '(.*)' '(.*)' dans '(.*)' du contexte[\\.|\\?]")
+    @And("I save the value '(.*)' of REST API '(.*)' '(.*)' '(.*)' in '(.*)' context key[\\.|\\?]")
+    public void saveJsonValue(String jsonPath, String method, String pageKey, String uri, String targetKey, List<GherkinStepCondition> conditions)
+            throws TechnicalException, FailureException {
+        logger.debug("saveJsonValue of REST API with jsonPath [{}].", jsonPath);
+        logger.debug("saveJsonValue of REST API with method [{}].", method);
+        logger.debug("saveJsonValue of REST API with pageKey [{}].", pageKey);
+        logger.debug("saveJsonValue of REST API with uri [{}].", uri);
+        logger.debug("saveJsonValue of REST API in targetKey [{}].", targetKey);
+        String value = null;
+        try {
+            value = httpService.getJsonValue(Context.getUrlByPagekey(pageKey) + uri, jsonPath);
+        } catch (HttpServiceException e) {
+            logger.error(Messages.getMessage(Messages.FAIL_MESSAGE_UNABLE_TO_CALL_API_REST), e);
+            new Result.Failure<>(Context.getApplicationByPagekey(pageKey), Messages.getMessage(Messages.FAIL_MESSAGE_UNABLE_TO_CALL_API_REST), true, Context.getCallBack(Callbacks.RESTART_WEB_DRIVER));
+        }
+        if (value == null) {
+            new Result.Failure<>(Context.getApplicationByPagekey(pageKey), Messages.format(Messages.getMessage(Messages.FAIL_MESSAGE_UNABLE_TO_FIND_JSON_PATH), jsonPath), false,
+                    Context.getCallBack(Callbacks.RESTART_WEB_DRIVER));
+        }
+        Context.saveValue(targetKey, value);
+    }
+
     /**
      * Save result of REST API in dataOutputProvider if all 'expected' parameters equals 'actual' parameters in conditions.
      * 
@@ -106,8 +153,9 @@ public class RESTSteps extends Step {
         String json;
         try {
             json = httpService.get(Context.getUrlByPagekey(pageKey), uri);
-            for (final Integer line : Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndexes()) {
-                Context.getDataOutputProvider().writeDataResult(targetColumn, line, json);
+            final DataIndex dataIndex = Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData());
+            for (int i = 0; i < dataIndex.size(); i++) {
+                Context.getDataOutputProvider().writeDataResult(targetColumn, dataIndex.getIndex(i), json);
             }
         } catch (HttpServiceException e) {
             new Result.Failure<>(Context.getApplicationByPagekey(pageKey), Messages.getMessage(Messages.FAIL_MESSAGE_UNABLE_TO_CALL_API_REST), true, Context.getCallBack(Callbacks.RESTART_WEB_DRIVER));
@@ -17,6 +17,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.noraui.cucumber.annotation.RetryOnFailure;
+import com.github.noraui.data.ModelStore;
 import com.github.noraui.exception.FailureException;
 import com.github.noraui.utils.Context;
 
@@ -38,6 +39,12 @@ public class StepInterceptor implements MethodInterceptor {
 
         Object result = null;
         Method m = invocation.getMethod();
+        Object[] arguments = invocation.getArguments();
+        for (int i = 0; i < arguments.length; i++) {
+            if (arguments[i] instanceof String && ModelStore.isReference((String) arguments[i])) {
+                arguments[i] = ModelStore.resolve((String) arguments[i]);
+            }
+        }
         Annotation[] annotations = m.getAnnotations();
         if (annotations.length > 0) {
             Annotation stepAnnotation = annotations[annotations.length - 1];
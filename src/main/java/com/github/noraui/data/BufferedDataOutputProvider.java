@@ -0,0 +1,30 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import com.github.noraui.exception.TechnicalException;
+
+/**
+ * {@link DataOutputProvider} able to keep results in memory and write them later (write-behind).
+ */
+public interface BufferedDataOutputProvider extends DataOutputProvider {
+
+    /**
+     * @param policy
+     *            the flush policy to use ({@link WriteBehindPolicy#WRITE_THROUGH} by default).
+     */
+    void setWriteBehindPolicy(WriteBehindPolicy policy);
+
+    /**
+     * Writes all pending results.
+     *
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     */
+    void flush() throws TechnicalException;
+
+}
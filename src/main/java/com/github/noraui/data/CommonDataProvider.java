@@ -6,10 +6,13 @@
  */
 package com.github.noraui.data;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.reflections.Reflections;
@@ -22,7 +25,11 @@ import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.model.Model;
 import com.github.noraui.utils.Messages;
 
-public abstract class CommonDataProvider implements DataProvider {
+import okio.BufferedSink;
+import okio.HashingSink;
+import okio.Okio;
+
+public abstract class CommonDataProvider implements DataProvider, DataFingerprintProvider {
 
     /**
      * Specific logger
@@ -31,9 +38,15 @@ public abstract class CommonDataProvider implements DataProvider {
 
     protected String dataInPath;
     protected String dataOutPath;
-    protected List<DataIndex> indexData;
+    protected DataIndexes indexData;
+
+    /**
+     * Index of each example when examples are not in order of their data lines (null if indexData is used).
+     */
+    protected List<DataIndex> unorderedIndexData;
     protected String scenarioName;
     protected List<String> columns;
+    protected Map<String, Integer> columnIndexes;
     protected String resultColumnName;
 
     /**
@@ -43,6 +56,8 @@ public abstract class CommonDataProvider implements DataProvider {
     public int getNbGherkinExample() {
         if (indexData != null) {
             return indexData.size();
+        } else if (unorderedIndexData != null) {
+            return unorderedIndexData.size();
         } else {
             return 0;
         }
@@ -53,7 +68,23 @@ public abstract class CommonDataProvider implements DataProvider {
      */
     @Override
     public void setIndexData(List<DataIndex> indexDataIn) {
-        indexData = new ArrayList<>(indexDataIn);
+        if (DataIndexes.isOrdered(indexDataIn)) {
+            setIndexData(DataIndexes.valueOf(indexDataIn));
+        } else {
+            indexData = null;
+            unorderedIndexData = new ArrayList<>(indexDataIn);
+        }
+    }
+
+    /**
+     * set IndexData in case of serial data.
+     *
+     * @param indexDataIn
+     *            is the index of all examples (lines of each example in int arrays).
+     */
+    public void setIndexData(DataIndexes indexDataIn) {
+        indexData = indexDataIn;
+        unorderedIndexData = null;
     }
 
     /**
@@ -61,9 +92,14 @@ public abstract class CommonDataProvider implements DataProvider {
      */
     @Override
     public DataIndex getIndexData(int dataLine) {
-        for (final DataIndex id : indexData) {
-            if (id.getDataLine() == dataLine) {
-                return id;
+        if (indexData != null) {
+            return indexData.get(dataLine);
+        }
+        if (unorderedIndexData != null) {
+            for (final DataIndex id : unorderedIndexData) {
+                if (id.getDataLine() == dataLine) {
+                    return id;
+                }
             }
         }
         return null;
@@ -108,6 +144,35 @@ public abstract class CommonDataProvider implements DataProvider {
         }
     }
 
+    /**
+     * Default implementation of {@link DataFingerprintProvider#getDataFingerprint()}: hashes the header and all lines (results excluded) read with
+     * {@link DataInputProvider#readLine(int, boolean)}.
+     *
+     * @return SHA-1 of the input data (hex), or null if this provider is not an input provider.
+     * @throws TechnicalException
+     *             if input data can not be read.
+     */
+    @Override
+    public String getDataFingerprint() throws TechnicalException {
+        if (!(this instanceof DataInputProvider)) {
+            return null;
+        }
+        final DataInputProvider dataInputProvider = (DataInputProvider) this;
+        final HashingSink sink = HashingSink.sha1(Okio.blackhole());
+        try (BufferedSink out = Okio.buffer(sink)) {
+            String[] line;
+            for (int i = 0; (line = dataInputProvider.readLine(i, false)) != null; i++) {
+                for (final String cell : line) {
+                    out.writeUtf8(cell == null ? "" : cell).writeByte(cell == null ? 1 : 0);
+                }
+                out.writeByte('\n');
+            }
+        } catch (final IOException e) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
+        }
+        return sink.hash().hex();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -132,6 +197,31 @@ public abstract class CommonDataProvider implements DataProvider {
         return resultColumnName;
     }
 
+    /**
+     * Builds the column name to column index map from current columns (first occurrence wins, as {@link List#indexOf(Object)}).
+     */
+    protected void indexColumns() {
+        columnIndexes = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (!columnIndexes.containsKey(columns.get(i))) {
+                columnIndexes.put(columns.get(i), i);
+            }
+        }
+    }
+
+    /**
+     * @param column
+     *            name of the column
+     * @return index of the column or -1 if column does not exist.
+     */
+    protected int getColumnIndex(String column) {
+        if (columnIndexes == null) {
+            return columns.indexOf(column);
+        }
+        final Integer index = columnIndexes.get(column);
+        return index == null ? -1 : index;
+    }
+
     /**
      * Writes a fail result
      *
@@ -0,0 +1,26 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import com.github.noraui.exception.TechnicalException;
+
+/**
+ * Optional interface of a {@link DataInputProvider} which can fingerprint the input data of the prepared scenario. The injection of a scenario is skipped while the fingerprint of
+ * its data and its feature file are unchanged since its last injection; a scenario read by an input provider without this interface is always injected.
+ */
+public interface DataFingerprintProvider {
+
+    /**
+     * Gets a fingerprint of the input data of the prepared scenario.
+     *
+     * @return a hash of the input data (hex), or null if it can not be computed (the scenario is always injected).
+     * @throws TechnicalException
+     *             if Wrong data file (IOException, EmptyDataFileContentException or WrongDataFileFormatException)
+     */
+    String getDataFingerprint() throws TechnicalException;
+
+}
@@ -6,23 +6,78 @@
  */
 package com.github.noraui.data;
 
+import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Lines of input data of an example (one line, or the lines of a fused model list). The lines are a range of a shared int array (see {@link DataIndexes}), read without boxing
+ * with {@link #size()} and {@link #getIndex(int)}.
+ */
 public class DataIndex {
 
-    private int dataLine;
-    private List<Integer> indexes;
+    private final int dataLine;
+    private final int[] lines;
+    private final int from;
+    private final int to;
 
     public DataIndex(int dataLine, List<Integer> indexes) {
         this.dataLine = dataLine;
-        this.indexes = indexes;
+        this.lines = new int[indexes.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = indexes.get(i);
+        }
+        this.from = 0;
+        this.to = lines.length;
+    }
+
+    /**
+     * @param dataLine
+     *            index of the example (from 1).
+     * @param lines
+     *            shared lines of all examples.
+     * @param from
+     *            first line of the example in lines (inclusive).
+     * @param to
+     *            last line of the example in lines (exclusive).
+     */
+    DataIndex(int dataLine, int[] lines, int from, int to) {
+        this.dataLine = dataLine;
+        this.lines = lines;
+        this.from = from;
+        this.to = to;
     }
 
     public int getDataLine() {
         return dataLine;
     }
 
+    /**
+     * @return number of lines of input data of the example.
+     */
+    public int size() {
+        return to - from;
+    }
+
+    /**
+     * @param i
+     *            index in the lines of the example (from 0).
+     * @return the line of input data.
+     */
+    public int getIndex(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        }
+        return lines[from + i];
+    }
+
+    /**
+     * @return a copy of the lines of input data of the example (prefer {@link #size()} and {@link #getIndex(int)}).
+     */
     public List<Integer> getIndexes() {
+        final List<Integer> indexes = new ArrayList<>(size());
+        for (int i = from; i < to; i++) {
+            indexes.add(lines[i]);
+        }
         return indexes;
     }
 
@@ -0,0 +1,117 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index of all examples of a scenario in two int arrays: lines of input data of example i (from 1) are lines[offsets[i - 1]] to lines[offsets[i] - 1]. An example is found in
+ * constant time and each line costs 4 bytes.
+ */
+public final class DataIndexes {
+
+    /**
+     * Index without example.
+     */
+    public static final DataIndexes EMPTY = new DataIndexes(new int[1], new int[0]);
+
+    private final int[] offsets;
+    private final int[] lines;
+
+    /**
+     * @param offsets
+     *            offset of the first line of each example in lines, followed by the number of lines (so offsets has one more item than examples and starts with 0).
+     * @param lines
+     *            lines of input data of all examples.
+     */
+    public DataIndexes(int[] offsets, int[] lines) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != lines.length) {
+            throw new IllegalArgumentException("offsets must start with 0 and end with the number of lines (" + lines.length + ")");
+        }
+        this.offsets = offsets;
+        this.lines = lines;
+    }
+
+    /**
+     * @param indexData
+     *            index of each example.
+     * @return true if examples are in order of their data lines (1, 2, ...), so they can be kept by {@link #valueOf(List)}.
+     */
+    public static boolean isOrdered(List<DataIndex> indexData) {
+        for (int i = 0; i < indexData.size(); i++) {
+            if (indexData.get(i).getDataLine() != i + 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param indexData
+     *            index of each example, in the order of examples (data lines 1, 2, ...).
+     * @return the same index in two int arrays.
+     * @throws IllegalArgumentException
+     *             if examples are not in order of their data lines (see {@link #isOrdered(List)}).
+     */
+    public static DataIndexes valueOf(List<DataIndex> indexData) {
+        final int[] offsets = new int[indexData.size() + 1];
+        for (int i = 0; i < indexData.size(); i++) {
+            if (indexData.get(i).getDataLine() != i + 1) {
+                throw new IllegalArgumentException("Data line " + (i + 1) + " expected instead of " + indexData.get(i).getDataLine());
+            }
+            offsets[i + 1] = offsets[i] + indexData.get(i).size();
+        }
+        final int[] lines = new int[offsets[indexData.size()]];
+        for (int i = 0; i < indexData.size(); i++) {
+            final DataIndex dataIndex = indexData.get(i);
+            for (int j = 0; j < dataIndex.size(); j++) {
+                lines[offsets[i] + j] = dataIndex.getIndex(j);
+            }
+        }
+        return new DataIndexes(offsets, lines);
+    }
+
+    /**
+     * @return number of examples.
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param dataLine
+     *            index of the example (from 1).
+     * @return lines of input data of the example, or null if there is no such example.
+     */
+    public DataIndex get(int dataLine) {
+        if (dataLine < 1 || dataLine >= offsets.length) {
+            return null;
+        }
+        return new DataIndex(dataLine, lines, offsets[dataLine - 1], offsets[dataLine]);
+    }
+
+    /**
+     * @return index of each example, in the order of examples (sharing the arrays of this index).
+     */
+    public List<DataIndex> toList() {
+        final List<DataIndex> indexData = new ArrayList<>(size());
+        for (int i = 1; i < offsets.length; i++) {
+            indexData.add(get(i));
+        }
+        return indexData;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "DataIndexes [examples=" + size() + ", lines=" + lines.length + "]";
+    }
+
+}
@@ -0,0 +1,220 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.main.ScenarioInitiator;
+import com.github.noraui.model.Model;
+import com.github.noraui.model.ModelList;
+import com.github.noraui.utils.Messages;
+
+/**
+ * Data of a scenario read once: columns of its input data and, for each example, the lines of input data it comes from (one line per example, or the lines of a fused
+ * {@link ModelList}). Lines of example i are lines[offsets[i - 1]] to lines[offsets[i] - 1]. {@link com.github.noraui.main.ScenarioInitiator} builds the plan while it injects the
+ * scenario and saves it beside the feature file, so the index of the examples is loaded at runtime instead of being fused again.
+ */
+public final class DataPlan {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DataPlan.class);
+
+    /**
+     * Extension of the plan beside the feature file.
+     */
+    public static final String EXTENSION = ".plan";
+
+    private static final int MAGIC = 0x4E445031;
+
+    private final String[] columns;
+    private final int[] offsets;
+    private final int[] lines;
+
+    /**
+     * Fused lists by key (only for a plan built with a model, not saved).
+     */
+    private final Map<String, ModelList> modelLists;
+
+    private DataPlan(String[] columns, int[] offsets, int[] lines, Map<String, ModelList> modelLists) {
+        this.columns = columns;
+        this.offsets = offsets;
+        this.lines = lines;
+        this.modelLists = modelLists;
+    }
+
+    /**
+     * Reads the input data of a prepared scenario once: lines are fused by key if the scenario has a model, else each line is an example.
+     *
+     * @param dataInputProvider
+     *            the prepared input provider.
+     * @param model
+     *            class of the model of each line (null if the scenario has no model).
+     * @return the plan of the scenario (without example if the scenario has a model and no header).
+     * @throws TechnicalException
+     *             if data can not be read or a model can not be built.
+     */
+    public static DataPlan build(DataInputProvider dataInputProvider, Class<Model> model) throws TechnicalException {
+        final String[] headers = dataInputProvider.readLine(0, false);
+        final String[] columns = headers == null ? new String[0] : headers;
+        if (model == null) {
+            final int nbLines = dataInputProvider.getNbLines();
+            final int[] offsets = new int[Math.max(nbLines, 1)];
+            final int[] lines = new int[offsets.length - 1];
+            for (int i = 1; i < nbLines; i++) {
+                lines[i - 1] = i;
+                offsets[i] = i;
+            }
+            return new DataPlan(columns, offsets, lines, null);
+        }
+        if (headers == null) {
+            logger.error(Messages.getMessage(ScenarioInitiator.SCENARIO_INITIATOR_ERROR_EMPTY_FILE));
+            return new DataPlan(columns, new int[1], new int[0], Collections.<String, ModelList> emptyMap());
+        }
+        final Constructor<Model> modelConstructor = DataUtils.getModelConstructor(model, headers);
+        final Map<String, ModelList> fusionedData = DataUtils.fusionProcessor(dataInputProvider, model, modelConstructor);
+        final int[] offsets = new int[fusionedData.size() + 1];
+        final List<Integer> ids = new ArrayList<>();
+        int i = 0;
+        for (final ModelList modelList : fusionedData.values()) {
+            ids.addAll(modelList.getIds());
+            offsets[++i] = ids.size();
+        }
+        final int[] lines = new int[ids.size()];
+        for (int j = 0; j < lines.length; j++) {
+            lines[j] = ids.get(j);
+        }
+        return new DataPlan(columns, offsets, lines, fusionedData);
+    }
+
+    /**
+     * @param file
+     *            the plan beside the feature file.
+     * @param featureFingerprint
+     *            fingerprint of the feature file (see {@link com.github.noraui.gherkin.GherkinFactory#getFeatureFingerprint(String)}).
+     * @return the plan saved when the feature file has been injected, or null if there is no plan or if the feature file has changed since.
+     */
+    public static DataPlan load(Path file, String featureFingerprint) {
+        if (featureFingerprint == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || !featureFingerprint.equals(in.readUTF())) {
+                logger.debug("{} does not match its feature file", file);
+                return null;
+            }
+            final String[] columns = new String[in.readInt()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = in.readUTF();
+            }
+            final int[] offsets = readInts(in);
+            final int[] lines = readInts(in);
+            logger.debug("{} examples loaded from {}", offsets.length - 1, file);
+            return new DataPlan(columns, offsets, lines, null);
+        } catch (final IOException e) {
+            logger.warn("Data plan {} can not be read", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the plan (through a temporary file).
+     *
+     * @param file
+     *            the plan beside the feature file.
+     * @param featureFingerprint
+     *            fingerprint of the feature file once injected.
+     * @throws IOException
+     *             if the plan can not be written.
+     */
+    public void save(Path file, String featureFingerprint) throws IOException {
+        final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeUTF(featureFingerprint);
+            out.writeInt(columns.length);
+            for (final String column : columns) {
+                out.writeUTF(column == null ? "" : column);
+            }
+            writeInts(out, offsets);
+            writeInts(out, lines);
+        } catch (final IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        DataUtils.moveAtomically(tmp, file);
+    }
+
+    /**
+     * @return columns of input data (results excluded).
+     */
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(columns));
+    }
+
+    /**
+     * @return number of examples.
+     */
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @return fused lists by key, in the order of the examples (null if the plan has been loaded or built without model).
+     */
+    public Map<String, ModelList> getModelLists() {
+        return modelLists;
+    }
+
+    /**
+     * @return index of the examples (example i, from 1, is made of its lines of input data), sharing the arrays of the plan.
+     */
+    public DataIndexes getDataIndexes() {
+        return new DataIndexes(offsets, lines);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "DataPlan [columns=" + Arrays.toString(columns) + ", examples=" + size() + ", lines=" + lines.length + "]";
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        final int[] values = new int[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (final int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+}
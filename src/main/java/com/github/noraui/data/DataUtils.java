@@ -6,8 +6,14 @@
  */
 package com.github.noraui.data;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -20,6 +26,10 @@ import com.github.noraui.model.ModelList;
 import com.github.noraui.utils.Context;
 import com.github.noraui.utils.Messages;
 
+import okio.BufferedSource;
+import okio.HashingSink;
+import okio.Okio;
+
 public class DataUtils {
 
     private DataUtils() {
@@ -37,10 +47,27 @@ public class DataUtils {
     }
 
     public static Map<String, ModelList> fusionProcessor(Class<Model> model, Constructor<Model> modelConstructor) throws TechnicalException {
+        return fusionProcessor(Context.getDataInputProvider(), model, modelConstructor);
+    }
+
+    /**
+     * Groups lines of a prepared input provider by their first column, in one {@link ModelList} per key.
+     *
+     * @param dataInputProvider
+     *            the prepared input provider.
+     * @param model
+     *            class of the model of each line.
+     * @param modelConstructor
+     *            constructor of the model matching the headers.
+     * @return models by key, in the order of the lines.
+     * @throws TechnicalException
+     *             if a model can not be built.
+     */
+    public static Map<String, ModelList> fusionProcessor(DataInputProvider dataInputProvider, Class<Model> model, Constructor<Model> modelConstructor) throws TechnicalException {
         final Map<String, ModelList> fusionedData = new LinkedHashMap<>();
         try {
             final Class<? extends ModelList> modelListClass = model.newInstance().getModelList();
-            String[] example = Context.getDataInputProvider().readLine(1, false);
+            String[] example = dataInputProvider.readLine(1, false);
             int i = 2;
             do {
                 final String key = example[0];
@@ -50,7 +77,7 @@ public class DataUtils {
                 } else {
                     fusionedData.put(key, modelListClass.newInstance().addModel(modelConstructor.newInstance(data)));
                 }
-                example = Context.getDataInputProvider().readLine(i, false);
+                example = dataInputProvider.readLine(i, false);
                 i++;
             } while (example != null);
         } catch (IllegalAccessException | InstantiationException | IllegalArgumentException | InvocationTargetException e) {
@@ -59,6 +86,41 @@ public class DataUtils {
         return fusionedData;
     }
 
+    /**
+     * Replaces target file by source file (a temporary file written next to target) with an atomic move if file system supports it, so that target is never left truncated.
+     *
+     * @param source
+     *            the fully written temporary file.
+     * @param target
+     *            the file to replace.
+     * @throws IOException
+     *             if the move fails.
+     */
+    public static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param file
+     *            a data file.
+     * @return SHA-1 of the content of the file (hex), read by blocks.
+     * @throws TechnicalException
+     *             if the file can not be read.
+     */
+    public static String fingerprint(File file) throws TechnicalException {
+        final HashingSink sink = HashingSink.sha1(Okio.blackhole());
+        try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+            source.readAll(sink);
+        } catch (final IOException e) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
+        }
+        return sink.hash().hex();
+    }
+
     private static Object[] addStringToBeginningOfObjectArray(String s, Object[] data) {
         final List<Object> list = new ArrayList<>(Arrays.asList(data));
         list.add(0, s);
@@ -0,0 +1,168 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import static com.github.noraui.utils.Constants.DEFAULT_ENDODING;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link RowStore} spilled in a temporary file: rows are appended with {@link #add(String[])} then read back one at a time, only the offset of each row is kept in memory.
+ * The temporary file is deleted by {@link #close()}.
+ */
+public final class FileRowStore implements RowStore, Closeable {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(FileRowStore.class);
+
+    private static final Charset CHARSET = Charset.forName(DEFAULT_ENDODING);
+
+    private final File file;
+    private DataOutputStream output;
+    private RandomAccessFile input;
+    private long[] offsets = new long[1024];
+    private int size;
+    private long length;
+
+    /**
+     * Creates an empty store in a new temporary file.
+     *
+     * @throws IOException
+     *             if temporary file can not be created.
+     */
+    public FileRowStore() throws IOException {
+        file = File.createTempFile("noraui", ".rows");
+        file.deleteOnExit();
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    /**
+     * Appends a row (rows can not be added once a row has been read).
+     *
+     * @param row
+     *            cells of the row (null cells allowed).
+     * @throws IOException
+     *             if temporary file can not be written.
+     */
+    public synchronized void add(String[] row) throws IOException {
+        if (output == null) {
+            throw new IOException("Rows can not be added to " + file + " once it is read.");
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        offsets[size++] = length;
+        output.writeInt(row.length);
+        length += 4;
+        for (final String cell : row) {
+            if (cell == null) {
+                output.writeInt(-1);
+                length += 4;
+            } else {
+                final byte[] bytes = cell.getBytes(CHARSET);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+                length += 4 + bytes.length;
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A new array is read at each call.
+     */
+    @Override
+    public synchronized String[] getRow(int line) {
+        if (line < 0 || line >= size) {
+            return null;
+        }
+        try {
+            if (input == null) {
+                if (output == null) {
+                    return null;
+                }
+                output.close();
+                output = null;
+                input = new RandomAccessFile(file, "r");
+            }
+            final long end = line + 1 < size ? offsets[line + 1] : length;
+            final byte[] bytes = new byte[(int) (end - offsets[line])];
+            input.seek(offsets[line]);
+            input.readFully(bytes);
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+            final String[] row = new String[in.readInt()];
+            for (int i = 0; i < row.length; i++) {
+                final int cellLength = in.readInt();
+                if (cellLength >= 0) {
+                    row[i] = new String(bytes, bytes.length - in.available(), cellLength, CHARSET);
+                    in.skipBytes(cellLength);
+                }
+            }
+            return row;
+        } catch (final IOException e) {
+            logger.error("Row {} can not be read in {}", line, file, e);
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValue(int line, int column) {
+        final String[] row = getRow(line);
+        if (row == null || column < 0 || column >= row.length) {
+            return null;
+        }
+        return row[column];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (output != null) {
+                output.close();
+            }
+            if (input != null) {
+                input.close();
+            }
+        } finally {
+            output = null;
+            input = null;
+            if (!file.delete()) {
+                logger.debug("{} can not be deleted", file);
+            }
+        }
+    }
+
+}
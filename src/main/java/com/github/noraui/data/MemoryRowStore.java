@@ -0,0 +1,59 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import java.util.List;
+
+/**
+ * Immutable {@link RowStore} holding all rows in memory.
+ */
+public final class MemoryRowStore implements RowStore {
+
+    private static final String[][] NO_ROWS = new String[0][];
+
+    private final String[][] rows;
+
+    /**
+     * @param rows
+     *            all parsed rows (headers line first).
+     */
+    public MemoryRowStore(List<String[]> rows) {
+        this.rows = rows.toArray(NO_ROWS);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getRow(int line) {
+        if (line < 0 || line >= rows.length) {
+            return null;
+        }
+        return rows[line];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValue(int line, int column) {
+        final String[] row = getRow(line);
+        if (row == null || column < 0 || column >= row.length) {
+            return null;
+        }
+        return row[column];
+    }
+
+}
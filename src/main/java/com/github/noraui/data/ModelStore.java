@@ -0,0 +1,205 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import static com.github.noraui.utils.Constants.DEFAULT_ENDODING;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.gherkin.GherkinFactory;
+import com.github.noraui.utils.Messages;
+
+/**
+ * Serialized {@link com.github.noraui.model.ModelList} of a scenario kept beside its feature file instead of being inlined in its examples: the examples only hold a reference
+ * (see {@link #reference(String, int)}) resolved when a step uses it. The file starts with the offset of each serialized list, so a list is read without reading the others.
+ */
+public final class ModelStore {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ModelStore.class);
+
+    /**
+     * Prefix of a reference injected in examples.
+     */
+    public static final String REFERENCE_PREFIX = "models:";
+
+    /**
+     * Extension of the store beside the feature file.
+     */
+    public static final String EXTENSION = ".models";
+
+    private static final int MAGIC = 0x4E4D5331;
+    private static final Charset CHARSET = Charset.forName(DEFAULT_ENDODING);
+
+    /**
+     * Opened stores by file.
+     */
+    private static final Map<Path, ModelStore> STORES = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final long[] offsets;
+    private final FileTime lastModified;
+    private final long size;
+
+    private ModelStore(Path file, long[] offsets, FileTime lastModified, long size) {
+        this.file = file;
+        this.offsets = offsets;
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    /**
+     * @param scenarioName
+     *            name of the scenario.
+     * @param id
+     *            id of the example (1 for the first one).
+     * @return the reference to inject in the examples of the scenario.
+     */
+    public static String reference(String scenarioName, int id) {
+        return REFERENCE_PREFIX + scenarioName + '#' + id;
+    }
+
+    /**
+     * @param value
+     *            a value of examples (or any step argument).
+     * @return true if the value is a reference of a model store.
+     */
+    public static boolean isReference(String value) {
+        return value != null && value.startsWith(REFERENCE_PREFIX) && value.lastIndexOf('#') > REFERENCE_PREFIX.length();
+    }
+
+    /**
+     * @param reference
+     *            a reference (see {@link #isReference(String)}).
+     * @return the serialized list of the reference, read from the store of the scenario.
+     * @throws TechnicalException
+     *             if the store can not be read or does not contain the reference.
+     */
+    public static String resolve(String reference) throws TechnicalException {
+        final int separator = reference.lastIndexOf('#');
+        final String scenarioName = reference.substring(REFERENCE_PREFIX.length(), separator);
+        try {
+            return read(GherkinFactory.getModelStorePath(scenarioName), Integer.parseInt(reference.substring(separator + 1)));
+        } catch (final NumberFormatException e) {
+            throw new TechnicalException(Messages.format(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_WRONG_MODEL_REFERENCE), reference), e);
+        }
+    }
+
+    /**
+     * Writes a store (through a temporary file).
+     *
+     * @param file
+     *            the store.
+     * @param serializedLists
+     *            serialized lists, in the order of the examples.
+     * @throws IOException
+     *             if the store can not be written.
+     */
+    public static void write(Path file, List<String> serializedLists) throws IOException {
+        final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(serializedLists.size());
+            long offset = 8L + 8L * serializedLists.size();
+            final byte[][] records = new byte[serializedLists.size()][];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = serializedLists.get(i).getBytes(CHARSET);
+                out.writeLong(offset);
+                offset += 4 + records[i].length;
+            }
+            for (final byte[] record : records) {
+                out.writeInt(record.length);
+                out.write(record);
+            }
+        } catch (final IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        DataUtils.moveAtomically(tmp, file);
+        STORES.remove(file);
+        logger.debug("{} serialized lists written in {}", serializedLists.size(), file);
+    }
+
+    /**
+     * @param file
+     *            the store.
+     * @param id
+     *            id of the example (1 for the first one).
+     * @return the serialized list of the example.
+     * @throws TechnicalException
+     *             if the store can not be read or does not contain the example.
+     */
+    static String read(Path file, int id) throws TechnicalException {
+        try {
+            final ModelStore store = open(file);
+            if (id < 1 || id > store.offsets.length) {
+                throw new TechnicalException(Messages.format(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_WRONG_MODEL_REFERENCE), file + "#" + id));
+            }
+            try (RandomAccessFile in = new RandomAccessFile(file.toFile(), "r")) {
+                in.seek(store.offsets[id - 1]);
+                final byte[] record = new byte[in.readInt()];
+                in.readFully(record);
+                return new String(record, CHARSET);
+            }
+        } catch (final IOException e) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
+        }
+    }
+
+    /**
+     * @param file
+     *            the store.
+     * @return the store with its offsets, read again only if the file has been modified (last modified time or size).
+     * @throws IOException
+     *             if the store can not be read.
+     */
+    private static ModelStore open(Path file) throws IOException {
+        final FileTime fileLastModified = Files.getLastModifiedTime(file);
+        final long fileSize = Files.size(file);
+        ModelStore store = STORES.get(file);
+        if (store == null || !fileLastModified.equals(store.lastModified) || fileSize != store.size) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException(file + " is not a model store.");
+                }
+                final long[] offsets = new long[in.readInt()];
+                for (int i = 0; i < offsets.length; i++) {
+                    offsets[i] = in.readLong();
+                }
+                store = new ModelStore(file, offsets, fileLastModified, fileSize);
+            }
+            STORES.put(file, store);
+        }
+        return store;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ModelStore [file=" + file + ", size=" + offsets.length + "]";
+    }
+
+}
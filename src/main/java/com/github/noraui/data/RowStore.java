@@ -0,0 +1,36 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+/**
+ * Read-only table of rows served by data providers once their source has been parsed.
+ * Line 0 is the headers line, line 1 is the first line of data, ...
+ */
+public interface RowStore {
+
+    /**
+     * @return number of lines (headers line included).
+     */
+    int size();
+
+    /**
+     * @param line
+     *            index of the line to read (0 for headers).
+     * @return all cells of the line (must not be modified) or null if line is out of the store.
+     */
+    String[] getRow(int line);
+
+    /**
+     * @param line
+     *            index of the line to read (0 for headers).
+     * @param column
+     *            index of the column to read.
+     * @return value of the cell or null if cell is out of the store.
+     */
+    String getValue(int line, int column);
+
+}
@@ -0,0 +1,87 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+/**
+ * Flush policy of a {@link BufferedDataOutputProvider}: results are kept in memory and flushed every N writes and/or every T milliseconds.
+ * Buffered results are always flushed at the end of each feature and at JVM shutdown.
+ */
+public final class WriteBehindPolicy {
+
+    /**
+     * Default policy: each result is written as soon as it is received.
+     */
+    public static final WriteBehindPolicy WRITE_THROUGH = new WriteBehindPolicy(1, 0);
+
+    private final int maxPendingWrites;
+    private final long maxDelay;
+
+    /**
+     * @param maxPendingWrites
+     *            flush when this number of writes is pending (0 or less to disable this trigger).
+     * @param maxDelay
+     *            flush when last flush is older than this delay in milliseconds (0 or less to disable this trigger).
+     */
+    public WriteBehindPolicy(int maxPendingWrites, long maxDelay) {
+        this.maxPendingWrites = maxPendingWrites;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @param maxPendingWrites
+     *            value of dataProvider.out.flush.writes property (may be null or empty).
+     * @param maxDelay
+     *            value of dataProvider.out.flush.delay property (may be null or empty).
+     * @return the policy or {@link #WRITE_THROUGH} if nothing is set.
+     */
+    public static WriteBehindPolicy valueOf(String maxPendingWrites, String maxDelay) {
+        final boolean writesSet = maxPendingWrites != null && !"".equals(maxPendingWrites.trim());
+        final boolean delaySet = maxDelay != null && !"".equals(maxDelay.trim());
+        if (!writesSet && !delaySet) {
+            return WRITE_THROUGH;
+        }
+        return new WriteBehindPolicy(writesSet ? Integer.parseInt(maxPendingWrites.trim()) : 0, delaySet ? Long.parseLong(maxDelay.trim()) : 0);
+    }
+
+    /**
+     * @return true if each write must be flushed immediately.
+     */
+    public boolean isWriteThrough() {
+        return maxPendingWrites == 1;
+    }
+
+    /**
+     * @param pendingWrites
+     *            number of writes not flushed yet.
+     * @param lastFlushTime
+     *            time of last flush (in milliseconds).
+     * @return true if pending writes must be flushed now.
+     */
+    public boolean isFlushDue(int pendingWrites, long lastFlushTime) {
+        if (pendingWrites <= 0) {
+            return false;
+        }
+        return (maxPendingWrites > 0 && pendingWrites >= maxPendingWrites) || (maxDelay > 0 && System.currentTimeMillis() - lastFlushTime >= maxDelay);
+    }
+
+    public int getMaxPendingWrites() {
+        return maxPendingWrites;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "WriteBehindPolicy [maxPendingWrites=" + maxPendingWrites + ", maxDelay=" + maxDelay + "]";
+    }
+
+}
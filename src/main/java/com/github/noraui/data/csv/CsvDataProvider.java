@@ -8,22 +8,32 @@ package com.github.noraui.data.csv;
 
 import static com.github.noraui.utils.Constants.DEFAULT_ENDODING;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.noraui.data.CommonDataProvider;
+import com.github.noraui.data.BufferedDataOutputProvider;
 import com.github.noraui.data.DataInputProvider;
-import com.github.noraui.data.DataOutputProvider;
+import com.github.noraui.data.DataUtils;
+import com.github.noraui.data.MemoryRowStore;
+import com.github.noraui.data.RowStore;
+import com.github.noraui.data.WriteBehindPolicy;
 import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.exception.data.EmptyDataFileContentException;
 import com.github.noraui.exception.data.WrongDataFileFormatException;
@@ -33,7 +43,7 @@ import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
 import com.opencsv.CSVWriter;
 
-public class CsvDataProvider extends CommonDataProvider implements DataInputProvider, DataOutputProvider {
+public class CsvDataProvider extends CommonDataProvider implements DataInputProvider, BufferedDataOutputProvider {
 
     /**
      * Specific logger
@@ -49,6 +59,22 @@ public class CsvDataProvider extends CommonDataProvider implements DataInputProv
     private static final String CSV_DATA_PROVIDER_USED = "CSV_DATA_PROVIDER_USED";
     private static final String CSV_DATA_PROVIDER_WRITING_IN_CSV_ERROR_MESSAGE = "CSV_DATA_PROVIDER_WRITING_IN_CSV_ERROR_MESSAGE";
 
+    /**
+     * Parsed input file (parsed once by {@link #prepare(String)} and parsed again only if file changes).
+     */
+    private RowStore inputRows;
+    private long inputLastModified;
+    private long inputLength;
+
+    /**
+     * Output table kept in memory between two flushes.
+     */
+    private List<String[]> outputRows;
+    private final BitSet outputDirtyLines = new BitSet();
+    private int pendingWrites;
+    private long lastFlushTime;
+    private WriteBehindPolicy writeBehindPolicy = WriteBehindPolicy.WRITE_THROUGH;
+
     public CsvDataProvider() {
         super();
         logger.info(Messages.getMessage(CSV_DATA_PROVIDER_USED));
@@ -59,24 +85,33 @@ public class CsvDataProvider extends CommonDataProvider implements DataInputProv
      */
     @Override
     public void prepare(String scenario) {
+        resetOutputData();
         scenarioName = scenario;
         try {
-            initColumns();
+            loadInputData();
         } catch (IOException | EmptyDataFileContentException | WrongDataFileFormatException e) {
             logger.error(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
             System.exit(-1);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * The fingerprint is the hash of the input file.
+     */
+    @Override
+    public String getDataFingerprint() throws TechnicalException {
+        return DataUtils.fingerprint(new File(dataInPath + scenarioName + "." + CSV_TYPE));
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public int getNbLines() {
         try {
-            final CSVReader reader = openInputData();
-            return reader.readAll().size();
-        } catch (final IOException e) {
+            return getInputRows().size();
+        } catch (final IOException | EmptyDataFileContentException | WrongDataFileFormatException e) {
             return 0;
         }
 
@@ -87,11 +122,10 @@ public class CsvDataProvider extends CommonDataProvider implements DataInputProv
      */
     @Override
     public String readValue(String column, int line) throws TechnicalException {
-        final int colIndex = columns.indexOf(column);
+        final int colIndex = getColumnIndex(column);
         try {
-            final CSVReader reader = openInputData();
-            return reader.readAll().get(line)[colIndex];
-        } catch (final IOException e) {
+            return getInputRows().getRow(line)[colIndex];
+        } catch (final IOException | EmptyDataFileContentException | WrongDataFileFormatException e) {
             throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
         }
     }
@@ -103,37 +137,100 @@ public class CsvDataProvider extends CommonDataProvider implements DataInputProv
     public String[] readLine(int line, boolean readResult) {
         logger.debug("readLine at line {}", line);
         try {
-            final CSVReader reader = openInputData();
-            final List<String[]> a = reader.readAll();
-            if (line >= a.size()) {
-                return null;
-            }
-            final String[] row = a.get(line);
-            if ("".equals(row[0])) {
+            final String[] row = getInputRows().getRow(line);
+            if (row == null || "".equals(row[0])) {
                 return null;
             } else {
                 final String[] ret = readResult ? new String[columns.size()] : new String[columns.size() - 1];
-                for (int i = 0; i < ret.length; i++) {
-                    ret[i] = row[i];
-                }
+                System.arraycopy(row, 0, ret, 0, ret.length);
                 return ret;
             }
-        } catch (final IOException e) {
+        } catch (final IOException | EmptyDataFileContentException | WrongDataFileFormatException e) {
             logger.error("error CsvDataProvider.readLine()", e);
             return null;
         }
     }
 
-    private void initColumns() throws EmptyDataFileContentException, WrongDataFileFormatException, IOException {
+    /**
+     * Gets the parsed input rows, parsing again input file only if it has been modified (last modified date or size) since last parsing.
+     *
+     * @return all rows of the input file (headers line included).
+     * @throws IOException
+     *             if input file can not be read.
+     * @throws EmptyDataFileContentException
+     *             if input file has less than 2 columns.
+     * @throws WrongDataFileFormatException
+     *             if result column name is not authorized.
+     */
+    private RowStore getInputRows() throws IOException, EmptyDataFileContentException, WrongDataFileFormatException {
+        final File file = new File(dataInPath + scenarioName + "." + CSV_TYPE);
+        if (inputRows == null || file.lastModified() != inputLastModified || file.length() != inputLength) {
+            loadInputData();
+        }
+        return inputRows;
+    }
+
+    /**
+     * Parses input file once and keeps its rows (see {@link #readInputRows(File)}).
+     *
+     * @throws IOException
+     *             if input file can not be read.
+     * @throws EmptyDataFileContentException
+     *             if input file has less than 2 columns.
+     * @throws WrongDataFileFormatException
+     *             if result column name is not authorized.
+     */
+    private void loadInputData() throws IOException, EmptyDataFileContentException, WrongDataFileFormatException {
+        final File file = new File(dataInPath + scenarioName + "." + CSV_TYPE);
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        closeInputRows();
+        inputRows = readInputRows(file);
+        inputLastModified = lastModified;
+        inputLength = length;
+        logger.debug("{} lines loaded from {}", inputRows.size(), file);
+        initColumns();
+    }
+
+    /**
+     * Reads all rows of input file.
+     *
+     * @param file
+     *            input file of current scenario.
+     * @return a {@link RowStore} of all rows (headers line first).
+     * @throws IOException
+     *             if input file can not be read.
+     */
+    protected RowStore readInputRows(File file) throws IOException {
+        try (CSVReader reader = openInputData()) {
+            return new MemoryRowStore(reader.readAll());
+        }
+    }
+
+    /**
+     * Releases parsed input rows (and the mapping of their file if any). Input file is parsed again when it is read next time.
+     */
+    protected synchronized void closeInputRows() {
+        if (inputRows instanceof Closeable) {
+            try {
+                ((Closeable) inputRows).close();
+            } catch (final IOException e) {
+                logger.debug("IOException when closing rows of previous input file", e);
+            }
+        }
+        inputRows = null;
+    }
+
+    private void initColumns() throws EmptyDataFileContentException, WrongDataFileFormatException {
         columns = new ArrayList<>();
-        final CSVReader reader = openInputData();
-        final String[] headers = reader.readNext();
-        for (final String header : headers) {
-            if (!"".equals(header)) {
-                columns.add(header);
+        final String[] headers = inputRows.getRow(0);
+        if (headers != null) {
+            for (final String header : headers) {
+                if (!"".equals(header)) {
+                    columns.add(header);
+                }
             }
         }
-        reader.close();
         if (columns.size() < 2) {
             throw new EmptyDataFileContentException(Messages.getMessage(EmptyDataFileContentException.EMPTY_DATA_FILE_CONTENT_ERROR_MESSAGE));
         }
@@ -141,34 +238,92 @@ public class CsvDataProvider extends CommonDataProvider implements DataInputProv
         if (!isResultColumnNameAuthorized(resultColumnName)) {
             throw new WrongDataFileFormatException(String.format(Messages.getMessage(WrongDataFileFormatException.WRONG_RESULT_COLUMN_NAME_ERROR_MESSAGE), ResultColumnNames.getAuthorizedNames()));
         }
+        indexColumns();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void setWriteBehindPolicy(WriteBehindPolicy policy) {
+        writeBehindPolicy = policy;
+        logger.debug("CSV output flush policy is {}", policy);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    protected void writeValue(String column, int line, String value) {
+    public synchronized void flush() throws TechnicalException {
+        if (!outputDirtyLines.isEmpty()) {
+            try {
+                writeOutputData();
+            } catch (final IOException e) {
+                throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected synchronized void writeValue(String column, int line, String value) {
         logger.debug("Writing: [{}] at line [{}] in column [{}]", value, line, column);
-        final int colIndex = columns.indexOf(column);
-        CSVReader reader;
+        final int colIndex = getColumnIndex(column);
         try {
-            reader = openOutputData();
-            final List<String[]> csvBody = reader.readAll();
-            csvBody.get(line)[colIndex] = value;
-            reader.close();
-            writeValue(column, line, value, csvBody);
+            if (outputRows == null) {
+                try (CSVReader reader = openOutputData()) {
+                    outputRows = reader.readAll();
+                }
+                lastFlushTime = System.currentTimeMillis();
+            }
+            outputRows.get(line)[colIndex] = value;
+            outputDirtyLines.set(line);
+            pendingWrites++;
+            if (writeBehindPolicy.isFlushDue(pendingWrites, lastFlushTime)) {
+                writeOutputData();
+            }
         } catch (final IOException e1) {
             logger.error(Messages.getMessage(CSV_DATA_PROVIDER_WRITING_IN_CSV_ERROR_MESSAGE), column, line, value, e1);
         }
     }
 
-    private void writeValue(String column, int line, String value, List<String[]> csvBody) {
-        try (CSVWriter writer = new CSVWriter(new FileWriter(new File(dataOutPath + scenarioName + "." + CSV_TYPE)), CSV_CHAR_SEPARATOR, CSV_CHAR_QUOTE, CSV_CHAR_ESCAPE, CSV_CHAR_LINEEND);) {
-            writer.writeAll(csvBody);
-            writer.flush();
-        } catch (final IOException e) {
-            logger.error(Messages.getMessage(CSV_DATA_PROVIDER_WRITING_IN_CSV_ERROR_MESSAGE), column, line, value, e);
+    /**
+     * Writes the whole output table in a temporary file then moves it on the output file, so that a crash never leaves a truncated output file.
+     *
+     * @throws IOException
+     *             if output file can not be written.
+     */
+    private void writeOutputData() throws IOException {
+        final Path target = Paths.get(dataOutPath + scenarioName + "." + CSV_TYPE);
+        final Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), scenarioName, ".tmp");
+        try {
+            try (CSVWriter writer = new CSVWriter(new OutputStreamWriter(new FileOutputStream(temp.toFile()), DEFAULT_ENDODING), CSV_CHAR_SEPARATOR, CSV_CHAR_QUOTE, CSV_CHAR_ESCAPE,
+                    CSV_CHAR_LINEEND);) {
+                writer.writeAll(outputRows);
+                writer.flush();
+            }
+            DataUtils.moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.debug("{} writes on {} lines flushed in {}", pendingWrites, outputDirtyLines.cardinality(), target);
+        outputDirtyLines.clear();
+        pendingWrites = 0;
+        lastFlushTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Flushes pending results of previous scenario and forgets its output table.
+     */
+    private synchronized void resetOutputData() {
+        try {
+            flush();
+        } catch (final TechnicalException e) {
+            logger.error(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE), e);
         }
+        outputRows = null;
     }
 
     private CSVReader openInputData() throws FileNotFoundException, UnsupportedEncodingException {
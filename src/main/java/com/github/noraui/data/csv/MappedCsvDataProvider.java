@@ -0,0 +1,53 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.csv;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.RowStore;
+
+/**
+ * CSV data provider for very large input files: input file is memory-mapped and only the requested row is decoded, so heap usage does not depend on input file size.
+ * Use it with dataProvider.in.type=com.github.noraui.data.csv.MappedCsvDataProvider. Results are written like {@link CsvDataProvider}: with dataProvider.out.type=CSV the whole
+ * output file is kept in memory, so use a non-CSV output (DB for example) to keep heap usage flat. The mapping is released by {@link #close()} or when another input file is
+ * mapped.
+ */
+public class MappedCsvDataProvider extends CsvDataProvider implements Closeable {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MappedCsvDataProvider.class);
+
+    public MappedCsvDataProvider() {
+        super();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected RowStore readInputRows(File file) throws IOException {
+        final RowStore rows = new MappedCsvRowStore(file.toPath(), CSV_CHAR_SEPARATOR);
+        logger.debug("{} mapped with {} lines", file, rows.size());
+        return rows;
+    }
+
+    /**
+     * Releases the mapped input file (it is mapped again if it is read after).
+     */
+    @Override
+    public void close() {
+        closeInputRows();
+    }
+
+}
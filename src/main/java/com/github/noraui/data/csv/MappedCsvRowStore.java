@@ -0,0 +1,263 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.csv;
+
+import static com.github.noraui.utils.Constants.DEFAULT_ENDODING;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.RowStore;
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+
+/**
+ * {@link RowStore} reading a memory-mapped CSV file.
+ * Only a sparse index (start offset of one row every {@link #INDEX_STEP} rows) is kept on heap, a row is decoded when it is read.
+ * As with {@link com.opencsv.CSVReader}, a line break inside a quoted field does not end the row.
+ * {@link #close()} unmaps the file at once (instead of waiting for the garbage collector), so that it can be replaced or deleted on Windows.
+ */
+public final class MappedCsvRowStore implements RowStore, Closeable {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(MappedCsvRowStore.class);
+
+    /**
+     * Number of rows between two offsets of the sparse index.
+     */
+    static final int INDEX_STEP = 64;
+
+    /**
+     * Mapped segments have a fixed size so that files bigger than 2 GB can be mapped.
+     */
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    private MappedByteBuffer[] segments;
+    private final long length;
+    private final Charset charset;
+    private final CSVParser parser;
+    private final byte quote;
+    private final byte escape;
+
+    private long[] index = new long[16];
+    private int size;
+
+    /**
+     * Last read row (rows are mostly read in sequence).
+     */
+    private int lastLine = -1;
+    private long lastLineEnd;
+
+    /**
+     * @param file
+     *            CSV file to map.
+     * @param separator
+     *            CSV separator.
+     * @throws IOException
+     *             if file can not be mapped.
+     */
+    public MappedCsvRowStore(Path file, char separator) throws IOException {
+        this.charset = Charset.forName(DEFAULT_ENDODING);
+        this.parser = new CSVParserBuilder().withSeparator(separator).build();
+        this.quote = (byte) parser.getQuotechar();
+        this.escape = (byte) parser.getEscape();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.length = channel.size();
+            this.segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                final long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_MASK + 1, length - position));
+            }
+        }
+        buildIndex();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A new array is decoded at each call.
+     */
+    @Override
+    public synchronized String[] getRow(int line) {
+        if (segments == null || line < 0 || line >= size) {
+            return null;
+        }
+        long start;
+        int current;
+        if (lastLine >= 0 && line > lastLine && line - lastLine <= line % INDEX_STEP + 1) {
+            start = lastLineEnd;
+            current = lastLine + 1;
+        } else {
+            start = index[line / INDEX_STEP];
+            current = line - line % INDEX_STEP;
+        }
+        long end = nextRowStart(start);
+        while (current < line) {
+            start = end;
+            end = nextRowStart(start);
+            current++;
+        }
+        lastLine = line;
+        lastLineEnd = end;
+        try {
+            return parser.parseLine(decode(start, end));
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValue(int line, int column) {
+        final String[] row = getRow(line);
+        if (row == null || column < 0 || column >= row.length) {
+            return null;
+        }
+        return row[column];
+    }
+
+    /**
+     * {@inheritDoc}
+     * Rows can not be read after.
+     */
+    @Override
+    public synchronized void close() {
+        if (segments != null) {
+            final MappedByteBuffer[] mapped = segments;
+            segments = null;
+            for (final MappedByteBuffer segment : mapped) {
+                unmap(segment);
+            }
+        }
+    }
+
+    /**
+     * Single pass on the file counting rows and saving one row offset every {@link #INDEX_STEP} rows.
+     */
+    private void buildIndex() {
+        long position = 0;
+        while (position < length) {
+            if (size % INDEX_STEP == 0) {
+                final int slot = size / INDEX_STEP;
+                if (slot == index.length) {
+                    index = Arrays.copyOf(index, slot * 2);
+                }
+                index[slot] = position;
+            }
+            position = nextRowStart(position);
+            size++;
+        }
+    }
+
+    /**
+     * @param start
+     *            offset of the first byte of a row.
+     * @return offset of the first byte of next row (or file length).
+     */
+    private long nextRowStart(long start) {
+        boolean inQuotes = false;
+        long position = start;
+        while (position < length) {
+            final byte b = get(position++);
+            if (b == LF && !inQuotes) {
+                return position;
+            } else if (b == escape && position < length) {
+                final byte next = get(position);
+                if (next == quote || next == escape) {
+                    position++;
+                }
+            } else if (b == quote) {
+                inQuotes = !inQuotes;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * @param start
+     *            offset of the first byte of a row.
+     * @param end
+     *            offset of the first byte of next row.
+     * @return the row without its line terminator.
+     */
+    private String decode(long start, long end) {
+        long last = end;
+        if (last > start && get(last - 1) == LF) {
+            last--;
+        }
+        if (last > start && get(last - 1) == CR) {
+            last--;
+        }
+        final byte[] bytes = new byte[(int) (last - start)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = get(start + i);
+        }
+        return new String(bytes, charset);
+    }
+
+    private byte get(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Releases a mapped buffer with the cleaner of the JVM (sun.misc.Unsafe.invokeCleaner since Java 9, DirectByteBuffer.cleaner() before). If the JVM does not allow it, the
+     * buffer is released by the garbage collector.
+     *
+     * @param buffer
+     *            a mapped buffer which must not be read any more.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = null;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (final NoSuchMethodException e) {
+                final Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                final Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            final Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            logger.debug("Mapped buffer can not be released, it will be released by the garbage collector", e);
+        }
+    }
+
+}
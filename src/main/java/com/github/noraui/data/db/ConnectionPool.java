@@ -0,0 +1,665 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.db;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded pool of JDBC connections used by {@link DBDataProvider}.
+ * Idle connections are validated before being borrowed and closed when they are idle for longer than {@link ConnectionPoolPolicy#getIdleTimeout()} (checked on each borrow and
+ * release). Closing a borrowed connection gives it back to the pool.
+ * Each physical connection keeps its last {@link #STATEMENT_CACHE_SIZE} prepared statements: preparing the same query again on the same connection reuses the statement (closing it
+ * only clears its parameters).
+ */
+public class ConnectionPool implements ConnectionPoolMXBean {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    /**
+     * Max number of prepared statements kept open per physical connection.
+     */
+    public static final int STATEMENT_CACHE_SIZE = 32;
+
+    /**
+     * Domain and type of the JMX names of pools (see {@link #registerMBean()}).
+     */
+    private static final String OBJECT_NAME_PREFIX = "com.github.noraui.data.db:type=ConnectionPool,id=";
+
+    private static final AtomicInteger POOL_IDS = new AtomicInteger();
+
+    private final int id = POOL_IDS.incrementAndGet();
+    private final String url;
+    private final String user;
+    private final String password;
+    private final ConnectionPoolPolicy policy;
+    private final Semaphore permits;
+
+    /**
+     * Idle connections, most recently used first.
+     */
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong borrowLatency = new AtomicLong();
+    private final AtomicLong maxBorrowLatency = new AtomicLong();
+    private final AtomicLong createdConnections = new AtomicLong();
+    private final AtomicLong evictedConnections = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /**
+     * JMX name of this pool, or null if it is not registered.
+     */
+    private ObjectName objectName;
+
+    /**
+     * @param url
+     *            JDBC url.
+     * @param user
+     *            database user.
+     * @param password
+     *            password of database user.
+     * @param policy
+     *            size, timeouts and validation settings.
+     */
+    public ConnectionPool(String url, String user, String password, ConnectionPoolPolicy policy) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.policy = policy;
+        this.permits = new Semaphore(policy.getMaxSize(), true);
+        logger.debug("Connection pool created on {} with {}", url, policy);
+    }
+
+    /**
+     * Borrows a connection (an idle one if any, else a new one). The connection must be closed to give it back to the pool.
+     *
+     * @return a valid connection.
+     * @throws SQLException
+     *             if no connection is available after {@link ConnectionPoolPolicy#getMaxWait()} or if a new connection can not be opened.
+     */
+    public Connection getConnection() throws SQLException {
+        final long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(policy.getMaxWait(), TimeUnit.MILLISECONDS)) {
+                throw new SQLException("No connection available after " + policy.getMaxWait() + " ms (" + active.get() + " connections in use)");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+        PooledConnection connection;
+        try {
+            connection = takeIdleConnection();
+            if (connection == null) {
+                connection = new PooledConnection(DriverManager.getConnection(url, user, password));
+                createdConnections.incrementAndGet();
+            }
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        active.incrementAndGet();
+        final long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        borrowCount.incrementAndGet();
+        borrowLatency.addAndGet(latency);
+        long max;
+        while (latency > (max = maxBorrowLatency.get()) && !maxBorrowLatency.compareAndSet(max, latency)) {
+        }
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[] { Connection.class }, new BorrowedConnectionHandler(connection));
+    }
+
+    /**
+     * Closes all idle connections (borrowed connections are closed when they are given back) and removes metrics of this pool from JMX.
+     */
+    public void close() {
+        synchronized (idle) {
+            for (final PooledConnection connection : idle) {
+                connection.closeQuietly();
+            }
+            idle.clear();
+        }
+        unregisterMBean();
+    }
+
+    /**
+     * Exposes metrics of this pool through JMX, under com.github.noraui.data.db:type=ConnectionPool,id={number of the pool in this JVM}.
+     */
+    public synchronized void registerMBean() {
+        if (objectName != null) {
+            return;
+        }
+        try {
+            final ObjectName name = new ObjectName(OBJECT_NAME_PREFIX + id);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            objectName = name;
+            logger.debug("Connection pool on {} registered in JMX as {}", url, name);
+        } catch (final JMException e) {
+            logger.warn("Connection pool metrics can not be registered in JMX", e);
+        }
+    }
+
+    /**
+     * @return JMX name of this pool, or null if it is not registered.
+     */
+    synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    private synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        final MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (mbs.isRegistered(objectName)) {
+                mbs.unregisterMBean(objectName);
+            }
+        } catch (final JMException e) {
+            logger.warn("Connection pool metrics can not be removed from JMX", e);
+        }
+        objectName = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getActiveConnections() {
+        return active.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getIdleConnections() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxConnections() {
+        return policy.getMaxSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getAverageBorrowLatency() {
+        final long count = borrowCount.get();
+        return count == 0 ? 0 : borrowLatency.get() / count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMaxBorrowLatency() {
+        return maxBorrowLatency.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCreatedConnections() {
+        return createdConnections.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getEvictedConnections() {
+        return evictedConnections.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConnectionPool [active=" + getActiveConnections() + ", idle=" + getIdleConnections() + ", borrowCount=" + getBorrowCount() + ", averageBorrowLatency="
+                + getAverageBorrowLatency() + "us, maxBorrowLatency=" + getMaxBorrowLatency() + "us, created=" + getCreatedConnections() + ", evicted=" + getEvictedConnections()
+                + ", statementCacheHits=" + getStatementCacheHits() + ", statementCacheMisses=" + getStatementCacheMisses() + "]";
+    }
+
+    /**
+     * @return most recently used idle connection which is still valid or null if none.
+     */
+    private PooledConnection takeIdleConnection() {
+        evictIdleConnections();
+        PooledConnection connection;
+        while ((connection = pollIdle()) != null) {
+            if (connection.isValid(policy.getValidationTimeout())) {
+                return connection;
+            }
+            logger.debug("Invalid connection evicted from pool");
+            connection.closeQuietly();
+            evictedConnections.incrementAndGet();
+        }
+        return null;
+    }
+
+    private PooledConnection pollIdle() {
+        synchronized (idle) {
+            return idle.pollFirst();
+        }
+    }
+
+    /**
+     * Gives back a borrowed connection.
+     *
+     * @param connection
+     *            connection to give back.
+     */
+    private void release(PooledConnection connection) {
+        active.decrementAndGet();
+        try {
+            if (connection.reset()) {
+                synchronized (idle) {
+                    idle.addFirst(connection);
+                }
+            } else {
+                connection.closeQuietly();
+            }
+        } finally {
+            permits.release();
+        }
+        evictIdleConnections();
+    }
+
+    private void evictIdleConnections() {
+        if (policy.getIdleTimeout() <= 0) {
+            return;
+        }
+        final long limit = System.currentTimeMillis() - policy.getIdleTimeout();
+        synchronized (idle) {
+            final Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext()) {
+                final PooledConnection connection = oldestFirst.next();
+                if (connection.getLastUsed() >= limit) {
+                    break;
+                }
+                logger.debug("Idle connection evicted from pool");
+                oldestFirst.remove();
+                connection.closeQuietly();
+                evictedConnections.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Physical connection held by the pool.
+     */
+    static class PooledConnection {
+
+        private final Connection connection;
+        private long lastUsed;
+
+        /**
+         * Prepared statements of this connection by query (and result set type), least recently used first.
+         */
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > STATEMENT_CACHE_SIZE) {
+                    // a borrowed statement is closed when it is given back
+                    if (!borrowedStatements.contains(eldest.getValue())) {
+                        closeQuietly(eldest.getValue());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        /**
+         * Cached statements currently used by a borrower.
+         */
+        private final Set<PreparedStatement> borrowedStatements = Collections.newSetFromMap(new IdentityHashMap<PreparedStatement, Boolean>());
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        Connection getConnection() {
+            return connection;
+        }
+
+        long getLastUsed() {
+            return lastUsed;
+        }
+
+        /**
+         * @param key
+         *            query (and result set type) of the statement.
+         * @return the open statement prepared for this key on this connection or null.
+         * @throws SQLException
+         *             if statement state can not be read.
+         */
+        synchronized PreparedStatement getStatement(String key) throws SQLException {
+            final PreparedStatement statement = statements.get(key);
+            if (statement != null && statement.isClosed()) {
+                statements.remove(key);
+                return null;
+            }
+            return statement;
+        }
+
+        synchronized void putStatement(String key, PreparedStatement statement) {
+            statements.put(key, statement);
+        }
+
+        /**
+         * @param statement
+         *            a cached statement.
+         * @return false if the statement is already used by another borrower.
+         */
+        synchronized boolean borrowStatement(PreparedStatement statement) {
+            return borrowedStatements.add(statement);
+        }
+
+        /**
+         * @param statement
+         *            a borrowed statement.
+         * @return false if the statement has been evicted from the cache meanwhile (it must then be closed).
+         */
+        synchronized boolean giveBackStatement(PreparedStatement statement) {
+            borrowedStatements.remove(statement);
+            return statements.containsValue(statement);
+        }
+
+        boolean isValid(int timeout) {
+            try {
+                return connection.isValid(timeout);
+            } catch (final SQLException e) {
+                logger.debug("Connection validation failed", e);
+                return false;
+            }
+        }
+
+        /**
+         * Makes connection ready for next borrower.
+         *
+         * @return false if connection can not be reused.
+         */
+        boolean reset() {
+            try {
+                if (connection.isClosed()) {
+                    return false;
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                synchronized (this) {
+                    borrowedStatements.clear();
+                }
+                lastUsed = System.currentTimeMillis();
+                return true;
+            } catch (final SQLException e) {
+                logger.debug("Connection can not be reset", e);
+                return false;
+            }
+        }
+
+        synchronized void closeQuietly() {
+            for (final PreparedStatement statement : statements.values()) {
+                closeQuietly(statement);
+            }
+            statements.clear();
+            borrowedStatements.clear();
+            try {
+                connection.close();
+            } catch (final SQLException e) {
+                logger.debug("SQLException when closing connection", e);
+            }
+        }
+
+        private static void closeQuietly(PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (final SQLException e) {
+                logger.debug("SQLException when closing statement", e);
+            }
+        }
+
+    }
+
+    /**
+     * Connection given to a borrower: close() gives the physical connection back to the pool, other methods are delegated until then.
+     */
+    private class BorrowedConnectionHandler implements InvocationHandler {
+
+        private final PooledConnection pooledConnection;
+        private boolean closed;
+
+        BorrowedConnectionHandler(PooledConnection pooledConnection) {
+            this.pooledConnection = pooledConnection;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pooledConnection);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pooledConnection.getConnection().isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pooledConnection.getConnection();
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection is closed");
+                    }
+                    if ("prepareStatement".equals(method.getName()) && (args.length == 1 || args.length == 3)) {
+                        return prepareCachedStatement(proxy, method, args);
+                    }
+                    return invokeDelegate(pooledConnection.getConnection(), method, args);
+            }
+        }
+
+        /**
+         * prepareStatement(sql) and prepareStatement(sql, resultSetType, resultSetConcurrency) reuse the statement already prepared on the physical connection if any. While this
+         * statement is used by a borrower, the same query is prepared again without being cached, so that its result sets are not closed by another execution.
+         */
+        private Object prepareCachedStatement(Object proxy, Method method, Object[] args) throws Throwable {
+            final String key = args.length == 1 ? (String) args[0] : args[1] + "," + args[2] + ":" + args[0];
+            final PreparedStatement cachedStatement = pooledConnection.getStatement(key);
+            if (cachedStatement != null && pooledConnection.borrowStatement(cachedStatement)) {
+                statementCacheHits.incrementAndGet();
+                return newStatementProxy(proxy, cachedStatement, true);
+            }
+            statementCacheMisses.incrementAndGet();
+            final PreparedStatement statement = (PreparedStatement) invokeDelegate(pooledConnection.getConnection(), method, args);
+            if (cachedStatement != null) {
+                return newStatementProxy(proxy, statement, false);
+            }
+            pooledConnection.putStatement(key, statement);
+            pooledConnection.borrowStatement(statement);
+            return newStatementProxy(proxy, statement, true);
+        }
+
+        private Object newStatementProxy(Object proxy, PreparedStatement statement, boolean cached) {
+            return Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                    new CachedStatementHandler((Connection) proxy, cached ? pooledConnection : null, statement));
+        }
+
+    }
+
+    /**
+     * Statement given to a borrower: close() keeps the physical statement open in the cache of its connection (parameters, batch, fetch size, max rows and query timeout are
+     * reset), other methods are delegated until then. A statement which is not cached is closed by close().
+     */
+    private static class CachedStatementHandler implements InvocationHandler {
+
+        private final Connection connection;
+        private final PooledConnection pooledConnection;
+        private final PreparedStatement statement;
+        private boolean closed;
+        private boolean settingsChanged;
+
+        /**
+         * @param connection
+         *            borrowed connection of the statement.
+         * @param pooledConnection
+         *            physical connection caching the statement, or null if the statement is not cached.
+         * @param statement
+         *            physical statement.
+         */
+        CachedStatementHandler(Connection connection, PooledConnection pooledConnection, PreparedStatement statement) {
+            this.connection = connection;
+            this.pooledConnection = pooledConnection;
+            this.statement = statement;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        if (pooledConnection == null) {
+                            statement.close();
+                        } else {
+                            giveBack();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "setFetchSize":
+                case "setMaxRows":
+                case "setQueryTimeout":
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    settingsChanged = true;
+                    return invokeDelegate(statement, method, args);
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + statement;
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    return invokeDelegate(statement, method, args);
+            }
+        }
+
+        private void giveBack() throws SQLException {
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                if (settingsChanged) {
+                    // JDBC defaults: no fetch size hint, no row limit, no timeout
+                    statement.setFetchSize(0);
+                    statement.setMaxRows(0);
+                    statement.setQueryTimeout(0);
+                }
+            } finally {
+                if (!pooledConnection.giveBackStatement(statement)) {
+                    statement.close();
+                }
+            }
+        }
+
+    }
+
+    private static Object invokeDelegate(Object delegate, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(delegate, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
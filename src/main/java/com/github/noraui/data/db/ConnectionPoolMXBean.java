@@ -0,0 +1,64 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.db;
+
+/**
+ * Metrics of a {@link ConnectionPool}, exposed through JMX (com.github.noraui.data.db:type=ConnectionPool,id={number of the pool in this JVM}) until the pool is closed.
+ */
+public interface ConnectionPoolMXBean {
+
+    /**
+     * @return number of connections currently borrowed.
+     */
+    int getActiveConnections();
+
+    /**
+     * @return number of open connections waiting in the pool.
+     */
+    int getIdleConnections();
+
+    /**
+     * @return max number of open connections.
+     */
+    int getMaxConnections();
+
+    /**
+     * @return number of connections borrowed since pool creation.
+     */
+    long getBorrowCount();
+
+    /**
+     * @return average time to borrow a connection (waiting, validation and creation included) in microseconds.
+     */
+    long getAverageBorrowLatency();
+
+    /**
+     * @return max time to borrow a connection in microseconds.
+     */
+    long getMaxBorrowLatency();
+
+    /**
+     * @return number of physical connections opened since pool creation.
+     */
+    long getCreatedConnections();
+
+    /**
+     * @return number of physical connections closed because they were idle for too long or invalid.
+     */
+    long getEvictedConnections();
+
+    /**
+     * @return number of prepared statements reused from the cache of their connection.
+     */
+    long getStatementCacheHits();
+
+    /**
+     * @return number of statements prepared by the database because they were not in the cache of their connection.
+     */
+    long getStatementCacheMisses();
+
+}
@@ -0,0 +1,85 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.db;
+
+/**
+ * Settings of the {@link ConnectionPool} of {@link DBDataProvider} (dataProvider.db.pool.* properties).
+ */
+public final class ConnectionPoolPolicy {
+
+    /**
+     * Default policy: 4 connections, 30 seconds max wait, idle connections closed after 10 minutes, 5 seconds validation timeout.
+     */
+    public static final ConnectionPoolPolicy DEFAULT = new ConnectionPoolPolicy(4, 30000, 600000, 5);
+
+    private final int maxSize;
+    private final long maxWait;
+    private final long idleTimeout;
+    private final int validationTimeout;
+
+    /**
+     * @param maxSize
+     *            max number of open connections.
+     * @param maxWait
+     *            max time to wait for a free connection in milliseconds.
+     * @param idleTimeout
+     *            idle connections older than this delay in milliseconds are closed (0 or less to keep them open).
+     * @param validationTimeout
+     *            timeout in seconds of the validation of an idle connection before it is borrowed.
+     */
+    public ConnectionPoolPolicy(int maxSize, long maxWait, long idleTimeout, int validationTimeout) {
+        this.maxSize = maxSize;
+        this.maxWait = maxWait;
+        this.idleTimeout = idleTimeout;
+        this.validationTimeout = validationTimeout;
+    }
+
+    /**
+     * @param maxSize
+     *            value of dataProvider.db.pool.size property (may be null or empty).
+     * @param maxWait
+     *            value of dataProvider.db.pool.maxWait property (may be null or empty).
+     * @param idleTimeout
+     *            value of dataProvider.db.pool.idleTimeout property (may be null or empty).
+     * @param validationTimeout
+     *            value of dataProvider.db.pool.validationTimeout property (may be null or empty).
+     * @return the policy, with {@link #DEFAULT} values for each property not set.
+     */
+    public static ConnectionPoolPolicy valueOf(String maxSize, String maxWait, String idleTimeout, String validationTimeout) {
+        return new ConnectionPoolPolicy(isSet(maxSize) ? Integer.parseInt(maxSize.trim()) : DEFAULT.maxSize, isSet(maxWait) ? Long.parseLong(maxWait.trim()) : DEFAULT.maxWait,
+                isSet(idleTimeout) ? Long.parseLong(idleTimeout.trim()) : DEFAULT.idleTimeout, isSet(validationTimeout) ? Integer.parseInt(validationTimeout.trim()) : DEFAULT.validationTimeout);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public int getValidationTimeout() {
+        return validationTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "ConnectionPoolPolicy [maxSize=" + maxSize + ", maxWait=" + maxWait + ", idleTimeout=" + idleTimeout + ", validationTimeout=" + validationTimeout + "]";
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !"".equals(value.trim());
+    }
+
+}
@@ -0,0 +1,215 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.db;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.RowStore;
+
+/**
+ * {@link RowStore} reading the result of a query through one forward-only, read-only cursor kept open: sequential reads fetch rows as they arrive ({@link #getFetchSize()} rows per
+ * round trip), a backward read executes the query again. Size comes from a COUNT(*) query wrapping the query.
+ */
+final class CursorRowStore implements RowStore, Closeable {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(CursorRowStore.class);
+
+    private final ConnectionPool connectionPool;
+    private final String sql;
+    private final int fetchSize;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet resultSet;
+    private String[] headers;
+
+    /**
+     * Index of current row of cursor (0 before first row).
+     */
+    private int position;
+    private String[] current;
+    private boolean exhausted;
+    private int size = -1;
+
+    /**
+     * Opens the cursor.
+     *
+     * @param connectionPool
+     *            pool of connections (the cursor keeps one connection until {@link #close()}).
+     * @param sql
+     *            the query.
+     * @param fetchSize
+     *            number of rows fetched per round trip (0 for driver default).
+     * @throws SQLException
+     *             if query can not be executed.
+     */
+    CursorRowStore(ConnectionPool connectionPool, String sql, int fetchSize) throws SQLException {
+        this.connectionPool = connectionPool;
+        this.sql = sql;
+        this.fetchSize = fetchSize;
+        open();
+    }
+
+    /**
+     * @return labels of columns.
+     */
+    String[] getHeaders() {
+        return headers.clone();
+    }
+
+    int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Headers line included, counted once with a COUNT(*) query.
+     */
+    @Override
+    public synchronized int size() {
+        if (size < 0) {
+            final String countSql = "SELECT COUNT(*) FROM (" + stripTrailingSemicolon(sql) + ") noraui_count";
+            try (Connection countConnection = connectionPool.getConnection();
+                    PreparedStatement countStatement = countConnection.prepareStatement(countSql);
+                    ResultSet rs = countStatement.executeQuery()) {
+                size = rs.next() ? rs.getInt(1) + 1 : 1;
+            } catch (final SQLException e) {
+                logger.error("error CursorRowStore.size()", e);
+                return 0;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized String[] getRow(int line) {
+        if (line == 0) {
+            return getHeaders();
+        }
+        if (line < 0) {
+            return null;
+        }
+        try {
+            if (exhausted && line > position) {
+                return null;
+            }
+            if (line < position || exhausted) {
+                logger.debug("Backward read of line {} (cursor is on line {}), query is executed again", line, position);
+                closeCursor();
+                open();
+            }
+            while (position < line) {
+                if (!resultSet.next()) {
+                    exhausted = true;
+                    current = null;
+                    closeCursor();
+                    return null;
+                }
+                position++;
+                if (position == line) {
+                    current = readCurrentRow();
+                }
+            }
+            return current == null ? null : current.clone();
+        } catch (final SQLException e) {
+            logger.error("error CursorRowStore.getRow({})", line, e);
+            return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValue(int line, int column) {
+        final String[] row = getRow(line);
+        if (row == null || column < 0 || column >= row.length) {
+            return null;
+        }
+        return row[column];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void close() {
+        closeCursor();
+    }
+
+    private void open() throws SQLException {
+        connection = connectionPool.getConnection();
+        try {
+            // some drivers (PostgreSQL) only stream with a cursor inside a transaction, the pool rolls back when connection is given back
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            resultSet = statement.executeQuery();
+            final int columnCount = resultSet.getMetaData().getColumnCount();
+            headers = new String[columnCount];
+            for (int i = 1; i <= columnCount; i++) {
+                headers[i - 1] = resultSet.getMetaData().getColumnLabel(i);
+            }
+        } catch (final SQLException e) {
+            closeCursor();
+            throw e;
+        }
+        position = 0;
+        current = null;
+        exhausted = false;
+    }
+
+    private String[] readCurrentRow() throws SQLException {
+        final String[] row = new String[headers.length];
+        for (int i = 1; i <= row.length; i++) {
+            row[i - 1] = resultSet.getString(i);
+        }
+        return row;
+    }
+
+    private void closeCursor() {
+        closeQuietly(resultSet);
+        closeQuietly(statement);
+        closeQuietly(connection);
+        connection = null;
+        statement = null;
+        resultSet = null;
+        logger.debug("Cursor closed at line {}", position);
+    }
+
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource != null) {
+            try {
+                resource.close();
+            } catch (final Exception e) {
+                logger.debug("Exception when closing cursor", e);
+            }
+        }
+    }
+
+    private static String stripTrailingSemicolon(String query) {
+        String result = query.trim();
+        while (result.endsWith(";")) {
+            result = result.substring(0, result.length() - 1).trim();
+        }
+        return result;
+    }
+
+}
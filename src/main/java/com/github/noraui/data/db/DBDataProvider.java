@@ -6,30 +6,37 @@
  */
 package com.github.noraui.data.db;
 
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.noraui.data.CommonDataProvider;
 import com.github.noraui.data.DataInputProvider;
+import com.github.noraui.data.FileRowStore;
+import com.github.noraui.data.MemoryRowStore;
+import com.github.noraui.data.RowStore;
 import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.exception.data.DatabaseException;
 import com.github.noraui.utils.Constants;
 import com.github.noraui.utils.Messages;
 
-public class DBDataProvider extends CommonDataProvider implements DataInputProvider {
+import okio.ByteString;
+
+public class DBDataProvider extends CommonDataProvider implements DataInputProvider, Closeable {
 
     /**
      * Specific logger
@@ -38,28 +45,89 @@ public class DBDataProvider extends CommonDataProvider implements DataInputProvi
 
     private static final String DB_DATA_PROVIDER_USED = "DB_DATA_PROVIDER_USED";
     private static final String DATABASE_ERROR_FORBIDDEN_WORDS_IN_QUERY = "DATABASE_ERROR_FORBIDDEN_WORDS_IN_QUERY";
-    private String connectionUrl;
-    private final String user;
-    private final String password;
+    private static final RowStore EMPTY_ROWS = new MemoryRowStore(new ArrayList<String[]>());
+
+    /**
+     * Default number of rows kept in memory before spilling query result in a temporary file.
+     */
+    public static final int DEFAULT_SPILL_THRESHOLD = 10000;
+
+    /**
+     * Default number of rows fetched per round trip with the database (0 lets the driver choose).
+     */
+    public static final int DEFAULT_FETCH_SIZE = 0;
+    private final ConnectionPool connectionPool;
+
+    /**
+     * Result of the query of current scenario (headers line first).
+     */
+    private RowStore rows = EMPTY_ROWS;
+    private int spillThreshold = DEFAULT_SPILL_THRESHOLD;
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+    private boolean streaming;
+
+    /**
+     * Compiled queries by .sql file.
+     */
+    private final Map<String, SqlPlan> plans = new HashMap<>();
 
     private enum types {
         MYSQL, ORACLE, POSTGRE
     }
 
     public DBDataProvider(String type, String user, String password, String hostname, String port, String database) throws TechnicalException {
+        this(type, user, password, hostname, port, database, ConnectionPoolPolicy.DEFAULT);
+    }
+
+    public DBDataProvider(String type, String user, String password, String hostname, String port, String database, ConnectionPoolPolicy poolPolicy) throws TechnicalException {
         super();
-        this.user = user;
-        this.password = password;
+        this.connectionPool = createConnectionPool(type, user, password, hostname, port, database, poolPolicy);
+        logger.info(Messages.getMessage(DB_DATA_PROVIDER_USED), type);
+    }
+
+    /**
+     * @param connectionPool
+     *            pool of connections shared with another provider of the same database (one provider per scenario for example).
+     */
+    public DBDataProvider(ConnectionPool connectionPool) {
+        super();
+        this.connectionPool = connectionPool;
+    }
+
+    /**
+     * Loads the JDBC driver of the database type and creates a pool of connections on the database (exposed through JMX).
+     *
+     * @param type
+     *            MYSQL, ORACLE or POSTGRE.
+     * @param user
+     *            database user.
+     * @param password
+     *            password of database user.
+     * @param hostname
+     *            database host.
+     * @param port
+     *            database port.
+     * @param database
+     *            database name (SID for Oracle).
+     * @param poolPolicy
+     *            size, timeouts and validation settings of the pool.
+     * @return a new pool of connections.
+     * @throws TechnicalException
+     *             if database type is unknown or if its driver can not be loaded.
+     */
+    static ConnectionPool createConnectionPool(String type, String user, String password, String hostname, String port, String database, ConnectionPoolPolicy poolPolicy)
+            throws TechnicalException {
+        String connectionUrl;
         try {
             if (types.MYSQL.toString().equals(type)) {
                 Class.forName("com.mysql.cj.jdbc.Driver");
-                this.connectionUrl = "jdbc:mysql://" + hostname + ":" + port + "/" + database + "?useSSL=false&serverTimezone=UTC";
+                connectionUrl = "jdbc:mysql://" + hostname + ":" + port + "/" + database + "?useSSL=false&serverTimezone=UTC&useCursorFetch=true&rewriteBatchedStatements=true";
             } else if (types.ORACLE.toString().equals(type)) {
                 Class.forName("oracle.jdbc.OracleDriver");
-                this.connectionUrl = "jdbc:oracle:thin:@" + hostname + ":" + port + ":" + database;
+                connectionUrl = "jdbc:oracle:thin:@" + hostname + ":" + port + ":" + database;
             } else if (types.POSTGRE.toString().equals(type)) {
                 Class.forName("org.postgresql.Driver");
-                this.connectionUrl = "jdbc:postgresql://" + hostname + ":" + port + "/" + database;
+                connectionUrl = "jdbc:postgresql://" + hostname + ":" + port + "/" + database;
             } else {
                 throw new DatabaseException(String.format(Messages.getMessage(DatabaseException.TECHNICAL_ERROR_MESSAGE_UNKNOWN_DATABASE_TYPE), type));
             }
@@ -67,15 +135,52 @@ public class DBDataProvider extends CommonDataProvider implements DataInputProvi
             logger.error(Messages.getMessage(DatabaseException.TECHNICAL_ERROR_MESSAGE_DATABASE_EXCEPTION), e);
             throw new TechnicalException(Messages.getMessage(DatabaseException.TECHNICAL_ERROR_MESSAGE_DATABASE_EXCEPTION), e);
         }
-        logger.info(Messages.getMessage(DB_DATA_PROVIDER_USED), type);
+        final ConnectionPool connectionPool = new ConnectionPool(connectionUrl, user, password, poolPolicy);
+        connectionPool.registerMBean();
+        return connectionPool;
     }
 
+    /**
+     * @return a connection borrowed from the {@link ConnectionPool} (close it to give it back).
+     * @throws SQLException
+     *             if no connection is available.
+     */
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(this.connectionUrl, this.user, this.password);
+        return connectionPool.getConnection();
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * @param spillThreshold
+     *            number of rows kept in memory; above it, the result of the query is spilled in a temporary file (0 or less to keep all rows in memory).
+     */
+    public void setSpillThreshold(int spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+    /**
+     * @param fetchSize
+     *            number of rows fetched per round trip with the database (0 lets the driver choose).
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @param streaming
+     *            true to read rows of the query through a forward-only cursor kept open instead of materializing them: memory does not depend on the size of the result, number of lines
+     *            comes from a COUNT(*) query and reading a line before the current one executes the query again.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
     }
 
     /**
      * {@inheritDoc}
+     * The query of the scenario is executed once and its result is kept (in memory or in a temporary file) until next scenario.
      */
     @Override
     public void prepare(String scenario) throws TechnicalException {
@@ -89,127 +194,269 @@ public class DBDataProvider extends CommonDataProvider implements DataInputProvi
 
     /**
      * {@inheritDoc}
-     *
-     * @throws TechnicalException
-     *             is thrown if you have a technical error (IOException on .sql file) in NoraUi.
      */
     @Override
     public int getNbLines() throws TechnicalException {
-        String sqlRequest = "";
-        try {
-            final Path file = Paths.get(dataInPath + scenarioName + ".sql");
-            sqlRequest = new String(Files.readAllBytes(file), Charset.forName(Constants.DEFAULT_ENDODING));
-            sqlSanitized4readOnly(sqlRequest);
-        } catch (final IOException e) {
-            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
-        }
-        try (Connection connection = getConnection();
-                Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-                ResultSet rs = statement.executeQuery(sqlRequest);) {
-            return rs.last() ? rs.getRow() + 1 : 0;
-        } catch (final SQLException e) {
-            logger.error("error DBDataProvider.getNbLines()", e);
-            return 0;
-        }
+        return rows.size() > 1 ? rows.size() : 0;
     }
 
     /**
      * {@inheritDoc}
-     *
-     * @throws TechnicalException
-     *             is thrown if you have a technical error (IOException on .sql file) in NoraUi.
      */
     @Override
     public String readValue(String column, int line) throws TechnicalException {
         logger.debug("readValue: column:[{}] and line:[{}] ", column, line);
-        String sqlRequest;
-        try {
-            final Path file = Paths.get(dataInPath + scenarioName + ".sql");
-            sqlRequest = new String(Files.readAllBytes(file), Charset.forName(Constants.DEFAULT_ENDODING));
-            sqlSanitized4readOnly(sqlRequest);
-        } catch (final IOException e) {
-            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+        if (line < 1) {
+            return column;
         }
-        try (Connection connection = getConnection(); PreparedStatement statement = connection.prepareStatement(sqlRequest); ResultSet rs = statement.executeQuery();) {
-            if (line < 1) {
-                return column;
-            }
-            while (rs.next() && rs.getRow() < line) {
-            }
-            logger.info("column: {}", column);
-            return rs.getString(column);
-        } catch (final SQLException e) {
-            logger.error("error DBDataProvider.readValue({}, {})", column, line, e);
+        final String[] row = rows.getRow(line);
+        final int colIndex = getColumnLabelIndex(column);
+        if (row == null || colIndex < 0) {
+            logger.error("error DBDataProvider.readValue({}, {})", column, line);
             return "";
         }
+        return row[colIndex];
     }
 
     /**
      * {@inheritDoc}
-     *
-     * @throws TechnicalException
-     *             is thrown if you have a technical error (IOException on .sql file) in NoraUi.
      */
     @Override
     public String[] readLine(int line, boolean readResult) throws TechnicalException {
-        String sqlRequest;
-        try {
-            final Path file = Paths.get(dataInPath + scenarioName + ".sql");
-            sqlRequest = new String(Files.readAllBytes(file), Charset.forName(Constants.DEFAULT_ENDODING));
-            sqlSanitized4readOnly(sqlRequest);
-        } catch (final IOException e) {
-            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
-        }
-        try (Connection connection = getConnection(); PreparedStatement statement = connection.prepareStatement(sqlRequest); ResultSet rs = statement.executeQuery();) {
-            final String[] ret = readResult ? new String[columns.size()] : new String[columns.size() - 1];
-            if (line == 0) {
-                for (int i = 0; i < ret.length; i++) {
-                    ret[i] = columns.get(i);
-                }
-            } else {
-                while (rs.next() && rs.getRow() < line) {
-                }
-                for (int i = 1; i <= ret.length; i++) {
-                    ret[i - 1] = rs.getString(i);
-                }
-            }
-            return ret;
-        } catch (final SQLException e) {
-            logger.debug("In DBDataProvider, this catch aims for testing the end of provided data. DBDataProvider.readLine({}, {})", line, readResult, e);
+        final String[] ret = readResult ? new String[columns.size()] : new String[columns.size() - 1];
+        final String[] row = rows.getRow(line);
+        if (row == null || row.length < ret.length) {
+            logger.debug("In DBDataProvider, end of provided data. DBDataProvider.readLine({}, {})", line, readResult);
             return null;
         }
+        System.arraycopy(row, 0, ret, 0, ret.length);
+        return ret;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The fingerprint is the hash of the query and of its result.
+     */
+    @Override
+    public String getDataFingerprint() throws TechnicalException {
+        return ByteString.encodeUtf8(getPlan().sql + '\n' + super.getDataFingerprint()).sha1().hex();
     }
 
+    /**
+     * Executes the query of the scenario once: columns are read from its metadata and all rows are materialized (or streamed, see {@link #setStreaming(boolean)}).
+     *
+     * @throws DatabaseException
+     *             if query returns no column.
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (IOException on .sql file, SQLException) in NoraUi.
+     */
     private void initColumns() throws DatabaseException, TechnicalException {
         columns = new ArrayList<>();
-        String sqlRequest;
-        try {
-            final Path file = Paths.get(dataInPath + scenarioName + ".sql");
-            sqlRequest = new String(Files.readAllBytes(file), Charset.forName(Constants.DEFAULT_ENDODING));
-            sqlSanitized4readOnly(sqlRequest);
-        } catch (final IOException e) {
-            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+        final SqlPlan plan = getPlan();
+        final String sqlRequest = plan.sql;
+        closeRows();
+        if (streaming) {
+            openCursor(sqlRequest);
+            return;
         }
-        try (Connection connection = getConnection(); PreparedStatement statement = connection.prepareStatement(sqlRequest); ResultSet rs = statement.executeQuery();) {
-            if (rs.getMetaData().getColumnCount() < 1) {
+        try (Connection connection = getConnection(); PreparedStatement statement = prepareStatement(connection, sqlRequest); ResultSet rs = statement.executeQuery();) {
+            final int columnCount = rs.getMetaData().getColumnCount();
+            if (columnCount < 1) {
                 throw new DatabaseException("Input data is empty. No column have been found.");
             }
-            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
-                columns.add(rs.getMetaData().getColumnLabel(i));
+            if (plan.columns == null || plan.columns.length != columnCount) {
+                plan.columns = new String[columnCount];
+                for (int i = 1; i <= columnCount; i++) {
+                    plan.columns[i - 1] = rs.getMetaData().getColumnLabel(i);
+                }
             }
+            columns.addAll(Arrays.asList(plan.columns));
+            rows = materialize(rs, columnCount);
+        } catch (final SQLException | IOException e) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+        }
+        indexColumns();
+        resultColumnName = Messages.getMessage(ResultColumnNames.RESULT_COLUMN_NAME);
+        logger.debug("{} rows materialized for scenario {}", rows.size() - 1, scenarioName);
+    }
+
+    /**
+     * Gets the compiled query of current scenario: its .sql file is read and sanitized again only if it has been modified (last modified date or size) since last compilation.
+     *
+     * @return the compiled query.
+     * @throws TechnicalException
+     *             if .sql file can not be read or if query is not read-only.
+     */
+    private SqlPlan getPlan() throws TechnicalException {
+        final File file = new File(dataInPath + scenarioName + ".sql");
+        final long lastModified = file.lastModified();
+        final long length = file.length();
+        SqlPlan plan = plans.get(file.getPath());
+        if (plan == null || plan.lastModified != lastModified || plan.length != length) {
+            final String sqlRequest;
+            try {
+                sqlRequest = new String(Files.readAllBytes(file.toPath()), Charset.forName(Constants.DEFAULT_ENDODING));
+            } catch (final IOException e) {
+                throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+            }
+            sqlSanitized4readOnly(sqlRequest);
+            plan = new SqlPlan(sqlRequest, lastModified, length);
+            plans.put(file.getPath(), plan);
+            logger.debug("Query of scenario {} compiled from {}", scenarioName, file);
+        }
+        return plan;
+    }
+
+    /**
+     * Opens a {@link CursorRowStore} on the query of the scenario, rows are read when they are asked.
+     *
+     * @param sqlRequest
+     *            the query.
+     * @throws DatabaseException
+     *             if query returns no column.
+     * @throws TechnicalException
+     *             if query can not be executed.
+     */
+    private void openCursor(String sqlRequest) throws DatabaseException, TechnicalException {
+        final CursorRowStore cursor;
+        try {
+            cursor = new CursorRowStore(connectionPool, sqlRequest, fetchSize);
         } catch (final SQLException e) {
             throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
         }
+        final String[] headers = cursor.getHeaders();
+        if (headers.length < 1) {
+            cursor.close();
+            throw new DatabaseException("Input data is empty. No column have been found.");
+        }
+        for (final String header : headers) {
+            columns.add(header);
+        }
+        rows = cursor;
+        indexColumns();
         resultColumnName = Messages.getMessage(ResultColumnNames.RESULT_COLUMN_NAME);
+        logger.debug("Rows of scenario {} are streamed (fetch size {})", scenarioName, fetchSize);
+    }
+
+    private PreparedStatement prepareStatement(Connection connection, String sqlRequest) throws SQLException {
+        final PreparedStatement statement = connection.prepareStatement(sqlRequest, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        return statement;
+    }
+
+    /**
+     * Reads all rows of result set (headers line first). Rows are kept in memory up to spill threshold, then all rows are moved in a {@link FileRowStore}.
+     *
+     * @param rs
+     *            result set of the query.
+     * @param columnCount
+     *            number of columns of result set.
+     * @return all rows.
+     * @throws SQLException
+     *             if result set can not be read.
+     * @throws IOException
+     *             if temporary file can not be written.
+     */
+    private RowStore materialize(ResultSet rs, int columnCount) throws SQLException, IOException {
+        final List<String[]> buffer = new ArrayList<>();
+        buffer.add(columns.toArray(new String[columnCount]));
+        FileRowStore spill = null;
+        try {
+            while (rs.next()) {
+                final String[] row = new String[columnCount];
+                for (int i = 1; i <= columnCount; i++) {
+                    row[i - 1] = rs.getString(i);
+                }
+                if (spill != null) {
+                    spill.add(row);
+                } else if (spillThreshold > 0 && buffer.size() > spillThreshold) {
+                    logger.debug("More than {} rows, result is spilled in a temporary file", spillThreshold);
+                    spill = new FileRowStore();
+                    for (final String[] buffered : buffer) {
+                        spill.add(buffered);
+                    }
+                    buffer.clear();
+                    spill.add(row);
+                } else {
+                    buffer.add(row);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            if (spill != null) {
+                spill.close();
+            }
+            throw e;
+        }
+        return spill != null ? spill : new MemoryRowStore(buffer);
+    }
+
+    /**
+     * Releases rows of current scenario: connection of their cursor or their temporary file. The pool of connections is not closed (it may be shared with other providers).
+     */
+    @Override
+    public void close() {
+        closeRows();
+    }
+
+    /**
+     * Deletes rows of previous scenario (and their temporary file if any).
+     */
+    private void closeRows() {
+        if (rows instanceof Closeable) {
+            try {
+                ((Closeable) rows).close();
+            } catch (final IOException e) {
+                logger.debug("IOException when closing rows of previous scenario", e);
+            }
+        }
+        rows = EMPTY_ROWS;
+    }
+
+    /**
+     * @param column
+     *            label of a column (case insensitive, as {@link ResultSet#getString(String)}).
+     * @return index of column or -1.
+     */
+    private int getColumnLabelIndex(String column) {
+        final int colIndex = getColumnIndex(column);
+        if (colIndex >= 0) {
+            return colIndex;
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).equalsIgnoreCase(column)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     protected static void sqlSanitized4readOnly(String sqlInput) throws TechnicalException {
         final String[] forbiddenWords = { "DROP", "DELETE", "TRUNCATE", "UPDATE" };
+        final String upperSql = sqlInput.toUpperCase();
         for (final String forbiddenWord : forbiddenWords) {
-            if (sqlInput.toUpperCase().contains(forbiddenWord)) {
+            if (upperSql.contains(forbiddenWord)) {
                 throw new TechnicalException(Messages.format(Messages.getMessage(DATABASE_ERROR_FORBIDDEN_WORDS_IN_QUERY), sqlInput));
             }
         }
     }
 
+    /**
+     * Query of a scenario read and sanitized once, with the labels of its columns once it has been executed. Statements of the query are prepared once per pooled connection (see
+     * {@link ConnectionPool}).
+     */
+    private static final class SqlPlan {
+
+        private final String sql;
+        private final long lastModified;
+        private final long length;
+        private String[] columns;
+
+        SqlPlan(String sql, long lastModified, long length) {
+            this.sql = sql;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+    }
+
 }
@@ -0,0 +1,230 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.BufferedDataOutputProvider;
+import com.github.noraui.data.CommonDataProvider;
+import com.github.noraui.data.WriteBehindPolicy;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.utils.Messages;
+
+/**
+ * This DataOutputProvider inserts results in a table of the database (one row per written value):
+ *
+ * <pre>
+ * CREATE TABLE NORAUI_RESULTS (SCENARIO VARCHAR(255), LINE INTEGER, RESULT_COLUMN VARCHAR(255), RESULT_VALUE VARCHAR(4000), WRITTEN_AT TIMESTAMP)
+ * </pre>
+ *
+ * Results are kept in memory and inserted with one JDBC batch per transaction when the {@link WriteBehindPolicy} is due, at the end of each feature and at JVM shutdown. The
+ * table is checked when the provider is created. After a failed insert, results are kept and the next insert is only tried after a delay (doubled at each failure); the oldest
+ * results are dropped above {@link #MAX_PENDING_RESULTS}.
+ */
+public class OutputDBDataProvider extends CommonDataProvider implements BufferedDataOutputProvider {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(OutputDBDataProvider.class);
+
+    private static final String DB_OUTPUT_DATA_PROVIDER_USED = "DB_OUTPUT_DATA_PROVIDER_USED";
+    private static final String DATABASE_ERROR_WRONG_RESULTS_TABLE_NAME = "DATABASE_ERROR_WRONG_RESULTS_TABLE_NAME";
+    private static final String DATABASE_ERROR_RESULTS_TABLE_NOT_FOUND = "DATABASE_ERROR_RESULTS_TABLE_NOT_FOUND";
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+
+    /**
+     * Default name of results table.
+     */
+    public static final String DEFAULT_RESULTS_TABLE = "NORAUI_RESULTS";
+
+    /**
+     * Max number of results kept in memory while they can not be inserted.
+     */
+    static final int MAX_PENDING_RESULTS = 10000;
+
+    /**
+     * Delay before retrying an insert after a failure in milliseconds (doubled at each failure up to {@link #MAX_RETRY_DELAY}).
+     */
+    static final long RETRY_DELAY = 1000;
+
+    private static final long MAX_RETRY_DELAY = 60000;
+
+    private final ConnectionPool connectionPool;
+    private final String insertSql;
+    private final List<Object[]> pendingResults = new ArrayList<>();
+    private WriteBehindPolicy writeBehindPolicy = WriteBehindPolicy.WRITE_THROUGH;
+    private long lastFlushTime = System.currentTimeMillis();
+    private long retryDelay;
+    private long nextRetryTime;
+    private int droppedResults;
+
+    /**
+     * Writes results through the pool of connections of a {@link DBDataProvider} (same database as input data).
+     *
+     * @param connectionPool
+     *            pool of connections of input provider.
+     * @param resultsTable
+     *            name of results table (null or empty for {@link #DEFAULT_RESULTS_TABLE}).
+     * @throws TechnicalException
+     *             if name of results table is not a valid table name or if the table can not be read.
+     */
+    public OutputDBDataProvider(ConnectionPool connectionPool, String resultsTable) throws TechnicalException {
+        super();
+        this.connectionPool = connectionPool;
+        final String table = resultsTable == null || "".equals(resultsTable.trim()) ? DEFAULT_RESULTS_TABLE : resultsTable.trim();
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new TechnicalException(Messages.format(Messages.getMessage(DATABASE_ERROR_WRONG_RESULTS_TABLE_NAME), table));
+        }
+        checkTable(table);
+        this.insertSql = "INSERT INTO " + table + " (SCENARIO, LINE, RESULT_COLUMN, RESULT_VALUE, WRITTEN_AT) VALUES (?, ?, ?, ?, ?)";
+        this.resultColumnName = Messages.getMessage(ResultColumnNames.RESULT_COLUMN_NAME);
+        logger.info(Messages.getMessage(DB_OUTPUT_DATA_PROVIDER_USED), table);
+    }
+
+    /**
+     * Writes results in a database of its own (input data comes from another provider).
+     *
+     * @param type
+     *            MYSQL, ORACLE or POSTGRE.
+     * @param user
+     *            database user.
+     * @param password
+     *            password of database user.
+     * @param hostname
+     *            database host.
+     * @param port
+     *            database port.
+     * @param database
+     *            database name.
+     * @param poolPolicy
+     *            size, timeouts and validation settings of the pool.
+     * @param resultsTable
+     *            name of results table (null or empty for {@link #DEFAULT_RESULTS_TABLE}).
+     * @throws TechnicalException
+     *             if database type is unknown, if name of results table is not a valid table name or if the table can not be read.
+     */
+    public OutputDBDataProvider(String type, String user, String password, String hostname, String port, String database, ConnectionPoolPolicy poolPolicy, String resultsTable)
+            throws TechnicalException {
+        this(DBDataProvider.createConnectionPool(type, user, password, hostname, port, database, poolPolicy), resultsTable);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void prepare(String scenario) throws TechnicalException {
+        scenarioName = scenario;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void setWriteBehindPolicy(WriteBehindPolicy policy) {
+        writeBehindPolicy = policy;
+        logger.debug("DB output flush policy is {}", policy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * All pending results are inserted in one transaction, they are kept for next flush if the transaction fails.
+     */
+    @Override
+    public synchronized void flush() throws TechnicalException {
+        if (pendingResults.isEmpty()) {
+            return;
+        }
+        try (Connection connection = connectionPool.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+                for (final Object[] result : pendingResults) {
+                    statement.setString(1, (String) result[0]);
+                    statement.setInt(2, (Integer) result[1]);
+                    statement.setString(3, (String) result[2]);
+                    statement.setString(4, (String) result[3]);
+                    statement.setTimestamp(5, (Timestamp) result[4]);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (final SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+            logger.debug("{} results inserted", pendingResults.size());
+            pendingResults.clear();
+            lastFlushTime = System.currentTimeMillis();
+            retryDelay = 0;
+            nextRetryTime = 0;
+        } catch (final SQLException e) {
+            retryDelay = retryDelay == 0 ? RETRY_DELAY : Math.min(retryDelay * 2, MAX_RETRY_DELAY);
+            nextRetryTime = System.currentTimeMillis() + retryDelay;
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return number of results not inserted yet.
+     */
+    public synchronized int getPendingResults() {
+        return pendingResults.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected synchronized void writeValue(String column, int line, String value) {
+        if (pendingResults.size() >= MAX_PENDING_RESULTS) {
+            final Object[] dropped = pendingResults.remove(0);
+            if (droppedResults++ == 0) {
+                logger.error("{} results can not be inserted, oldest ones are dropped (first one: scenario {}, line {}, column {})", MAX_PENDING_RESULTS, dropped[0], dropped[1],
+                        dropped[2]);
+            }
+        }
+        pendingResults.add(new Object[] { scenarioName, line, column, value, new Timestamp(System.currentTimeMillis()) });
+        if (System.currentTimeMillis() >= nextRetryTime && writeBehindPolicy.isFlushDue(pendingResults.size(), lastFlushTime)) {
+            try {
+                flush();
+                if (droppedResults > 0) {
+                    logger.error("{} results have been dropped while they could not be inserted", droppedResults);
+                    droppedResults = 0;
+                }
+            } catch (final TechnicalException e) {
+                logger.error("error OutputDBDataProvider.writeValue({}, {}, {}), {} results pending, next insert in {} ms", column, line, value, pendingResults.size(), retryDelay, e);
+            }
+        }
+    }
+
+    /**
+     * Reads the results table once, so that a missing table fails when the provider is created instead of at each insert.
+     *
+     * @param table
+     *            name of results table.
+     * @throws TechnicalException
+     *             if the table can not be read.
+     */
+    private void checkTable(String table) throws TechnicalException {
+        try (Connection connection = connectionPool.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT SCENARIO, LINE, RESULT_COLUMN, RESULT_VALUE, WRITTEN_AT FROM " + table + " WHERE 1 = 0")) {
+            statement.execute();
+        } catch (final SQLException e) {
+            throw new TechnicalException(Messages.format(Messages.getMessage(DATABASE_ERROR_RESULTS_TABLE_NOT_FOUND), table) + " " + e.getMessage(), e);
+        }
+    }
+
+}
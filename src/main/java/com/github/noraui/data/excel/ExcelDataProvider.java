@@ -10,12 +10,14 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
@@ -29,19 +31,23 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.noraui.data.BufferedDataOutputProvider;
 import com.github.noraui.data.CommonDataProvider;
 import com.github.noraui.data.DataInputProvider;
-import com.github.noraui.data.DataOutputProvider;
+import com.github.noraui.data.DataUtils;
+import com.github.noraui.data.WriteBehindPolicy;
 import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.exception.data.EmptyDataFileContentException;
 import com.github.noraui.exception.data.WrongDataFileFormatException;
 import com.github.noraui.utils.Constants;
 import com.github.noraui.utils.Messages;
 
-public abstract class ExcelDataProvider extends CommonDataProvider implements DataInputProvider, DataOutputProvider {
+public abstract class ExcelDataProvider extends CommonDataProvider implements DataInputProvider, BufferedDataOutputProvider {
 
     /**
      * Specific logger
@@ -50,24 +56,44 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
 
     private static final String EXCEL_DATA_PROVIDER_WRONG_CELL_TYPE_ERROR_MESSAGE = "EXCEL_DATA_PROVIDER_WRONG_CELL_TYPE_ERROR_MESSAGE";
     private static final String EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE = "EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE";
+    /**
+     * Thread-safe formatter of date cells.
+     */
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormat.forPattern(Constants.DATE_FORMAT);
+
+    /**
+     * Extension of each Excel file found by {@link #validExtension(String, String)} (key is data path + scenario name).
+     */
+    private static final Map<String, String> EXTENSIONS = new ConcurrentHashMap<>();
+
     private Workbook workbook;
     private String dataOutExtension;
 
+    /**
+     * First sheet decoded once (null if a row is missing), see {@link #decodeSheet()}.
+     */
+    private String[][] rows;
+
     private CellStyle styleSuccess;
     private CellStyle styleFailed;
     private CellStyle styleWarning;
 
+    /**
+     * Results written in workbook but not saved yet.
+     */
+    private boolean dirty;
+    private int pendingWrites;
+    private long lastFlushTime;
+    private WriteBehindPolicy writeBehindPolicy = WriteBehindPolicy.WRITE_THROUGH;
+
     /**
      * {@inheritDoc}
      */
     @Override
     public int getNbLines() throws TechnicalException {
         int count = 0;
-        final Iterator<Row> rowsIterator = workbook.getSheetAt(0).iterator();
-        Row row;
-        while (rowsIterator.hasNext()) {
-            row = rowsIterator.next();
-            if (!"".equals(readCell(row.getCell(0)))) {
+        for (final String[] row : rows) {
+            if (row != null && !"".equals(row[0])) {
                 count++;
             }
         }
@@ -112,15 +138,11 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
      */
     @Override
     public String readValue(String column, int line) throws TechnicalException {
-        final int colIndex = columns.indexOf(column);
-        final Sheet sheet = workbook.getSheetAt(0);
-        final Row row = sheet.getRow(line);
-        final Cell cell = row.getCell(colIndex);
-        if (cell == null) {
+        final int colIndex = getColumnIndex(column);
+        if (line < 0 || line >= rows.length || rows[line] == null || colIndex < 0) {
             return "";
-        } else {
-            return readCell(cell);
         }
+        return rows[line][colIndex];
     }
 
     /**
@@ -128,20 +150,12 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
      */
     @Override
     public String[] readLine(int line, boolean readResult) throws TechnicalException {
-        final Sheet sheet = workbook.getSheetAt(0);
-        final Row row = sheet.getRow(line);
-        if (row == null || "".equals(readCell(row.getCell(0)))) {
+        final String[] row = line < 0 || line >= rows.length ? null : rows[line];
+        if (row == null || "".equals(row[0])) {
             return null;
         } else {
             final String[] ret = readResult ? new String[columns.size()] : new String[columns.size() - 1];
-            Cell cell;
-            for (int i = 0; i < ret.length; i++) {
-                if ((cell = row.getCell(i)) == null) {
-                    ret[i] = "";
-                } else {
-                    ret[i] = readCell(cell);
-                }
-            }
+            System.arraycopy(row, 0, ret, 0, ret.length);
             return ret;
         }
     }
@@ -167,6 +181,33 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
         if (!isResultColumnNameAuthorized(resultColumnName)) {
             throw new WrongDataFileFormatException(String.format(Messages.getMessage(WrongDataFileFormatException.WRONG_RESULT_COLUMN_NAME_ERROR_MESSAGE), ResultColumnNames.getAuthorizedNames()));
         }
+        indexColumns();
+        decodeSheet();
+    }
+
+    /**
+     * Decodes once all cells of first sheet (columns only), so that reads are array lookups.
+     */
+    private void decodeSheet() {
+        final Sheet sheet = workbook.getSheetAt(0);
+        rows = new String[sheet.getLastRowNum() + 1][];
+        for (final Row row : sheet) {
+            final String[] cells = new String[columns.size()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = readCell(row.getCell(i));
+            }
+            rows[row.getRowNum()] = cells;
+        }
+        logger.debug("{} rows decoded", rows.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The fingerprint is the hash of the input file.
+     */
+    @Override
+    public String getDataFingerprint() throws TechnicalException {
+        return DataUtils.fingerprint(new File(dataInPath + scenarioName + "." + validExtension(dataInPath, scenarioName)));
     }
 
     /**
@@ -174,7 +215,7 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
      *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
      */
     protected void openInputData() throws TechnicalException {
-        final String dataInExtension = validExtension(dataInPath);
+        final String dataInExtension = validExtension(dataInPath, scenarioName);
         try (FileInputStream fileIn = new FileInputStream(dataInPath + scenarioName + "." + dataInExtension);) {
             initWorkbook(fileIn, dataInExtension);
         } catch (final IOException e) {
@@ -187,27 +228,32 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
      *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
      */
     void openOutputData() throws TechnicalException {
-        this.dataOutExtension = validExtension(dataOutPath);
+        this.dataOutExtension = validExtension(dataOutPath, scenarioName);
         try (FileInputStream fileOut = new FileInputStream(dataOutPath + scenarioName + "." + dataOutExtension);) {
             initWorkbook(fileOut, dataOutExtension);
         } catch (final IOException e) {
             throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
         }
+        lastFlushTime = System.currentTimeMillis();
 
-        styleSuccess = workbook.createCellStyle();
-        final Font fontSuccess = workbook.createFont();
-        fontSuccess.setColor(HSSFColor.HSSFColorPredefined.GREEN.getIndex());
-        styleSuccess.setFont(fontSuccess);
-
-        styleFailed = workbook.createCellStyle();
-        final Font fontFailed = workbook.createFont();
-        fontFailed.setColor(HSSFColor.HSSFColorPredefined.RED.getIndex());
-        styleFailed.setFont(fontFailed);
+        styleSuccess = createResultStyle(workbook, HSSFColor.HSSFColorPredefined.GREEN);
+        styleFailed = createResultStyle(workbook, HSSFColor.HSSFColorPredefined.RED);
+        styleWarning = createResultStyle(workbook, HSSFColor.HSSFColorPredefined.ORANGE);
+    }
 
-        styleWarning = workbook.createCellStyle();
-        final Font fontWarning = workbook.createFont();
-        fontWarning.setColor(HSSFColor.HSSFColorPredefined.ORANGE.getIndex());
-        styleWarning.setFont(fontWarning);
+    /**
+     * @param workbook
+     *            workbook in which style is created.
+     * @param color
+     *            font color of result.
+     * @return a new result style (success: green, failed: red, warning: orange).
+     */
+    static CellStyle createResultStyle(Workbook workbook, HSSFColor.HSSFColorPredefined color) {
+        final CellStyle style = workbook.createCellStyle();
+        final Font font = workbook.createFont();
+        font.setColor(color.getIndex());
+        style.setFont(font);
+        return style;
     }
 
     private void initWorkbook(FileInputStream stream, String extension) throws IOException {
@@ -231,11 +277,18 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
      *
      * @param dataPath
      *            path of all files from input/output folder
+     * @param scenarioName
+     *            name of scenario (base name of file)
      * @return unique extension if right
      * @throws TechnicalException
      *             If you are using Excel as a dataProvider, you must choose one of the following formats: xls, xlsx, or xlsm.
      */
-    private String validExtension(String dataPath) throws TechnicalException {
+    static String validExtension(String dataPath, String scenarioName) throws TechnicalException {
+        final String key = dataPath + scenarioName;
+        final String cached = EXTENSIONS.get(key);
+        if (cached != null && new File(key + "." + cached).isFile()) {
+            return cached;
+        }
         final Set<String> extensions = new HashSet<>();
         for (final File file : new File(dataPath).listFiles()) {
             if (FilenameUtils.getBaseName(file.getName()).equals(scenarioName) && FilenameUtils.getExtension(file.getName()).startsWith("xls")) {
@@ -245,18 +298,45 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
         if (extensions.size() != 1) {
             throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_EXPECTED_EXCEL_EXTENTION_ERROR));
         }
-        return extensions.iterator().next();
+        final String extension = extensions.iterator().next();
+        EXTENSIONS.put(key, extension);
+        return extension;
     }
 
     /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void setWriteBehindPolicy(WriteBehindPolicy policy) {
+        writeBehindPolicy = policy;
+        logger.debug("Excel output flush policy is {}", policy);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void flush() throws TechnicalException {
+        if (dirty) {
+            try {
+                saveOpenExcelFile();
+            } catch (final IOException e) {
+                throw new TechnicalException(Messages.getMessage(EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE), e);
+            }
+        }
+    }
+
+    /**
+     * Writes value in workbook (in memory). Workbook is saved when {@link WriteBehindPolicy} says so.
+     *
      * @param column
      * @param line
      * @param value
      * @param style
      */
-    private void writeValue(String column, int line, String value, CellStyle style) {
+    private synchronized void writeValue(String column, int line, String value, CellStyle style) {
         logger.debug("Writing: [{}] at line [{}] in column [{}]", value, line, column);
-        final int colIndex = columns.indexOf(column);
+        final int colIndex = getColumnIndex(column);
         final Sheet sheet = workbook.getSheetAt(0);
         final Row row = sheet.getRow(line);
         Cell cell = row.getCell(colIndex);
@@ -266,7 +346,18 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
         cell = row.createCell(colIndex);
         cell.setCellStyle(style);
         cell.setCellValue(value);
-        saveOpenExcelFile();
+        if (line < rows.length && rows[line] != null && colIndex < rows[line].length) {
+            rows[line][colIndex] = value.trim();
+        }
+        dirty = true;
+        pendingWrites++;
+        if (writeBehindPolicy.isFlushDue(pendingWrites, lastFlushTime)) {
+            try {
+                saveOpenExcelFile();
+            } catch (final IOException e) {
+                logger.error(Messages.getMessage(EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE), e);
+            }
+        }
     }
 
     /**
@@ -324,8 +415,7 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
     private String dateOrNumberProcessing(Cell cell) {
         String txt;
         if (DateUtil.isCellDateFormatted(cell)) {
-            final DateFormat formatter = new SimpleDateFormat(Constants.DATE_FORMAT);
-            txt = String.valueOf(formatter.format(cell.getDateCellValue()));
+            txt = DATE_FORMATTER.print(cell.getDateCellValue().getTime());
             logger.debug("CELL_TYPE_NUMERIC (date): {}", txt);
         } else {
             txt = String.valueOf(cell.getNumericCellValue());
@@ -334,12 +424,27 @@ public abstract class ExcelDataProvider extends CommonDataProvider implements Da
         return txt;
     }
 
-    private void saveOpenExcelFile() {
-        try (FileOutputStream fileOut = new FileOutputStream(dataOutPath + scenarioName + "." + this.dataOutExtension);) {
-            workbook.write(fileOut);
-        } catch (final IOException e) {
-            logger.error(Messages.getMessage(EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE), e);
+    /**
+     * Saves workbook in a temporary file then moves it on the output file, so that a crash never leaves a corrupted output file.
+     *
+     * @throws IOException
+     *             if output file can not be written.
+     */
+    private void saveOpenExcelFile() throws IOException {
+        final Path target = Paths.get(dataOutPath + scenarioName + "." + this.dataOutExtension);
+        final Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), scenarioName, ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());) {
+                workbook.write(fileOut);
+            }
+            DataUtils.moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
         }
+        logger.debug("{} writes saved in {}", pendingWrites, target);
+        dirty = false;
+        pendingWrites = 0;
+        lastFlushTime = System.currentTimeMillis();
     }
 
 }
@@ -33,6 +33,8 @@ public class OutputExcelDataProvider extends ExcelDataProvider {
      */
     @Override
     public void prepare(String scenario) throws TechnicalException {
+        // results of previous scenario are saved in its own file before scenario changes
+        flush();
         scenarioName = scenario;
         try {
             openOutputData();
@@ -0,0 +1,147 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.excel;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.CommonDataProvider;
+import com.github.noraui.data.DataInputProvider;
+import com.github.noraui.data.DataUtils;
+import com.github.noraui.data.MemoryRowStore;
+import com.github.noraui.data.RowStore;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.exception.data.EmptyDataFileContentException;
+import com.github.noraui.exception.data.WrongDataFileFormatException;
+import com.github.noraui.utils.Messages;
+
+/**
+ * Excel input data provider for large xlsx (or xlsm) files: first sheet is streamed once at {@link #prepare(String)} with the POI event model and only cell values are kept in
+ * memory (no workbook).
+ * Use it with dataProvider.in.type=com.github.noraui.data.excel.StreamingInputExcelDataProvider.
+ */
+public class StreamingInputExcelDataProvider extends CommonDataProvider implements DataInputProvider {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(StreamingInputExcelDataProvider.class);
+
+    private static final String EXCEL_INPUT_DATA_PROVIDER_USED = "EXCEL_INPUT_DATA_PROVIDER_USED";
+
+    private RowStore rows;
+
+    public StreamingInputExcelDataProvider() {
+        super();
+        logger.info(Messages.getMessage(EXCEL_INPUT_DATA_PROVIDER_USED));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void prepare(String scenario) throws TechnicalException {
+        scenarioName = scenario;
+        try {
+            openInputData();
+            initColumns();
+        } catch (EmptyDataFileContentException | WrongDataFileFormatException e) {
+            logger.error(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNbLines() throws TechnicalException {
+        int count = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (!"".equals(readCell(rows.getRow(i), 0))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String readValue(String column, int line) throws TechnicalException {
+        return readCell(rows.getRow(line), getColumnIndex(column));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] readLine(int line, boolean readResult) throws TechnicalException {
+        final String[] row = rows.getRow(line);
+        if (row == null || "".equals(readCell(row, 0))) {
+            return null;
+        } else {
+            final String[] ret = readResult ? new String[columns.size()] : new String[columns.size() - 1];
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = readCell(row, i);
+            }
+            return ret;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The fingerprint is the hash of the input file.
+     */
+    @Override
+    public String getDataFingerprint() throws TechnicalException {
+        return DataUtils.fingerprint(new File(dataInPath + scenarioName + "." + ExcelDataProvider.validExtension(dataInPath, scenarioName)));
+    }
+
+    private void openInputData() throws TechnicalException {
+        final String dataInExtension = ExcelDataProvider.validExtension(dataInPath, scenarioName);
+        final File file = new File(dataInPath + scenarioName + "." + dataInExtension);
+        try {
+            if ("xls".equals(dataInExtension)) {
+                throw new IOException("Only xlsx and xlsm files can be streamed: " + file);
+            }
+            rows = new MemoryRowStore(XlsxSheetReader.read(file));
+        } catch (final IOException e) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
+        }
+        logger.debug("{} rows streamed from {}", rows.size(), file);
+    }
+
+    private void initColumns() throws EmptyDataFileContentException, WrongDataFileFormatException {
+        columns = new ArrayList<>();
+        final String[] headers = rows.getRow(0);
+        for (int i = 0; headers != null && i < headers.length && headers[i] != null; i++) {
+            columns.add(headers[i]);
+        }
+        if (columns.size() < 2) {
+            throw new EmptyDataFileContentException(Messages.getMessage(EmptyDataFileContentException.EMPTY_DATA_FILE_CONTENT_ERROR_MESSAGE));
+        }
+        resultColumnName = columns.get(columns.size() - 1);
+        if (!isResultColumnNameAuthorized(resultColumnName)) {
+            throw new WrongDataFileFormatException(String.format(Messages.getMessage(WrongDataFileFormatException.WRONG_RESULT_COLUMN_NAME_ERROR_MESSAGE), ResultColumnNames.getAuthorizedNames()));
+        }
+        indexColumns();
+    }
+
+    private static String readCell(String[] row, int column) {
+        if (row == null || column < 0 || column >= row.length || row[column] == null) {
+            return "";
+        }
+        return row[column];
+    }
+
+}
@@ -0,0 +1,409 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.excel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.BufferedDataOutputProvider;
+import com.github.noraui.data.CommonDataProvider;
+import com.github.noraui.data.DataUtils;
+import com.github.noraui.data.WriteBehindPolicy;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.exception.data.EmptyDataFileContentException;
+import com.github.noraui.exception.data.WrongDataFileFormatException;
+import com.github.noraui.utils.Messages;
+
+/**
+ * Excel output data provider for long campaigns: output workbook is rewritten with the POI streaming writer (SXSSF). Rows of the current output file are copied forward (cell
+ * types, formulas and styles included) while results are written, so only the last {@link #ROW_ACCESS_WINDOW} rows are kept in memory. Results are expected in row order: a
+ * result written in a row which has already left the window is written after saving the new output file and copying it again up to that row. Other sheets are copied the same
+ * way when the file is saved (cell values and styles only).
+ * The new output file is saved (temporary file and atomic move) when {@link #flush()} is called: at the end of each feature, before next scenario and when the
+ * {@link WriteBehindPolicy} is due. With the default write-through policy the whole file is saved after each result, so set dataProvider.out.flush.writes and/or
+ * dataProvider.out.flush.delay with this provider.
+ * Use it with dataProvider.out.type=com.github.noraui.data.excel.StreamingOutputExcelDataProvider (xlsx or xlsm only).
+ */
+public class StreamingOutputExcelDataProvider extends CommonDataProvider implements BufferedDataOutputProvider {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(StreamingOutputExcelDataProvider.class);
+
+    private static final String EXCEL_OUTPUT_DATA_PROVIDER_USED = "EXCEL_OUTPUT_DATA_PROVIDER_USED";
+    private static final String EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE = "EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE";
+
+    /**
+     * Number of rows kept in memory (late results are written in these rows without saving the new output file).
+     */
+    static final int ROW_ACCESS_WINDOW = 100;
+
+    private File outputFile;
+
+    /**
+     * Current output file, read row by row.
+     */
+    private XlsxSheetReader source;
+    private String[] sourceRow;
+
+    /**
+     * New output file, written row by row.
+     */
+    private SXSSFWorkbook workbook;
+    private SXSSFSheet sheet;
+    private boolean dirty;
+
+    /**
+     * Result styles of new workbook, by font color.
+     */
+    private final Map<HSSFColor.HSSFColorPredefined, CellStyle> resultStyles = new EnumMap<>(HSSFColor.HSSFColorPredefined.class);
+
+    /**
+     * Styles of new workbook, by index of the style copied from current output file.
+     */
+    private final Map<Short, CellStyle> copiedStyles = new HashMap<>();
+
+    private int pendingWrites;
+    private long lastFlushTime;
+    private WriteBehindPolicy writeBehindPolicy = WriteBehindPolicy.WRITE_THROUGH;
+
+    public StreamingOutputExcelDataProvider() {
+        super();
+        logger.info(Messages.getMessage(EXCEL_OUTPUT_DATA_PROVIDER_USED));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void prepare(String scenario) throws TechnicalException {
+        flush();
+        scenarioName = scenario;
+        final String dataOutExtension = ExcelDataProvider.validExtension(dataOutPath, scenarioName);
+        if ("xls".equals(dataOutExtension)) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION) + " Only xlsx and xlsm files can be streamed.");
+        }
+        outputFile = new File(dataOutPath + scenarioName + "." + dataOutExtension);
+        try {
+            openOutputData();
+            initColumns();
+        } catch (EmptyDataFileContentException | WrongDataFileFormatException e) {
+            logger.error(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeFailedResult(int line, String value) {
+        logger.debug("writeFailedResult => line:{} value:{}", line, value);
+        writeValue(resultColumnName, line, value, HSSFColor.HSSFColorPredefined.RED);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeSuccessResult(int line) {
+        logger.debug("writeSuccessResult => line:{}", line);
+        writeValue(resultColumnName, line, Messages.getMessage(Messages.SUCCESS_MESSAGE), HSSFColor.HSSFColorPredefined.GREEN);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeWarningResult(int line, String value) {
+        logger.debug("writeWarningResult => line:{}", line);
+        writeValue(resultColumnName, line, value, HSSFColor.HSSFColorPredefined.ORANGE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeDataResult(String column, int line, String value) {
+        logger.debug("writeDataResult => column:{} line:{} value:{}", column, line, value);
+        writeValue(column, line, value, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void setWriteBehindPolicy(WriteBehindPolicy policy) {
+        writeBehindPolicy = policy;
+        if (policy.isWriteThrough()) {
+            logger.warn("Excel streaming output is saved after each result, set dataProvider.out.flush.writes and/or dataProvider.out.flush.delay to stream it");
+        }
+        logger.debug("Excel streaming output flush policy is {}", policy);
+    }
+
+    /**
+     * Copies remaining rows, saves new output file and closes current output file. Next write opens it again.
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void flush() throws TechnicalException {
+        if (workbook == null) {
+            return;
+        }
+        try {
+            if (dirty) {
+                copyRowsUntil(Integer.MAX_VALUE);
+                copyOtherSheets();
+                saveOutputData();
+            }
+        } catch (final IOException e) {
+            throw new TechnicalException(Messages.getMessage(EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE), e);
+        } finally {
+            closeOutputData();
+        }
+    }
+
+    /**
+     * @param column
+     * @param line
+     * @param value
+     * @param color
+     *            font color of result style (null for a data result).
+     */
+    private synchronized void writeValue(String column, int line, String value, HSSFColor.HSSFColorPredefined color) {
+        logger.debug("Writing: [{}] at line [{}] in column [{}]", value, line, column);
+        try {
+            if (workbook != null && line <= sheet.getLastFlushedRowNum()) {
+                logger.debug("Line {} has already left the window, {} is saved and copied again", line, outputFile);
+                flush();
+            }
+            if (workbook == null) {
+                openOutputData();
+            }
+            copyRowsUntil(line);
+            Row row = sheet.getRow(line);
+            if (row == null) {
+                row = sheet.createRow(line);
+            }
+            final int colIndex = getColumnIndex(column);
+            Cell cell = row.getCell(colIndex);
+            if (cell != null) {
+                row.removeCell(cell);
+            }
+            cell = row.createCell(colIndex);
+            if (color != null) {
+                CellStyle style = resultStyles.get(color);
+                if (style == null) {
+                    style = ExcelDataProvider.createResultStyle(workbook, color);
+                    resultStyles.put(color, style);
+                }
+                cell.setCellStyle(style);
+            }
+            cell.setCellValue(value);
+            dirty = true;
+            pendingWrites++;
+            if (writeBehindPolicy.isFlushDue(pendingWrites, lastFlushTime)) {
+                flush();
+            }
+        } catch (final TechnicalException | IOException e) {
+            logger.error(Messages.getMessage(EXCEL_DATA_PROVIDER_SAVE_FILE_ERROR_MESSAGE), e);
+        }
+    }
+
+    /**
+     * Opens current output file and a new streaming workbook, header row is copied.
+     *
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     */
+    private void openOutputData() throws TechnicalException {
+        try {
+            source = new XlsxSheetReader(outputFile);
+            sourceRow = source.nextRow();
+            workbook = new SXSSFWorkbook(ROW_ACCESS_WINDOW);
+            workbook.setCompressTempFiles(true);
+            sheet = workbook.createSheet(source.getSheetName());
+            copyRowsUntil(0);
+        } catch (final IOException e) {
+            closeOutputData();
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
+        }
+        lastFlushTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Copies rows of current output file in new workbook up to line (included).
+     *
+     * @param line
+     *            last row to copy.
+     * @throws IOException
+     *             if current output file can not be read.
+     */
+    private void copyRowsUntil(int line) throws IOException {
+        while (sourceRow != null && source.getRowIndex() <= line) {
+            copyRow(sheet);
+            sourceRow = source.nextRow();
+        }
+    }
+
+    /**
+     * Copies all rows of the sheets following the first one in new workbook.
+     *
+     * @throws IOException
+     *             if current output file can not be read.
+     */
+    private void copyOtherSheets() throws IOException {
+        while (source.nextSheet()) {
+            final Sheet otherSheet = workbook.createSheet(source.getSheetName());
+            while ((sourceRow = source.nextRow()) != null) {
+                copyRow(otherSheet);
+            }
+        }
+    }
+
+    /**
+     * Copies current row of current output file (cells with their type, formula and style).
+     *
+     * @param target
+     *            sheet of new workbook.
+     */
+    private void copyRow(Sheet target) {
+        final Row row = target.createRow(source.getRowIndex());
+        for (int i = 0; i < sourceRow.length; i++) {
+            final CellType type = source.getCellType(i);
+            if (type == null) {
+                continue;
+            }
+            final Cell cell = row.createCell(i);
+            final XSSFCellStyle sourceStyle = source.getCellStyle(i);
+            if (sourceStyle != null) {
+                cell.setCellStyle(copyStyle(sourceStyle));
+            }
+            final String formula = source.getFormula(i);
+            if (formula != null) {
+                cell.setCellFormula(formula);
+            }
+            final String rawValue = source.getRawValue(i);
+            switch (type) {
+                case NUMERIC:
+                    cell.setCellValue(Double.parseDouble(rawValue));
+                    break;
+                case BOOLEAN:
+                    cell.setCellValue("1".equals(rawValue) || "true".equalsIgnoreCase(rawValue));
+                    break;
+                case ERROR:
+                    try {
+                        cell.setCellErrorValue(FormulaError.forString(rawValue).getCode());
+                    } catch (final IllegalArgumentException e) {
+                        cell.setCellValue(rawValue);
+                    }
+                    break;
+                case STRING:
+                    cell.setCellValue(rawValue);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @param sourceStyle
+     *            style of a cell of current output file.
+     * @return the same style in new workbook (created once).
+     */
+    private CellStyle copyStyle(XSSFCellStyle sourceStyle) {
+        CellStyle style = copiedStyles.get(sourceStyle.getIndex());
+        if (style == null) {
+            style = workbook.createCellStyle();
+            style.cloneStyleFrom(sourceStyle);
+            copiedStyles.put(sourceStyle.getIndex(), style);
+        }
+        return style;
+    }
+
+    private void initColumns() throws EmptyDataFileContentException, WrongDataFileFormatException {
+        columns = new ArrayList<>();
+        final Row header = sheet.getRow(0);
+        Cell cell;
+        for (int i = 0; header != null && (cell = header.getCell(i)) != null; i++) {
+            columns.add(cell.getStringCellValue());
+        }
+        if (columns.size() < 2) {
+            throw new EmptyDataFileContentException(Messages.getMessage(EmptyDataFileContentException.EMPTY_DATA_FILE_CONTENT_ERROR_MESSAGE));
+        }
+        resultColumnName = columns.get(columns.size() - 1);
+        if (!isResultColumnNameAuthorized(resultColumnName)) {
+            throw new WrongDataFileFormatException(String.format(Messages.getMessage(WrongDataFileFormatException.WRONG_RESULT_COLUMN_NAME_ERROR_MESSAGE), ResultColumnNames.getAuthorizedNames()));
+        }
+        indexColumns();
+    }
+
+    /**
+     * Writes new workbook in a temporary file then moves it on the output file, so that a crash never leaves a corrupted output file.
+     *
+     * @throws IOException
+     *             if output file can not be written.
+     */
+    private void saveOutputData() throws IOException {
+        final Path target = outputFile.toPath();
+        final Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), scenarioName, ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());) {
+                workbook.write(fileOut);
+            }
+            source.close();
+            DataUtils.moveAtomically(temp, target);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.debug("{} writes on {} rows streamed in {}", pendingWrites, sheet.getLastRowNum() + 1, target);
+    }
+
+    private void closeOutputData() {
+        if (source != null) {
+            try {
+                source.close();
+            } catch (final IOException e) {
+                logger.debug("IOException when closing {}", outputFile, e);
+            }
+        }
+        if (workbook != null) {
+            workbook.dispose();
+        }
+        source = null;
+        sourceRow = null;
+        workbook = null;
+        sheet = null;
+        resultStyles.clear();
+        copiedStyles.clear();
+        dirty = false;
+        pendingWrites = 0;
+    }
+
+}
@@ -0,0 +1,382 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.excel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+import com.github.noraui.utils.Constants;
+import com.github.noraui.utils.Messages;
+
+/**
+ * Reads sheets of a xlsx (or xlsm) file row by row with the POI event API (XSSFReader) and a pull XML parser, without loading the workbook in memory. First sheet is read first,
+ * see {@link #nextSheet()} for the others.
+ * Cells are decoded as {@link ExcelDataProvider} does: shared and inline strings, formulas by their cached result, numbers with {@link String#valueOf(double)} and dates with
+ * {@link Constants#DATE_FORMAT}. Missing cells are null. Type, raw value, formula and style of each cell of current row are kept to copy the row (see
+ * {@link #getCellType(int)}).
+ */
+final class XlsxSheetReader implements Closeable {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(XlsxSheetReader.class);
+
+    private static final String EXCEL_DATA_PROVIDER_WRONG_CELL_TYPE_ERROR_MESSAGE = "EXCEL_DATA_PROVIDER_WRONG_CELL_TYPE_ERROR_MESSAGE";
+
+    private final OPCPackage pkg;
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final StylesTable styles;
+    private final XSSFReader.SheetIterator sheets;
+    private final XMLInputFactory factory;
+    private String sheetName;
+    private InputStream sheet;
+    private XMLStreamReader reader;
+
+    private String[] cells = new String[16];
+
+    /**
+     * Type (t attribute), raw value, formula and style (s attribute) of each cell of current row.
+     */
+    private String[] types = new String[16];
+    private String[] rawValues = new String[16];
+    private String[] formulas = new String[16];
+    private String[] cellStyles = new String[16];
+    private int rowIndex = -1;
+    private boolean closed;
+    private final StringBuilder value = new StringBuilder();
+
+    /**
+     * @param file
+     *            xlsx or xlsm file.
+     * @throws IOException
+     *             if file can not be read.
+     */
+    XlsxSheetReader(File file) throws IOException {
+        pkg = open(file);
+        try {
+            final XSSFReader xssfReader = new XSSFReader(pkg);
+            sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            styles = xssfReader.getStylesTable();
+            sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+            factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            if (!nextSheet()) {
+                throw new IOException("No sheet in " + file);
+            }
+        } catch (OpenXML4JException | SAXException | IOException | RuntimeException e) {
+            pkg.revert();
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+    }
+
+    /**
+     * @param file
+     *            xlsx or xlsm file.
+     * @return all rows of first sheet, indexed by row number (null if row is missing).
+     * @throws IOException
+     *             if file can not be read.
+     */
+    static List<String[]> read(File file) throws IOException {
+        final List<String[]> rows = new ArrayList<>();
+        try (XlsxSheetReader sheetReader = new XlsxSheetReader(file)) {
+            String[] row;
+            while ((row = sheetReader.nextRow()) != null) {
+                while (rows.size() < sheetReader.getRowIndex()) {
+                    rows.add(null);
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return name of the read sheet.
+     */
+    String getSheetName() {
+        return sheetName;
+    }
+
+    /**
+     * Moves to next sheet of the file (rows left in current sheet are skipped).
+     *
+     * @return false if there is no more sheet.
+     * @throws IOException
+     *             if next sheet can not be read.
+     */
+    boolean nextSheet() throws IOException {
+        closeSheet();
+        if (!sheets.hasNext()) {
+            return false;
+        }
+        sheet = sheets.next();
+        sheetName = sheets.getSheetName();
+        try {
+            reader = factory.createXMLStreamReader(sheet);
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        }
+        rowIndex = -1;
+        return true;
+    }
+
+    /**
+     * @return index (0 based) of the row returned by last call to {@link #nextRow()}.
+     */
+    int getRowIndex() {
+        return rowIndex;
+    }
+
+    /**
+     * Reads next row of the sheet (missing rows are skipped, see {@link #getRowIndex()}).
+     *
+     * @return decoded cells of next row or null at the end of the sheet.
+     * @throws IOException
+     *             if sheet can not be read.
+     */
+    String[] nextRow() throws IOException {
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "row".equals(reader.getLocalName())) {
+                    final String r = reader.getAttributeValue(null, "r");
+                    rowIndex = r == null ? rowIndex + 1 : Integer.parseInt(r) - 1;
+                    return readRow();
+                }
+            }
+            return null;
+        } catch (final XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @param column
+     *            index of a column of current row.
+     * @return type of the cell (type of its cached result for a formula) or null if the cell is missing.
+     */
+    CellType getCellType(int column) {
+        if (column < 0 || column >= cells.length || cells[column] == null) {
+            return null;
+        }
+        final String type = types[column];
+        if (rawValues[column].isEmpty() && !"s".equals(type) && !"str".equals(type) && !"inlineStr".equals(type)) {
+            return CellType.BLANK;
+        } else if (type == null || "n".equals(type)) {
+            return CellType.NUMERIC;
+        } else if ("b".equals(type)) {
+            return CellType.BOOLEAN;
+        } else if ("e".equals(type)) {
+            return CellType.ERROR;
+        }
+        return CellType.STRING;
+    }
+
+    /**
+     * @param column
+     *            index of a column of current row.
+     * @return value of the cell as written in the file (text of a string, number not formatted, 0 or 1 for a boolean, error code) or null if the cell is missing.
+     */
+    String getRawValue(int column) {
+        return column < 0 || column >= cells.length || cells[column] == null ? null : rawValues[column];
+    }
+
+    /**
+     * @param column
+     *            index of a column of current row.
+     * @return formula of the cell or null if it has no formula of its own (shared formulas are only held by their first cell).
+     */
+    String getFormula(int column) {
+        return column < 0 || column >= cells.length || cells[column] == null ? null : formulas[column];
+    }
+
+    /**
+     * @param column
+     *            index of a column of current row.
+     * @return style of the cell (in the styles of the read file) or null if it has the default style.
+     */
+    XSSFCellStyle getCellStyle(int column) {
+        if (column < 0 || column >= cells.length || cells[column] == null || cellStyles[column] == null || styles == null) {
+            return null;
+        }
+        return styles.getStyleAt(Integer.parseInt(cellStyles[column]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeSheet();
+        pkg.revert();
+    }
+
+    private void closeSheet() throws IOException {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (final XMLStreamException e) {
+                logger.debug("XMLStreamException when closing sheet reader", e);
+            }
+            reader = null;
+        }
+        if (sheet != null) {
+            sheet.close();
+            sheet = null;
+        }
+    }
+
+    private String[] readRow() throws XMLStreamException {
+        Arrays.fill(cells, null);
+        int lastColumn = -1;
+        int columnIndex = -1;
+        String cellType = null;
+        String cellStyle = null;
+        String formula = null;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "c":
+                        final String ref = reader.getAttributeValue(null, "r");
+                        columnIndex = ref == null ? columnIndex + 1 : new CellReference(ref).getCol();
+                        cellType = reader.getAttributeValue(null, "t");
+                        cellStyle = reader.getAttributeValue(null, "s");
+                        formula = null;
+                        value.setLength(0);
+                        break;
+                    case "f":
+                        formula = reader.getElementText();
+                        break;
+                    case "v":
+                    case "t":
+                        value.append(reader.getElementText());
+                        break;
+                    default:
+                        break;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if ("c".equals(reader.getLocalName())) {
+                    if (columnIndex >= cells.length) {
+                        final int length = Math.max(columnIndex + 1, cells.length * 2);
+                        cells = Arrays.copyOf(cells, length);
+                        types = Arrays.copyOf(types, length);
+                        rawValues = Arrays.copyOf(rawValues, length);
+                        formulas = Arrays.copyOf(formulas, length);
+                        cellStyles = Arrays.copyOf(cellStyles, length);
+                    }
+                    cells[columnIndex] = decode(cellType, cellStyle).trim();
+                    types[columnIndex] = cellType;
+                    rawValues[columnIndex] = "s".equals(cellType) && value.length() > 0 ? sharedStrings.getEntryAt(Integer.parseInt(value.toString())) : value.toString();
+                    formulas[columnIndex] = formula == null || formula.isEmpty() ? null : formula;
+                    cellStyles[columnIndex] = cellStyle;
+                    lastColumn = Math.max(lastColumn, columnIndex);
+                } else if ("row".equals(reader.getLocalName())) {
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(cells, lastColumn + 1);
+    }
+
+    /**
+     * Same decoding as ExcelDataProvider.readCellByType (a formula cell holds the type of its cached result).
+     *
+     * @param cellType
+     *            t attribute of the cell.
+     * @param cellStyle
+     *            s attribute of the cell.
+     * @return a string with the data of current cell.
+     */
+    private String decode(String cellType, String cellStyle) {
+        if (value.length() == 0) {
+            logger.debug("CELL_TYPE_BLANK (we do nothing)");
+            return "";
+        }
+        final String txt;
+        if (cellType == null || "n".equals(cellType)) {
+            txt = dateOrNumberProcessing(Double.parseDouble(value.toString()), cellStyle);
+        } else if ("s".equals(cellType)) {
+            txt = sharedStrings.getEntryAt(Integer.parseInt(value.toString()));
+            logger.debug("CELL_TYPE_STRING: {}", txt);
+        } else if ("str".equals(cellType) || "inlineStr".equals(cellType)) {
+            txt = value.toString();
+            logger.debug("CELL_TYPE_STRING: {}", txt);
+        } else {
+            logger.error(Messages.getMessage(EXCEL_DATA_PROVIDER_WRONG_CELL_TYPE_ERROR_MESSAGE), cellType);
+            txt = "";
+        }
+        return txt;
+    }
+
+    private String dateOrNumberProcessing(double number, String cellStyle) {
+        String txt;
+        if (isDateFormatted(number, cellStyle)) {
+            txt = ExcelDataProvider.DATE_FORMATTER.print(DateUtil.getJavaDate(number).getTime());
+            logger.debug("CELL_TYPE_NUMERIC (date): {}", txt);
+        } else {
+            txt = String.valueOf(number);
+            logger.debug("CELL_TYPE_NUMERIC: {}", txt);
+        }
+        return txt;
+    }
+
+    private boolean isDateFormatted(double number, String cellStyle) {
+        if (cellStyle == null || styles == null || !DateUtil.isValidExcelDate(number)) {
+            return false;
+        }
+        final XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(cellStyle));
+        if (style == null) {
+            return false;
+        }
+        final int formatIndex = style.getDataFormat();
+        String formatString = style.getDataFormatString();
+        if (formatString == null) {
+            formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+        }
+        return formatString != null && DateUtil.isADateFormat(formatIndex, formatString);
+    }
+
+    private static OPCPackage open(File file) throws IOException {
+        try {
+            return OPCPackage.open(file, PackageAccess.READ);
+        } catch (final OpenXML4JException e) {
+            throw new IOException(e);
+        }
+    }
+
+}
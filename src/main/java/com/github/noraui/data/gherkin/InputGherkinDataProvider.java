@@ -16,6 +16,7 @@ import com.github.noraui.data.CommonDataProvider;
 import com.github.noraui.data.DataInputProvider;
 import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.exception.data.EmptyDataFileContentException;
+import com.github.noraui.gherkin.GherkinExamples;
 import com.github.noraui.gherkin.GherkinFactory;
 import com.github.noraui.model.Model;
 import com.github.noraui.utils.Messages;
@@ -35,7 +36,7 @@ public class InputGherkinDataProvider extends CommonDataProvider implements Data
 
     private static final String GHERKIN_INPUT_DATA_PROVIDER_USED = "GHERKIN_INPUT_DATA_PROVIDER_USED";
 
-    private String[] examples = new String[] {};
+    private GherkinExamples examples = GherkinExamples.EMPTY;
 
     public InputGherkinDataProvider() {
         logger.info(Messages.getMessage(GHERKIN_INPUT_DATA_PROVIDER_USED));
@@ -46,7 +47,7 @@ public class InputGherkinDataProvider extends CommonDataProvider implements Data
      */
     @Override
     public void prepare(String scenario) throws TechnicalException {
-        examples = GherkinFactory.getExamples(scenario);
+        examples = GherkinFactory.getGherkinExamples(scenario);
         try {
             initColumns();
         } catch (EmptyDataFileContentException e) {
@@ -60,7 +61,7 @@ public class InputGherkinDataProvider extends CommonDataProvider implements Data
      */
     @Override
     public int getNbLines() throws TechnicalException {
-        return examples.length;
+        return examples.size();
     }
 
     /**
@@ -69,7 +70,7 @@ public class InputGherkinDataProvider extends CommonDataProvider implements Data
      * @return an array of examples
      */
     public String[] getExamples() {
-        return examples;
+        return examples.getLines();
     }
 
     /**
@@ -77,10 +78,11 @@ public class InputGherkinDataProvider extends CommonDataProvider implements Data
      */
     @Override
     public String readValue(String column, int line) throws TechnicalException {
-        if (examples.length > 0) {
-            final String[] lineContent = readLine(line, true);
-            final int i = columns.indexOf(column) + 1;
-            if (i > 0 && null != lineContent && lineContent.length > i) {
+        if (examples.size() > 0 && examples.size() > line) {
+            final String[] lineContent = getCells(line);
+            // cells are: indentation, id, then one cell per column after id
+            final int i = getColumnIndex(column) + 1;
+            if (i > 0 && lineContent.length > i) {
                 return lineContent[i];
             } else {
                 return "";
@@ -95,11 +97,8 @@ public class InputGherkinDataProvider extends CommonDataProvider implements Data
      */
     @Override
     public String[] readLine(int line, boolean readResult) throws TechnicalException {
-        if (examples.length > 0 && examples.length > line) {
-            final String[] lineContent = examples[line].split("\\|", -1);
-            if (lineContent.length < 3) {
-                throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_EXPECTED_AT_LEAST_AN_ID_COLUMN_IN_EXAMPLES));
-            }
+        if (examples.size() > 0 && examples.size() > line) {
+            final String[] lineContent = getCells(line);
             return Arrays.copyOfRange(lineContent, 2, readResult ? lineContent.length : lineContent.length - 1);
         }
         return null;
@@ -113,13 +112,26 @@ public class InputGherkinDataProvider extends CommonDataProvider implements Data
         return null;
     }
 
+    /**
+     * @param line
+     *            index of the line (0 is the header).
+     * @return pre-split cells of the line.
+     * @throws TechnicalException
+     *             if the line has no id column.
+     */
+    private String[] getCells(int line) throws TechnicalException {
+        final String[] lineContent = examples.getCells(line);
+        if (lineContent.length < 3) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_EXPECTED_AT_LEAST_AN_ID_COLUMN_IN_EXAMPLES));
+        }
+        return lineContent;
+    }
+
     private void initColumns() throws EmptyDataFileContentException {
         columns = new ArrayList<>();
-        if (examples.length > 1) {
-            final String[] cols = examples[0].split("\\|", -1);
-            for (int i = 1; i < cols.length - 1; i++) {
-                columns.add(cols[i]);
-            }
+        if (examples.size() > 1) {
+            columns.addAll(examples.getColumns());
+            indexColumns();
         } else {
             throw new EmptyDataFileContentException(Messages.getMessage(EmptyDataFileContentException.EMPTY_DATA_FILE_CONTENT_ERROR_MESSAGE));
         }
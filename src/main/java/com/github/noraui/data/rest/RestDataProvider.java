@@ -6,14 +6,21 @@
  */
 package com.github.noraui.data.rest;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.noraui.data.BufferedDataOutputProvider;
 import com.github.noraui.data.CommonDataProvider;
 import com.github.noraui.data.DataInputProvider;
-import com.github.noraui.data.DataOutputProvider;
+import com.github.noraui.data.WriteBehindPolicy;
+import com.github.noraui.data.rest.RestResultSender.PendingResult;
 import com.github.noraui.exception.HttpServiceException;
 import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.exception.data.EmptyDataFileContentException;
@@ -22,8 +29,12 @@ import com.github.noraui.service.HttpService;
 import com.github.noraui.service.impl.HttpServiceImpl;
 import com.github.noraui.utils.Messages;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
-public class RestDataProvider extends CommonDataProvider implements DataInputProvider, DataOutputProvider {
+import okio.ByteString;
+
+public class RestDataProvider extends CommonDataProvider implements DataInputProvider, BufferedDataOutputProvider {
 
     /**
      * Specific logger
@@ -32,14 +43,50 @@ public class RestDataProvider extends CommonDataProvider implements DataInputPro
 
     private static final String REST_DATA_PROVIDER_USED = "REST_DATA_PROVIDER_USED";
     private static final String REST_DATA_PROVIDER_WRITING_IN_REST_WS_ERROR_MESSAGE = "REST_DATA_PROVIDER_WRITING_IN_REST_WS_ERROR_MESSAGE";
+    private static final String REST_DATA_PROVIDER_RESULTS_NOT_SENT_ERROR_MESSAGE = "REST_DATA_PROVIDER_RESULTS_NOT_SENT_ERROR_MESSAGE";
     private static final String NORAUI_API = "/noraui/api/";
     private static final String COLUMN = "/column/";
     private static final String LINE = "/line/";
 
+    /**
+     * Gson is thread-safe, one instance decodes all responses.
+     */
+    private static final Gson GSON = new Gson();
+
+    /**
+     * Max number of concurrent calls when lines are fetched concurrently.
+     */
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+
     private final String norauiWebServicesApi;
 
     private HttpService httpService;
 
+    /**
+     * true to fetch all rows of a scenario in one call.
+     */
+    private boolean bulk;
+
+    /**
+     * false once Web Services did not answer all rows of a scenario in one call.
+     */
+    private boolean bulkEndpointAvailable = true;
+
+    /**
+     * Rows of current scenario already fetched (by line).
+     */
+    private final Map<Integer, Row> rows = new HashMap<>();
+
+    /**
+     * Number of lines of current scenario (headers line included) or -1 if not known yet.
+     */
+    private int nbLines = -1;
+
+    /**
+     * Background sender of results (null to send each result when it is written).
+     */
+    private volatile RestResultSender sender;
+
     public enum types {
         JSON, XML
     }
@@ -65,14 +112,28 @@ public class RestDataProvider extends CommonDataProvider implements DataInputPro
         }
     }
 
+    /**
+     * @param bulk
+     *            true to fetch all rows of each scenario when it is prepared (in one call GET {scenario}, or with concurrent calls of each line if Web Services do not answer it) and
+     *            serve reads locally, false to fetch rows one at a time (each row is fetched once per scenario). The headers line (line 0) is always fetched on its own.
+     */
+    public void setBulk(boolean bulk) {
+        this.bulk = bulk;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void prepare(String scenario) throws TechnicalException {
         scenarioName = scenario;
+        rows.clear();
+        nbLines = -1;
         try {
             initColumns();
+            if (bulk) {
+                fetchAllRows();
+            }
         } catch (final EmptyDataFileContentException e) {
             logger.error(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION), e);
             System.exit(-1);
@@ -83,29 +144,58 @@ public class RestDataProvider extends CommonDataProvider implements DataInputPro
      * {@inheritDoc}
      */
     @Override
-    public int getNbLines() {
-        try {
-            return Integer.parseInt(httpService.get(this.norauiWebServicesApi, scenarioName + "/nbLines")) + 1;
-        } catch (TechnicalException | NumberFormatException | HttpServiceException e) {
-            logger.error("getNbLines error", e);
-            return 0;
+    public synchronized int getNbLines() {
+        if (nbLines < 0) {
+            try {
+                nbLines = Integer.parseInt(httpService.get(this.norauiWebServicesApi, scenarioName + "/nbLines")) + 1;
+            } catch (TechnicalException | NumberFormatException | HttpServiceException e) {
+                logger.error("getNbLines error", e);
+                return 0;
+            }
         }
-
+        return nbLines;
     }
 
     /**
      * {@inheritDoc}
+     * The value is read in the row of the line, fetched once.
      */
     @Override
     public String readValue(String column, int line) {
-        final String url = this.norauiWebServicesApi + scenarioName + COLUMN + (columns.indexOf(column) + 1) + LINE + line;
         try {
-            return httpService.get(url);
+            final Row row = getRow(line);
+            final int colIndex = getColumnIndex(column);
+            if (row == null || colIndex < 0) {
+                return "";
+            }
+            if (colIndex < row.getColumns().size()) {
+                return row.getColumns().get(colIndex);
+            }
+            return resultColumnName.equals(column) && row.getResult() != null ? row.getResult() : "";
         } catch (TechnicalException | NumberFormatException | HttpServiceException e) {
             return "";
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * The fingerprint is the hash of the validator (ETag or Last-Modified) of GET {scenario}, so rows are not downloaded to know if they have changed. Rows are read and hashed only
+     * if Web Services do not give a validator.
+     */
+    @Override
+    public String getDataFingerprint() throws TechnicalException {
+        final String url = this.norauiWebServicesApi + scenarioName;
+        try {
+            final String validator = httpService.getValidator(url);
+            if (validator != null) {
+                return ByteString.encodeUtf8(url + '\n' + validator).sha1().hex();
+            }
+        } catch (final HttpServiceException e) {
+            logger.debug("Validator of [{}] can not be read", url, e);
+        }
+        return super.getDataFingerprint();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -113,8 +203,10 @@ public class RestDataProvider extends CommonDataProvider implements DataInputPro
     public String[] readLine(int line, boolean readResult) {
         logger.debug("readLine at line {}", line);
         try {
-            final String url = this.norauiWebServicesApi + scenarioName + LINE + line;
-            final Row row = new Gson().fromJson(httpService.get(url), DataModel.class).getRows().get(0);
+            final Row row = getRow(line);
+            if (row == null) {
+                return null;
+            }
             final List<String> l = row.getColumns();
             final String[] response = l.toArray(new String[l.size() + 1]);
             response[l.size()] = String.valueOf(row.getErrorStepIndex());
@@ -125,13 +217,108 @@ public class RestDataProvider extends CommonDataProvider implements DataInputPro
         }
     }
 
+    /**
+     * Gets a row of current scenario, fetching it only if it has not been fetched yet (in bulk mode, only the headers line is fetched here).
+     *
+     * @param line
+     *            the line (0 for headers, 1 and more are datas).
+     * @return the row or null if line does not exist.
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     * @throws HttpServiceException
+     *             if Web Services call fails.
+     */
+    private synchronized Row getRow(int line) throws TechnicalException, HttpServiceException {
+        Row row = rows.get(line);
+        if (row == null && (!bulk || line == 0)) {
+            final List<Row> fetched = GSON.fromJson(httpService.get(this.norauiWebServicesApi + scenarioName + LINE + line), DataModel.class).getRows();
+            if (fetched != null && !fetched.isEmpty()) {
+                row = fetched.get(0);
+                rows.put(line, row);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Fetches all rows of current scenario in one call. If Web Services do not answer rows, all lines are fetched concurrently ({@link #MAX_CONCURRENT_REQUESTS} at a time), and
+     * if it fails too, rows are fetched one at a time when they are read.
+     */
+    private synchronized void fetchAllRows() {
+        final String url = this.norauiWebServicesApi + scenarioName;
+        if (bulkEndpointAvailable) {
+            try {
+                final DataModel dataModel = GSON.fromJson(httpService.get(url), DataModel.class);
+                if (dataModel != null && dataModel.getRows() != null) {
+                    cacheRows(dataModel.getRows());
+                    logger.debug("{} rows fetched from [{}]", dataModel.getRows().size(), url);
+                    return;
+                }
+            } catch (TechnicalException | HttpServiceException | RuntimeException e) {
+                logger.debug("Rows can not be fetched from [{}]", url, e);
+            }
+            logger.info("All rows of scenario {} can not be fetched from [{}], lines are fetched concurrently.", scenarioName, url);
+            bulkEndpointAvailable = false;
+        }
+        try {
+            fetchAllLines();
+        } catch (TechnicalException | HttpServiceException | RuntimeException e) {
+            logger.warn("All rows of scenario {} can not be fetched, they are fetched one at a time.", scenarioName, e);
+            bulk = false;
+        }
+    }
+
+    /**
+     * Fetches each line of current scenario with concurrent calls.
+     *
+     * @throws TechnicalException
+     *             if number of lines is unknown.
+     * @throws HttpServiceException
+     *             if one call fails.
+     */
+    private void fetchAllLines() throws TechnicalException, HttpServiceException {
+        final int lines = getNbLines();
+        if (lines < 1) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_DATA_IOEXCEPTION));
+        }
+        final List<String> urls = new ArrayList<>(lines);
+        for (int line = 1; line < lines; line++) {
+            urls.add(this.norauiWebServicesApi + scenarioName + LINE + line);
+        }
+        final List<Row> dataRows = new ArrayList<>(urls.size());
+        for (final String response : httpService.getAll(urls, MAX_CONCURRENT_REQUESTS)) {
+            dataRows.add(GSON.fromJson(response, DataModel.class).getRows().get(0));
+        }
+        cacheRows(dataRows);
+        logger.debug("{} lines fetched concurrently", dataRows.size());
+    }
+
+    /**
+     * Replaces cached data rows of current scenario (headers line is kept).
+     *
+     * @param dataRows
+     *            all rows (first one is line 1).
+     */
+    private void cacheRows(List<Row> dataRows) {
+        final Row headers = rows.get(0);
+        rows.clear();
+        if (headers != null) {
+            rows.put(0, headers);
+        }
+        for (int i = 0; i < dataRows.size(); i++) {
+            rows.put(i + 1, dataRows.get(i));
+        }
+        nbLines = dataRows.size() + 1;
+    }
+
     private void initColumns() throws EmptyDataFileContentException {
         final String url = this.norauiWebServicesApi + scenarioName + "/columns";
         logger.debug("initColumns with this url: [{}]", url);
         try {
-            columns = new Gson().fromJson(httpService.get(url), DataModel.class).getColumns();
+            columns = GSON.fromJson(httpService.get(url), DataModel.class).getColumns();
             resultColumnName = Messages.getMessage(ResultColumnNames.RESULT_COLUMN_NAME);
             columns.add(resultColumnName);
+            indexColumns();
             if (columns.size() < 2) {
                 throw new EmptyDataFileContentException(Messages.getMessage(EmptyDataFileContentException.EMPTY_DATA_FILE_CONTENT_ERROR_MESSAGE));
             }
@@ -144,24 +331,170 @@ public class RestDataProvider extends CommonDataProvider implements DataInputPro
      * {@inheritDoc}
      */
     @Override
+    public synchronized void setWriteBehindPolicy(WriteBehindPolicy policy) {
+        try {
+            flush();
+        } catch (final TechnicalException e) {
+            logger.error("flush error", e);
+        }
+        if (sender != null) {
+            sender.close();
+        }
+        sender = policy.isWriteThrough() ? null : new RestResultSender(this, policy);
+        logger.debug("REST output flush policy is {}", policy);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Waits until all pending results are sent.
+     */
+    @Override
+    public void flush() throws TechnicalException {
+        final RestResultSender currentSender = sender;
+        if (currentSender == null) {
+            return;
+        }
+        try {
+            final int failed = currentSender.flush();
+            if (failed > 0) {
+                throw new TechnicalException(String.format(Messages.getMessage(REST_DATA_PROVIDER_RESULTS_NOT_SENT_ERROR_MESSAGE), failed));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * With a write-behind policy, the result is queued and sent by a background thread.
+     */
+    @Override
     protected void writeValue(String column, int line, String value) {
         logger.info("Writing: [{}] at line [{}] in column [{}]", value, line, column);
-        final int colIndex = columns.indexOf(column);
-        final String url = this.norauiWebServicesApi + scenarioName + COLUMN + colIndex + LINE + line;
-        logger.info("url: [{}]", url);
+        final int colIndex = getColumnIndex(column);
+        final PendingResult result = new PendingResult(scenarioName, column, colIndex, line, value, resultColumnName.equals(column));
+        updateCachedRow(result);
+        final RestResultSender currentSender = sender;
         try {
-            final DataModel dataModel = new Gson().fromJson(httpService.post(url, value), DataModel.class);
-            if (resultColumnName.equals(column)) {
-                if (value.equals(dataModel.getRows().get(line - 1).getResult())) {
-                    logger.info(Messages.getMessage(REST_DATA_PROVIDER_WRITING_IN_REST_WS_ERROR_MESSAGE), column, line, value);
-                }
+            if (currentSender != null) {
+                currentSender.submit(result);
             } else {
-                if (value.equals(dataModel.getRows().get(line - 1).getColumns().get(colIndex - 1))) {
-                    logger.info(Messages.getMessage(REST_DATA_PROVIDER_WRITING_IN_REST_WS_ERROR_MESSAGE), column, line, value);
-                }
+                postResult(result);
             }
         } catch (TechnicalException | NumberFormatException | HttpServiceException e) {
             logger.error("writeValue error", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("writeValue interrupted", e);
+        }
+    }
+
+    /**
+     * POSTs a result and checks the acknowledgement: only the written cell is read in the answer.
+     *
+     * @param result
+     *            the result to send.
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     * @throws HttpServiceException
+     *             if Web Services call fails.
+     */
+    void postResult(PendingResult result) throws TechnicalException, HttpServiceException {
+        final String url = this.norauiWebServicesApi + result.getScenario() + COLUMN + result.getColumnIndex() + LINE + result.getLine();
+        logger.info("url: [{}]", url);
+        final String answer = httpService.post(url, result.getValue());
+        try {
+            final String written = readWrittenValue(answer, result.getLine(), result.isResult() ? -1 : result.getColumnIndex() - 1);
+            if (result.getValue().equals(written)) {
+                logger.info(Messages.getMessage(REST_DATA_PROVIDER_WRITING_IN_REST_WS_ERROR_MESSAGE), result.getColumn(), result.getLine(), result.getValue());
+            }
+        } catch (final IOException | IllegalStateException e) {
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads one cell in the answer of a write (a {@link DataModel}) without decoding other rows.
+     *
+     * @param json
+     *            the answer.
+     * @param line
+     *            the line of the cell (1 and more are datas).
+     * @param columnIndex
+     *            index of the cell in the columns of the row, or -1 for the result of the row.
+     * @return value of the cell or null if the cell is not in the answer.
+     * @throws IOException
+     *             if answer is not a JSON document.
+     */
+    static String readWrittenValue(String json, int line, int columnIndex) throws IOException {
+        if (json == null) {
+            return null;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("rows".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    for (int i = 1; reader.hasNext(); i++) {
+                        if (i == line) {
+                            return readCell(reader, columnIndex);
+                        }
+                        reader.skipValue();
+                    }
+                    return null;
+                }
+                reader.skipValue();
+            }
+            return null;
+        }
+    }
+
+    private static String readCell(JsonReader reader, int columnIndex) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (columnIndex < 0 && "result".equals(name)) {
+                return readString(reader);
+            } else if (columnIndex >= 0 && "columns".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                for (int j = 0; reader.hasNext(); j++) {
+                    if (j == columnIndex) {
+                        return readString(reader);
+                    }
+                    reader.skipValue();
+                }
+                return null;
+            } else {
+                reader.skipValue();
+            }
+        }
+        return null;
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * Keeps cached row of written line consistent with the written value.
+     *
+     * @param result
+     *            the written result.
+     */
+    private synchronized void updateCachedRow(PendingResult result) {
+        final Row row = rows.get(result.getLine());
+        if (row == null) {
+            return;
+        }
+        if (result.isResult()) {
+            row.setResult(result.getValue());
+        } else if (result.getColumnIndex() >= 0 && result.getColumnIndex() < row.getColumns().size()) {
+            row.getColumns().set(result.getColumnIndex(), result.getValue());
         }
     }
 
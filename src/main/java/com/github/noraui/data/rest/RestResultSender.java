@@ -0,0 +1,278 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.rest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.WriteBehindPolicy;
+import com.github.noraui.exception.HttpServiceException;
+import com.github.noraui.exception.TechnicalException;
+
+/**
+ * Sends results of a {@link RestDataProvider} from a background thread. Results are queued by (scenario, line, column): a result written again before it is sent replaces the
+ * previous one. Pending results are sent when the {@link WriteBehindPolicy} is due or when {@link #flush()} is called; a failed POST is retried {@link #MAX_ATTEMPTS} times.
+ * Writers wait when {@link #MAX_PENDING_RESULTS} results are pending. The background thread ends once the sender is closed and all pending results are sent.
+ */
+final class RestResultSender implements Runnable {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RestResultSender.class);
+
+    /**
+     * Max number of pending results, writers wait above it.
+     */
+    static final int MAX_PENDING_RESULTS = 1000;
+
+    /**
+     * Max number of POST of one result.
+     */
+    static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Delay before first retry in milliseconds (doubled at each retry).
+     */
+    static final long RETRY_DELAY = 200;
+
+    private static final long POLL_DELAY = 100;
+
+    private final RestDataProvider provider;
+    private final WriteBehindPolicy policy;
+    private final Map<String, PendingResult> pending = new LinkedHashMap<>();
+    private int inFlight;
+    private int failed;
+    private boolean flushRequested;
+    private boolean closed;
+    private long lastFlushTime = System.currentTimeMillis();
+    private Thread thread;
+
+    /**
+     * @param provider
+     *            provider posting each result.
+     * @param policy
+     *            when pending results are sent.
+     */
+    RestResultSender(RestDataProvider provider, WriteBehindPolicy policy) {
+        this.provider = provider;
+        this.policy = policy;
+    }
+
+    /**
+     * Queues a result (waits if too many results are pending).
+     *
+     * @param result
+     *            the result to send.
+     * @throws InterruptedException
+     *             if current thread is interrupted while waiting.
+     */
+    synchronized void submit(PendingResult result) throws InterruptedException {
+        final String key = result.getKey();
+        while (pending.size() >= MAX_PENDING_RESULTS && !pending.containsKey(key)) {
+            logger.debug("{} results are pending, waiting for sender", pending.size());
+            wait(POLL_DELAY);
+        }
+        if (pending.put(key, result) != null) {
+            logger.debug("Pending result {} replaced", key);
+        }
+        start();
+        notifyAll();
+    }
+
+    /**
+     * Sends all pending results and waits until they are sent.
+     *
+     * @return number of results which could not be sent since last flush.
+     * @throws InterruptedException
+     *             if current thread is interrupted while waiting.
+     */
+    synchronized int flush() throws InterruptedException {
+        flushRequested = true;
+        notifyAll();
+        while (!pending.isEmpty() || inFlight > 0) {
+            if (!pending.isEmpty()) {
+                start();
+            }
+            wait(POLL_DELAY);
+        }
+        flushRequested = false;
+        final int result = failed;
+        failed = 0;
+        return result;
+    }
+
+    /**
+     * Stops the background thread once pending results are sent (a result submitted later is sent by a new thread, which stops once it is sent).
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * @return number of results queued or being sent.
+     */
+    synchronized int getPendingResults() {
+        return pending.size() + inFlight;
+    }
+
+    /**
+     * Starts the background thread if it is not running (first result, or previous thread stopped).
+     */
+    private void start() {
+        if (thread == null) {
+            thread = new Thread(this, "noraui-rest-result-sender");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                final List<PendingResult> results;
+                synchronized (this) {
+                    while (pending.isEmpty() || !(flushRequested || closed || policy.isFlushDue(pending.size(), lastFlushTime))) {
+                        if (closed && pending.isEmpty()) {
+                            logger.debug("REST result sender closed");
+                            return;
+                        }
+                        wait(POLL_DELAY);
+                    }
+                    results = new ArrayList<>(pending.values());
+                    pending.clear();
+                    inFlight = results.size();
+                    notifyAll();
+                }
+                int errors = 0;
+                for (final PendingResult result : results) {
+                    if (!send(result)) {
+                        errors++;
+                    }
+                }
+                synchronized (this) {
+                    inFlight = 0;
+                    failed += errors;
+                    lastFlushTime = System.currentTimeMillis();
+                    notifyAll();
+                }
+                logger.debug("{} results sent ({} errors)", results.size(), errors);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("REST result sender interrupted, {} results not sent", getPendingResults());
+        } finally {
+            stopped();
+        }
+    }
+
+    /**
+     * Forgets the stopped background thread (next result or flush starts a new one); results it was sending are counted as failed.
+     */
+    private synchronized void stopped() {
+        if (thread == Thread.currentThread()) {
+            thread = null;
+        }
+        failed += inFlight;
+        inFlight = 0;
+        notifyAll();
+    }
+
+    private boolean send(PendingResult result) throws InterruptedException {
+        long delay = RETRY_DELAY;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                provider.postResult(result);
+                return true;
+            } catch (TechnicalException | HttpServiceException | RuntimeException e) {
+                logger.warn("POST of result {} failed (attempt {}/{})", result.getKey(), attempt, MAX_ATTEMPTS, e);
+            }
+            if (attempt < MAX_ATTEMPTS) {
+                Thread.sleep(delay);
+                delay *= 2;
+            }
+        }
+        logger.error("Result {} can not be sent: [{}]", result.getKey(), result.getValue());
+        return false;
+    }
+
+    /**
+     * Result waiting to be sent.
+     */
+    static final class PendingResult {
+
+        private final String scenario;
+        private final String column;
+        private final int columnIndex;
+        private final int line;
+        private final String value;
+        private final boolean result;
+
+        /**
+         * @param scenario
+         *            scenario of the result.
+         * @param column
+         *            name of the column.
+         * @param columnIndex
+         *            index of the column in REST Web Services.
+         * @param line
+         *            the line (1 and more are datas).
+         * @param value
+         *            the value to write.
+         * @param result
+         *            true if column is the result column.
+         */
+        PendingResult(String scenario, String column, int columnIndex, int line, String value, boolean result) {
+            this.scenario = scenario;
+            this.column = column;
+            this.columnIndex = columnIndex;
+            this.line = line;
+            this.value = value;
+            this.result = result;
+        }
+
+        String getKey() {
+            return scenario + "/" + line + "/" + column;
+        }
+
+        String getScenario() {
+            return scenario;
+        }
+
+        String getColumn() {
+            return column;
+        }
+
+        int getColumnIndex() {
+            return columnIndex;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        String getValue() {
+            return value;
+        }
+
+        boolean isResult() {
+            return result;
+        }
+
+    }
+
+}
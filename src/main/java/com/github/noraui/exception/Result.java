@@ -12,6 +12,7 @@ import org.junit.Assert;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.noraui.data.DataIndex;
 import com.github.noraui.exception.Callbacks.Callback;
 import com.github.noraui.service.ScreenService;
 import com.github.noraui.service.impl.ScreenServiceImpl;
@@ -53,8 +54,9 @@ public abstract class Result {
         public Success(O object, String message) throws TechnicalException {
             this.object = object;
             this.message = message;
-            for (final Integer i : Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndexes()) {
-                Context.getDataOutputProvider().writeSuccessResult(i);
+            final DataIndex dataIndex = Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData());
+            for (int i = 0; i < dataIndex.size(); i++) {
+                Context.getDataOutputProvider().writeSuccessResult(dataIndex.getIndex(i));
             }
             O s = success();
             if (s != null) {
@@ -96,7 +98,7 @@ public abstract class Result {
         public Warning(O object, String message, boolean takeScreenshot, int nid) throws TechnicalException {
             this.object = object;
             try {
-                Context.getDataOutputProvider().writeWarningResult(Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndexes().get(nid),
+                Context.getDataOutputProvider().writeWarningResult(Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndex(nid),
                         Messages.getMessage(Messages.WARNING_MESSAGE_DEFAULT) + message);
             } catch (final TechnicalException e) {
                 logger.error(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE), e);
@@ -187,8 +189,9 @@ public abstract class Result {
         }
 
         public void fail() {
-            for (int i = 1; i <= Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndexes().size(); i++) {
-                final Integer line = Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndexes().get(i - 1);
+            final DataIndex dataIndex = Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData());
+            for (int i = 1; i <= dataIndex.size(); i++) {
+                final int line = dataIndex.getIndex(i - 1);
                 try {
                     if (i < this.nid) {
                         Context.getDataOutputProvider().writeWarningResult(line, Messages.getMessage(PARTIAL_SUCCESS_MESSAGE));
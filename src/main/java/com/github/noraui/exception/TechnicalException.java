@@ -27,6 +27,8 @@ public class TechnicalException extends Exception {
     public static final String TECHNICAL_ERROR_MESSAGE_ENCRYPT_EXCEPTION = "TECHNICAL_ERROR_MESSAGE_ENCRYPT_EXCEPTION";
     public static final String TECHNICAL_ERROR_MESSAGE_DECRYPT_EXCEPTION = "TECHNICAL_ERROR_MESSAGE_DECRYPT_EXCEPTION";
     public static final String TECHNICAL_ERROR_MESSAGE_DECRYPT_CONFIGURATION_EXCEPTION = "TECHNICAL_ERROR_MESSAGE_DECRYPT_CONFIGURATION_EXCEPTION";
+    public static final String TECHNICAL_ERROR_MESSAGE_WRONG_JSON_PATH = "TECHNICAL_ERROR_MESSAGE_WRONG_JSON_PATH";
+    public static final String TECHNICAL_ERROR_MESSAGE_WRONG_MODEL_REFERENCE = "TECHNICAL_ERROR_MESSAGE_WRONG_MODEL_REFERENCE";
     public static final String TECHNICAL_IO_EXCEPTION = "IOException {}";
 
     /**
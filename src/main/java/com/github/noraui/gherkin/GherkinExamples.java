@@ -0,0 +1,97 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.gherkin;
+
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Example table of a feature (lines between #DATA and #END), parsed once: each line is split in cells when the table is read. A table is up to date as long as the last
+ * modified time and the size of its feature file do not change.
+ */
+public final class GherkinExamples {
+
+    /**
+     * Table of a feature without #DATA ... #END block.
+     */
+    public static final GherkinExamples EMPTY = new GherkinExamples(Collections.<String> emptyList(), null, -1);
+
+    private final String[] lines;
+    private final String[][] cells;
+    private final List<String> columns;
+    private final FileTime lastModified;
+    private final long size;
+
+    /**
+     * @param lines
+     *            lines between #DATA and #END (header first).
+     * @param lastModified
+     *            last modified time of the feature file.
+     * @param size
+     *            size of the feature file.
+     */
+    GherkinExamples(List<String> lines, FileTime lastModified, long size) {
+        this.lines = lines.toArray(new String[lines.size()]);
+        this.cells = new String[this.lines.length][];
+        for (int i = 0; i < this.lines.length; i++) {
+            cells[i] = this.lines[i].split("\\|", -1);
+        }
+        final List<String> header = new ArrayList<>();
+        if (cells.length > 0) {
+            for (int i = 1; i < cells[0].length - 1; i++) {
+                header.add(cells[0][i]);
+            }
+        }
+        this.columns = Collections.unmodifiableList(header);
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    /**
+     * @return number of lines (header included).
+     */
+    public int size() {
+        return lines.length;
+    }
+
+    /**
+     * @return a copy of the lines (header first).
+     */
+    public String[] getLines() {
+        return lines.clone();
+    }
+
+    /**
+     * @param line
+     *            index of the line (0 is the header).
+     * @return cells of the line split on '|' (first cell is the indentation, last cell is empty). Do not modify it.
+     */
+    public String[] getCells(int line) {
+        return cells[line];
+    }
+
+    /**
+     * @return names of the columns of the header (id first).
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * @param fileLastModified
+     *            current last modified time of the feature file.
+     * @param fileSize
+     *            current size of the feature file.
+     * @return true if this table has been read from the current content of the feature file.
+     */
+    boolean isUpToDate(FileTime fileLastModified, long fileSize) {
+        return fileLastModified.equals(lastModified) && fileSize == size;
+    }
+
+}
@@ -6,24 +6,31 @@
  */
 package com.github.noraui.gherkin;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.noraui.data.DataPlan;
+import com.github.noraui.data.DataUtils;
+import com.github.noraui.data.ModelStore;
+import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.utils.Constants;
 import com.github.noraui.utils.Context;
+import com.github.noraui.utils.Messages;
 
 public class GherkinFactory {
 
@@ -32,8 +39,16 @@ public class GherkinFactory {
      */
     private static final Logger logger = LoggerFactory.getLogger(GherkinFactory.class);
 
+    private static final String GHERKIN_FACTORY_ERROR_ON_INJECTING_DATA = "GHERKIN_FACTORY_ERROR_ON_INJECTING_DATA";
     private static final String DATA = "#DATA";
     private static final String DATA_END = "#END";
+    private static final String DIGEST_ALGORITHM = "SHA-1";
+    private static final Charset CHARSET = Charset.forName(Constants.DEFAULT_ENDODING);
+
+    /**
+     * Parsed example tables by feature file.
+     */
+    private static final Map<Path, GherkinExamples> EXAMPLES = new ConcurrentHashMap<>();
 
     /**
      * Private constructor
@@ -42,61 +57,228 @@ public class GherkinFactory {
     }
 
     /**
+     * Replaces the lines between the header of #DATA and #END of a feature. The feature is copied line by line in a temporary file (lines before the table and from #END are
+     * copied as they are) and replaced only if its content changes, so an unchanged feature keeps its last modified time.
+     *
      * @param filename
      *            name of input Gherkin file.
      * @param lines
      *            is a table of data (line by line and without headers).
+     * @return true if the feature file has been written, false if its content is unchanged.
+     * @throws TechnicalException
+     *             if the feature file can not be read or written (it is then left as it was).
      */
-    public static void injectDataInGherkinExamples(String filename, List<String[]> lines) {
+    public static boolean injectDataInGherkinExamples(String filename, List<String[]> lines) throws TechnicalException {
+        if (lines.isEmpty()) {
+            return false;
+        }
+        final Path filePath = getFeaturePath(filename);
         try {
-            if (!lines.isEmpty()) {
-                Path filePath = getFeaturePath(filename);
-                String fileContent = new String(Files.readAllBytes(filePath), Charset.forName(Constants.DEFAULT_ENDODING));
-                StringBuilder examples = new StringBuilder();
-                examples.append("    ");
-                for (int j = 0; j < lines.size(); j++) {
-                    examples.append("|");
-                    examples.append(j + 1);
-                    for (String col : lines.get(j)) {
-                        examples.append("|");
-                        examples.append(col);
-                    }
-                    examples.append("|\n    ");
-                }
-
-                fileContent = fileContent.replaceAll("(" + DATA + "\r?\n.*\r?\n)[\\s\\S]*(" + DATA_END + ")", "$1" + examples.toString() + "$2");
+            return injectDataInGherkinExamples(filePath, lines);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new TechnicalException(Messages.format(Messages.getMessage(GHERKIN_FACTORY_ERROR_ON_INJECTING_DATA), filePath) + e.getMessage(), e);
+        }
+    }
 
-                try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filePath.toString()), Charset.forName(Constants.DEFAULT_ENDODING)));) {
-                    bw.write(fileContent);
+    /**
+     * @param filePath
+     *            the feature file.
+     * @param lines
+     *            is a table of data (line by line and without headers).
+     * @return true if the feature file has been written, false if its content is unchanged.
+     * @throws IOException
+     *             if the feature file can not be read or written.
+     * @throws NoSuchAlgorithmException
+     *             if the digest algorithm is not available.
+     */
+    static boolean injectDataInGherkinExamples(Path filePath, List<String[]> lines) throws IOException, NoSuchAlgorithmException {
+        final Path tmpPath = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        final MessageDigest before = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        final MessageDigest after = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        boolean injected = false;
+        try (BufferedReader br = Files.newBufferedReader(filePath, CHARSET); BufferedWriter bw = Files.newBufferedWriter(tmpPath, CHARSET)) {
+            final StringBuilder buffer = new StringBuilder();
+            String line;
+            // copy lines until #DATA and its header
+            while (!injected && (line = readLine(br, buffer, before)) != null) {
+                write(bw, after, line);
+                if (stripLineTerminator(line).endsWith(DATA) && (line = readLine(br, buffer, before)) != null) {
+                    write(bw, after, line);
+                    injected = true;
                 }
             }
+            // skip old examples until #END
+            boolean end = false;
+            while (injected && !end && (line = readLine(br, buffer, before)) != null) {
+                if (line.contains(DATA_END)) {
+                    for (int j = 0; j < lines.size(); j++) {
+                        write(bw, after, formatExample(j + 1, lines.get(j)));
+                    }
+                    write(bw, after, "    " + line.substring(line.indexOf(DATA_END)));
+                    end = true;
+                }
+            }
+            injected = end;
+            // copy lines after #END
+            while ((line = readLine(br, buffer, before)) != null) {
+                write(bw, after, line);
+            }
         } catch (IOException e) {
-            logger.error("error GherkinFactory.injectDataInGherkinExamples()", e);
+            Files.deleteIfExists(tmpPath);
+            throw e;
         }
+        if (!injected || MessageDigest.isEqual(before.digest(), after.digest())) {
+            Files.delete(tmpPath);
+            logger.debug("{} is unchanged", filePath);
+            return false;
+        }
+        DataUtils.moveAtomically(tmpPath, filePath);
+        EXAMPLES.remove(filePath);
+        return true;
+    }
+
+    /**
+     * @param filename
+     *            name of input Gherkin file.
+     * @return SHA-1 of the content of the feature file (hex), or null if the feature file does not exist.
+     * @throws TechnicalException
+     *             if the feature file can not be read.
+     */
+    public static String getFeatureFingerprint(String filename) throws TechnicalException {
+        final Path filePath = getFeaturePath(filename);
+        return Files.isRegularFile(filePath) ? DataUtils.fingerprint(filePath.toFile()) : null;
+    }
+
+    /**
+     * @param filename
+     *            name of input Gherkin file.
+     * @return the {@link ModelStore} of the scenario, beside its feature file.
+     */
+    public static Path getModelStorePath(String filename) {
+        return getFeaturePath(filename).resolveSibling(filename + ModelStore.EXTENSION);
+    }
+
+    /**
+     * @param filename
+     *            name of input Gherkin file.
+     * @return the {@link DataPlan} of the scenario, beside its feature file.
+     */
+    public static Path getDataPlanPath(String filename) {
+        return getFeaturePath(filename).resolveSibling(filename + DataPlan.EXTENSION);
     }
 
     public static int getNumberOfGherkinExamples(String filename) {
-        return getExamples(filename).length;
+        return getGherkinExamples(filename).size();
     }
 
     public static String[] getExamples(String filename) {
+        return getGherkinExamples(filename).getLines();
+    }
+
+    /**
+     * Gets the example table of a feature. The table is parsed once and read again only when the feature file changes (last modified time or size).
+     *
+     * @param filename
+     *            name of input Gherkin file.
+     * @return the example table (lines between #DATA and #END), {@link GherkinExamples#EMPTY} if there is none.
+     */
+    public static GherkinExamples getGherkinExamples(String filename) {
+        final Path filePath = getFeaturePath(filename);
         try {
-            Path filePath = getFeaturePath(filename);
-            String fileContent = new String(Files.readAllBytes(filePath), Charset.forName(Constants.DEFAULT_ENDODING));
-            Pattern pattern = Pattern.compile(DATA + "([\\s\\S]*)" + DATA_END);
-            Matcher matcher = pattern.matcher(fileContent);
-            String lines = "";
-            if (matcher.find() && matcher.groupCount() == 1) {
-                lines = matcher.group(0);
+            final FileTime lastModified = Files.getLastModifiedTime(filePath);
+            final long size = Files.size(filePath);
+            GherkinExamples examples = EXAMPLES.get(filePath);
+            if (examples == null || !examples.isUpToDate(lastModified, size)) {
+                examples = readExamples(filePath, lastModified, size);
+                EXAMPLES.put(filePath, examples);
             }
-            String[] examples = lines.split("\\n");
-            // Return lines - #DATA - #END
-            return examples.length > 2 ? Arrays.copyOfRange(examples, 1, examples.length - 1) : new String[] {};
-
+            return examples;
         } catch (IOException e) {
             logger.error("error GherkinFactory.getExamples()", e);
         }
-        return new String[] {};
+        return GherkinExamples.EMPTY;
+    }
+
+    /**
+     * Reads the lines between #DATA and #END, line by line.
+     *
+     * @param filePath
+     *            the feature file.
+     * @param lastModified
+     *            last modified time of the feature file.
+     * @param size
+     *            size of the feature file.
+     * @return the example table.
+     * @throws IOException
+     *             if the feature file can not be read.
+     */
+    static GherkinExamples readExamples(Path filePath, FileTime lastModified, long size) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(filePath, Charset.forName(Constants.DEFAULT_ENDODING))) {
+            String line = br.readLine();
+            while (line != null && !line.contains(DATA)) {
+                line = br.readLine();
+            }
+            while (line != null && (line = br.readLine()) != null) {
+                if (line.contains(DATA_END)) {
+                    return new GherkinExamples(lines, lastModified, size);
+                }
+                lines.add(line);
+            }
+        }
+        // no #DATA ... #END block
+        return new GherkinExamples(new ArrayList<String>(), lastModified, size);
+    }
+
+    private static String formatExample(int id, String[] columns) {
+        final StringBuilder example = new StringBuilder("    |").append(id);
+        for (final String col : columns) {
+            example.append('|').append(col);
+        }
+        return example.append("|\n").toString();
+    }
+
+    /**
+     * Reads a line with its line terminator.
+     *
+     * @param reader
+     *            the feature.
+     * @param buffer
+     *            a buffer reused from a line to the next one.
+     * @param digest
+     *            digest of the lines read.
+     * @return the line (with its line terminator) or null at the end of the feature.
+     * @throws IOException
+     *             if the feature can not be read.
+     */
+    private static String readLine(BufferedReader reader, StringBuilder buffer, MessageDigest digest) throws IOException {
+        buffer.setLength(0);
+        int c;
+        while ((c = reader.read()) != -1) {
+            buffer.append((char) c);
+            if (c == '\n') {
+                break;
+            }
+        }
+        if (buffer.length() == 0) {
+            return null;
+        }
+        final String line = buffer.toString();
+        digest.update(line.getBytes(CHARSET));
+        return line;
+    }
+
+    private static void write(BufferedWriter writer, MessageDigest digest, String line) throws IOException {
+        writer.write(line);
+        digest.update(line.getBytes(CHARSET));
+    }
+
+    private static String stripLineTerminator(String line) {
+        int end = line.length();
+        while (end > 0 && (line.charAt(end - 1) == '\n' || line.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return line.substring(0, end);
     }
 
     private static Path getFeaturePath(String filename) {
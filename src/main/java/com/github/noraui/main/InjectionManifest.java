@@ -0,0 +1,159 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.main;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.DataUtils;
+
+/**
+ * Fingerprints of the input data and of the feature file of each scenario at its last injection, with the time this injection took. A scenario whose data and feature file have
+ * the same fingerprints is not injected again. The manifest is read when it is created and written by {@link #save()}.
+ */
+final class InjectionManifest {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(InjectionManifest.class);
+
+    private static final String DATA = ".data";
+    private static final String FEATURE = ".feature";
+    private static final String TIME = ".time";
+
+    private final File file;
+    private final Properties entries = new Properties();
+    private boolean modified;
+    private int skipped;
+    private long savedTime;
+
+    /**
+     * @param file
+     *            the manifest file (it may not exist).
+     */
+    InjectionManifest(File file) {
+        this.file = file;
+        if (file.isFile()) {
+            try (InputStream in = new FileInputStream(file)) {
+                entries.load(in);
+            } catch (final IOException e) {
+                logger.warn("Injection manifest {} can not be read, all scenarios are injected", file, e);
+                entries.clear();
+            }
+        }
+    }
+
+    /**
+     * @param scenarioName
+     *            name of the scenario.
+     * @param dataFingerprint
+     *            fingerprint of the input data of the scenario (null if unknown).
+     * @param featureFingerprint
+     *            fingerprint of the feature file of the scenario (null if unknown).
+     * @return true if the scenario has been injected from the same data in the same feature file.
+     */
+    synchronized boolean isUpToDate(String scenarioName, String dataFingerprint, String featureFingerprint) {
+        return dataFingerprint != null && featureFingerprint != null && dataFingerprint.equals(entries.getProperty(scenarioName + DATA))
+                && featureFingerprint.equals(entries.getProperty(scenarioName + FEATURE));
+    }
+
+    /**
+     * Counts a skipped scenario.
+     *
+     * @param scenarioName
+     *            name of the scenario.
+     * @return time of its last injection (ms), saved by skipping it.
+     */
+    synchronized long skip(String scenarioName) {
+        long time;
+        try {
+            time = Long.parseLong(entries.getProperty(scenarioName + TIME, "0"));
+        } catch (final NumberFormatException e) {
+            time = 0;
+        }
+        skipped++;
+        savedTime += time;
+        return time;
+    }
+
+    /**
+     * Records an injection.
+     *
+     * @param scenarioName
+     *            name of the scenario.
+     * @param dataFingerprint
+     *            fingerprint of the injected data (null if unknown: the scenario will be injected again).
+     * @param featureFingerprint
+     *            fingerprint of the feature file after injection (null if unknown: the scenario will be injected again).
+     * @param time
+     *            time of the injection (ms).
+     */
+    synchronized void put(String scenarioName, String dataFingerprint, String featureFingerprint, long time) {
+        if (dataFingerprint == null || featureFingerprint == null) {
+            entries.remove(scenarioName + DATA);
+            entries.remove(scenarioName + FEATURE);
+            entries.remove(scenarioName + TIME);
+        } else {
+            entries.setProperty(scenarioName + DATA, dataFingerprint);
+            entries.setProperty(scenarioName + FEATURE, featureFingerprint);
+            entries.setProperty(scenarioName + TIME, String.valueOf(time));
+        }
+        modified = true;
+    }
+
+    /**
+     * @return number of skipped scenarios.
+     */
+    synchronized int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return sum of the last injection times of skipped scenarios (ms).
+     */
+    synchronized long getSavedTime() {
+        return savedTime;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Writes the manifest (through a temporary file) if an injection has been recorded.
+     */
+    synchronized void save() {
+        if (!modified) {
+            return;
+        }
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            logger.warn("Directory of injection manifest {} can not be created", file);
+            return;
+        }
+        final File tmp = new File(parent, file.getName() + ".tmp");
+        try {
+            try (OutputStream out = new FileOutputStream(tmp)) {
+                entries.store(out, "NoraUi injection manifest");
+            }
+            DataUtils.moveAtomically(tmp.toPath(), file.toPath());
+            modified = false;
+        } catch (final IOException e) {
+            logger.warn("Injection manifest {} can not be written", file, e);
+        }
+    }
+
+}
@@ -1,114 +1,287 @@
-/**
- * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
- * 
- * @author Nicolas HALLOUIN
- * @author Stéphane GRILLON
- */
-package com.github.noraui.main;
-
-import static com.github.noraui.utils.Constants.USER_DIR;
-
-import java.lang.reflect.Constructor;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.github.noraui.data.DataUtils;
-import com.github.noraui.exception.TechnicalException;
-import com.github.noraui.gherkin.GherkinFactory;
-import com.github.noraui.model.Model;
-import com.github.noraui.model.ModelList;
-import com.github.noraui.utils.Context;
-import com.github.noraui.utils.Messages;
-
-public class ScenarioInitiator {
-
-    /**
-     * Specific logger
-     */
-    private static final Logger logger = LoggerFactory.getLogger(ScenarioInitiator.class);
-
-    public static final String SCENARIO_INITIATOR_ERROR_EMPTY_FILE = "SCENARIO_INITIATOR_ERROR_EMPTY_FILE";
-    private static final String SCENARIO_INITIATOR_ERROR_UNABLE_TO_GET_TAGS = "SCENARIO_INITIATOR_ERROR_UNABLE_TO_GET_TAGS";
-    private static final String SCENARIO_INITIATOR_USAGE = "SCENARIO_INITIATOR_USAGE";
-    private static final String SCENARIO_INITIATOR_INJECT_WITHOUT_MODEL = "SCENARIO_INITIATOR_INJECT_WITHOUT_MODEL";
-    private static final String SCENARIO_INITIATOR_INJECT_WITH_MODEL = "SCENARIO_INITIATOR_INJECT_WITH_MODEL";
-    private static final String SCENARIO_INITIATOR_ERROR_ON_INJECTING_MODEL = "SCENARIO_INITIATOR_ERROR_ON_INJECTING_MODEL";
-
-    public void start(String[] args) {
-        logger.info("Working Directory is '{}'", System.getProperty(USER_DIR));
-        logger.info("ScenarioInitiator > start()");
-        if (args != null && args.length == 1 && !"@TOSPECIFY".equals(args[0])) {
-            logger.info("# {}", args[0]);
-            final String scenarioName = args[0];
-            processInjection(scenarioName);
-        } else {
-            logger.warn(Messages.getMessage(SCENARIO_INITIATOR_USAGE));
-            String cucumberOptions = System.getProperty("cucumber.options");
-            if (cucumberOptions != null && cucumberOptions.contains("--tags")) {
-                Matcher matcher = Pattern.compile(".*--tags '(.*)'.*").matcher(cucumberOptions);
-                if (matcher.find() && matcher.groupCount() > 0) {
-                    String tags = matcher.group(1).replace("not ", "").replace(")", "").replace("(", "").replace(" and ", " ").replace(" or ", " ").replace("@", "");
-                    for (final String s : tags.split(" ")) {
-                        if (!s.startsWith("~")) {
-                            processInjection(s);
-                        }
-                    }
-                }
-            } else {
-                logger.error(Messages.getMessage(SCENARIO_INITIATOR_ERROR_UNABLE_TO_GET_TAGS));
-            }
-        }
-    }
-
-    private static void processInjection(String scenarioName) {
-        try {
-            Context.getDataInputProvider().prepare(scenarioName);
-            final Class<Model> model = Context.getDataInputProvider().getModel(Context.getModelPackages());
-            if (model == null) {
-                logger.info(Messages.getMessage(SCENARIO_INITIATOR_INJECT_WITHOUT_MODEL), scenarioName);
-                injectWithoutModel(scenarioName);
-            } else {
-                logger.info(Messages.getMessage(SCENARIO_INITIATOR_INJECT_WITH_MODEL), scenarioName, model.getSimpleName());
-                injectWithModel(scenarioName, model);
-            }
-        } catch (final Exception e) {
-            logger.error("error ScenarioInitiator.processInjection()", e);
-        }
-    }
-
-    private static void injectWithoutModel(String scenarioName) throws TechnicalException {
-        final List<String[]> examples = new ArrayList<>();
-        String[] example;
-        for (int i = 1; (example = Context.getDataInputProvider().readLine(i, false)) != null; i++) {
-            examples.add(example);
-        }
-        GherkinFactory.injectDataInGherkinExamples(scenarioName, examples);
-    }
-
-    private static void injectWithModel(String scenarioName, Class<Model> model) throws TechnicalException {
-        try {
-            final String[] headers = Context.getDataInputProvider().readLine(0, false);
-            if (headers != null) {
-                final List<String[]> examples = new ArrayList<>();
-                final Constructor<Model> modelConstructor = DataUtils.getModelConstructor(model, headers);
-                final Map<String, ModelList> fusionedData = DataUtils.fusionProcessor(model, modelConstructor);
-                for (final Entry<String, ModelList> e : fusionedData.entrySet()) {
-                    examples.add(new String[] { e.getKey(), e.getValue().serialize() });
-                }
-                GherkinFactory.injectDataInGherkinExamples(scenarioName, examples);
-            } else {
-                logger.error(Messages.getMessage(SCENARIO_INITIATOR_ERROR_EMPTY_FILE));
-            }
-        } catch (final Exception te) {
-            throw new TechnicalException(Messages.getMessage(SCENARIO_INITIATOR_ERROR_ON_INJECTING_MODEL) + te.getMessage(), te);
-        }
-    }
-
-}
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ * 
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.main;
+
+import static com.github.noraui.utils.Constants.USER_DIR;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.DataFingerprintProvider;
+import com.github.noraui.data.DataInputProvider;
+import com.github.noraui.data.DataPlan;
+import com.github.noraui.data.ModelStore;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.gherkin.GherkinFactory;
+import com.github.noraui.model.Model;
+import com.github.noraui.model.ModelList;
+import com.github.noraui.utils.Context;
+import com.github.noraui.utils.Messages;
+
+public class ScenarioInitiator {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioInitiator.class);
+
+    public static final String SCENARIO_INITIATOR_ERROR_EMPTY_FILE = "SCENARIO_INITIATOR_ERROR_EMPTY_FILE";
+    private static final String SCENARIO_INITIATOR_ERROR_UNABLE_TO_GET_TAGS = "SCENARIO_INITIATOR_ERROR_UNABLE_TO_GET_TAGS";
+    private static final String SCENARIO_INITIATOR_USAGE = "SCENARIO_INITIATOR_USAGE";
+    private static final String SCENARIO_INITIATOR_INJECT_WITHOUT_MODEL = "SCENARIO_INITIATOR_INJECT_WITHOUT_MODEL";
+    private static final String SCENARIO_INITIATOR_INJECT_WITH_MODEL = "SCENARIO_INITIATOR_INJECT_WITH_MODEL";
+    private static final String SCENARIO_INITIATOR_ERROR_ON_INJECTING_MODEL = "SCENARIO_INITIATOR_ERROR_ON_INJECTING_MODEL";
+    private static final String SCENARIO_INITIATOR_ERROR_ON_INJECTING_SCENARIO = "SCENARIO_INITIATOR_ERROR_ON_INJECTING_SCENARIO";
+    private static final String SCENARIO_INITIATOR_INJECTION_SUMMARY = "SCENARIO_INITIATOR_INJECTION_SUMMARY";
+    private static final String SCENARIO_INITIATOR_SKIP_UNCHANGED = "SCENARIO_INITIATOR_SKIP_UNCHANGED";
+    private static final String SCENARIO_INITIATOR_TIME_SAVED = "SCENARIO_INITIATOR_TIME_SAVED";
+
+    /**
+     * Creates the input provider of each scenario injected in parallel (see {@link Context#newDataInputProvider()}).
+     */
+    private static final Callable<DataInputProvider> NEW_DATA_INPUT_PROVIDER = new Callable<DataInputProvider>() {
+
+        @Override
+        public DataInputProvider call() throws TechnicalException {
+            return Context.newDataInputProvider();
+        }
+    };
+
+    /**
+     * Fingerprints of the scenarios injected by previous runs.
+     */
+    private static InjectionManifest manifest;
+
+    public void start(String[] args) {
+        logger.info("Working Directory is '{}'", System.getProperty(USER_DIR));
+        logger.info("ScenarioInitiator > start()");
+        manifest = new InjectionManifest(Context.getInjectionManifest());
+        if (args != null && args.length == 1 && !"@TOSPECIFY".equals(args[0])) {
+            logger.info("# {}", args[0]);
+            final String scenarioName = args[0];
+            processInjection(scenarioName);
+        } else {
+            logger.warn(Messages.getMessage(SCENARIO_INITIATOR_USAGE));
+            String cucumberOptions = System.getProperty("cucumber.options");
+            if (cucumberOptions != null && cucumberOptions.contains("--tags")) {
+                Matcher matcher = Pattern.compile(".*--tags '(.*)'.*").matcher(cucumberOptions);
+                if (matcher.find() && matcher.groupCount() > 0) {
+                    String tags = matcher.group(1).replace("not ", "").replace(")", "").replace("(", "").replace(" and ", " ").replace(" or ", " ").replace("@", "");
+                    final List<String> scenarioNames = new ArrayList<>();
+                    for (final String s : tags.split(" ")) {
+                        if (!s.startsWith("~")) {
+                            scenarioNames.add(s);
+                        }
+                    }
+                    processInjections(scenarioNames, Context.getInjectionThreads(), NEW_DATA_INPUT_PROVIDER);
+                }
+            } else {
+                logger.error(Messages.getMessage(SCENARIO_INITIATOR_ERROR_UNABLE_TO_GET_TAGS));
+            }
+        }
+        if (manifest.getSkipped() > 0) {
+            logger.info(Messages.getMessage(SCENARIO_INITIATOR_TIME_SAVED), manifest.getSkipped(), manifest.getSavedTime(), manifest.getFile());
+        }
+        manifest.save();
+    }
+
+    private static void processInjection(String scenarioName) {
+        try {
+            processInjection(scenarioName, Context.getDataInputProvider());
+        } catch (final Exception e) {
+            logger.error("error ScenarioInitiator.processInjection()", e);
+        }
+    }
+
+    /**
+     * Injects several scenarios at the same time (at most threads scenarios), each scenario being read by its own input provider, closed once the scenario is injected. Errors
+     * are logged once all scenarios are processed, after a summary of injection times.
+     *
+     * @param scenarioNames
+     *            names of the scenarios.
+     * @param threads
+     *            max number of scenarios injected at the same time.
+     * @param dataInputProviders
+     *            creates the input provider of each scenario.
+     * @return errors by scenario (empty if scenarios are injected one after the other with the input provider of the context, each error being logged at once).
+     */
+    static Map<String, Throwable> processInjections(List<String> scenarioNames, int threads, final Callable<DataInputProvider> dataInputProviders) {
+        if (scenarioNames.size() < 2 || threads < 2) {
+            for (final String scenarioName : scenarioNames) {
+                processInjection(scenarioName);
+            }
+            return Collections.emptyMap();
+        }
+        final long start = System.currentTimeMillis();
+        final int poolSize = Math.min(threads, scenarioNames.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "noraui-injection-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final Map<String, Future<Long>> injections = new LinkedHashMap<>();
+        for (final String scenarioName : scenarioNames) {
+            injections.put(scenarioName, executor.submit(new Callable<Long>() {
+
+                @Override
+                public Long call() throws Exception {
+                    final long begin = System.currentTimeMillis();
+                    final DataInputProvider dataInputProvider = dataInputProviders.call();
+                    try {
+                        processInjection(scenarioName, dataInputProvider);
+                    } finally {
+                        close(dataInputProvider);
+                    }
+                    return System.currentTimeMillis() - begin;
+                }
+            }));
+        }
+        executor.shutdown();
+        final Map<String, Throwable> errors = new LinkedHashMap<>();
+        long injectionTime = 0;
+        for (final Entry<String, Future<Long>> injection : injections.entrySet()) {
+            try {
+                final long time = injection.getValue().get();
+                injectionTime += time;
+                logger.info("ScenarioInitiator > {} injected in {} ms", injection.getKey(), time);
+            } catch (final ExecutionException e) {
+                errors.put(injection.getKey(), e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                errors.put(injection.getKey(), e);
+            }
+        }
+        logger.info(Messages.getMessage(SCENARIO_INITIATOR_INJECTION_SUMMARY), scenarioNames.size() - errors.size(), scenarioNames.size(), System.currentTimeMillis() - start,
+                injectionTime, poolSize);
+        for (final Entry<String, Throwable> error : errors.entrySet()) {
+            logger.error(Messages.getMessage(SCENARIO_INITIATOR_ERROR_ON_INJECTING_SCENARIO), error.getKey(), error.getValue());
+        }
+        return errors;
+    }
+
+    /**
+     * Releases what an input provider of one scenario keeps open (connection of a cursor, temporary file, ...).
+     *
+     * @param dataInputProvider
+     *            input provider of an injected scenario.
+     */
+    private static void close(DataInputProvider dataInputProvider) {
+        if (dataInputProvider instanceof Closeable) {
+            try {
+                ((Closeable) dataInputProvider).close();
+            } catch (final IOException e) {
+                logger.warn("Input provider {} can not be closed", dataInputProvider, e);
+            }
+        }
+    }
+
+    /**
+     * Injects the data of a scenario in its feature file, unless the data (and model) and the feature file are unchanged since the last injection recorded in the manifest.
+     *
+     * @param scenarioName
+     *            name of the scenario.
+     * @param dataInputProvider
+     *            input provider of the scenario.
+     * @throws TechnicalException
+     *             if data can not be read or injected (the data plan and the manifest entry of the scenario are then left as they were).
+     */
+    private static void processInjection(String scenarioName, DataInputProvider dataInputProvider) throws TechnicalException {
+        dataInputProvider.prepare(scenarioName);
+        final Class<Model> model = dataInputProvider.getModel(Context.getModelPackages());
+        final boolean modelStoreUsed = model != null && Context.isModelStoreUsed();
+        String dataFingerprint = dataInputProvider instanceof DataFingerprintProvider ? ((DataFingerprintProvider) dataInputProvider).getDataFingerprint() : null;
+        if (dataFingerprint != null && model != null) {
+            dataFingerprint += "/" + model.getName() + (modelStoreUsed ? "/" + Context.INJECTION_MODELS_STORE : "");
+        }
+        if ((!modelStoreUsed || Files.isRegularFile(GherkinFactory.getModelStorePath(scenarioName)))
+                && manifest.isUpToDate(scenarioName, dataFingerprint, GherkinFactory.getFeatureFingerprint(scenarioName))) {
+            logger.info(Messages.getMessage(SCENARIO_INITIATOR_SKIP_UNCHANGED), scenarioName, manifest.skip(scenarioName));
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final DataPlan plan;
+        if (model == null) {
+            logger.info(Messages.getMessage(SCENARIO_INITIATOR_INJECT_WITHOUT_MODEL), scenarioName);
+            plan = DataPlan.build(dataInputProvider, null);
+            injectWithoutModel(scenarioName, dataInputProvider);
+        } else {
+            logger.info(Messages.getMessage(SCENARIO_INITIATOR_INJECT_WITH_MODEL), scenarioName, model.getSimpleName());
+            plan = injectWithModel(scenarioName, model, dataInputProvider);
+        }
+        final String featureFingerprint = GherkinFactory.getFeatureFingerprint(scenarioName);
+        if (featureFingerprint != null) {
+            try {
+                plan.save(GherkinFactory.getDataPlanPath(scenarioName), featureFingerprint);
+            } catch (final IOException e) {
+                logger.warn("Data plan of {} can not be saved, its index will be built at runtime", scenarioName, e);
+            }
+        }
+        // the feature has been written or is unchanged: a failed injection throws before being recorded
+        manifest.put(scenarioName, dataFingerprint, featureFingerprint, System.currentTimeMillis() - start);
+    }
+
+    private static void injectWithoutModel(String scenarioName, DataInputProvider dataInputProvider) throws TechnicalException {
+        final List<String[]> examples = new ArrayList<>();
+        String[] example;
+        for (int i = 1; (example = dataInputProvider.readLine(i, false)) != null; i++) {
+            examples.add(example);
+        }
+        GherkinFactory.injectDataInGherkinExamples(scenarioName, examples);
+    }
+
+    private static DataPlan injectWithModel(String scenarioName, Class<Model> model, DataInputProvider dataInputProvider) throws TechnicalException {
+        try {
+            final DataPlan plan = DataPlan.build(dataInputProvider, model);
+            final Map<String, ModelList> fusionedData = plan.getModelLists();
+            if (!fusionedData.isEmpty()) {
+                final List<String[]> examples = new ArrayList<>();
+                if (Context.isModelStoreUsed()) {
+                    final List<String> serializedLists = new ArrayList<>();
+                    for (final Entry<String, ModelList> e : fusionedData.entrySet()) {
+                        serializedLists.add(e.getValue().serialize());
+                        examples.add(new String[] { e.getKey(), ModelStore.reference(scenarioName, serializedLists.size()) });
+                    }
+                    ModelStore.write(GherkinFactory.getModelStorePath(scenarioName), serializedLists);
+                } else {
+                    for (final Entry<String, ModelList> e : fusionedData.entrySet()) {
+                        examples.add(new String[] { e.getKey(), e.getValue().serialize() });
+                    }
+                }
+                GherkinFactory.injectDataInGherkinExamples(scenarioName, examples);
+            }
+            return plan;
+        } catch (final Exception te) {
+            throw new TechnicalException(Messages.getMessage(SCENARIO_INITIATOR_ERROR_ON_INJECTING_MODEL) + te.getMessage(), te);
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Settings of the response cache of {@link HttpService} GETs (http.cache.* properties). Only urls matching one of the patterns are cached.
+ */
+public final class HttpCachePolicy {
+
+    /**
+     * Default max number of responses kept in memory.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * Freshness given by the Cache-Control header of each response (a response without max-age is revalidated at each GET).
+     */
+    public static final long SERVER_MAX_AGE = -1;
+
+    /**
+     * No url is cached.
+     */
+    public static final HttpCachePolicy DISABLED = new HttpCachePolicy(Collections.<Pattern> emptyList(), DEFAULT_MAX_ENTRIES, SERVER_MAX_AGE, null);
+
+    private final List<Pattern> urlPatterns;
+    private final int maxEntries;
+    private final long maxAge;
+    private final File directory;
+
+    /**
+     * @param urlPatterns
+     *            patterns of cached urls (matched against the full url).
+     * @param maxEntries
+     *            max number of responses kept in memory (least recently used responses are evicted).
+     * @param maxAge
+     *            delay in milliseconds during which a response is served without calling the server, or {@link #SERVER_MAX_AGE}.
+     * @param directory
+     *            directory where responses are persisted, or null to keep responses in memory only.
+     */
+    public HttpCachePolicy(List<Pattern> urlPatterns, int maxEntries, long maxAge, File directory) {
+        this.urlPatterns = urlPatterns;
+        this.maxEntries = maxEntries;
+        this.maxAge = maxAge;
+        this.directory = directory;
+    }
+
+    /**
+     * @param urlPatterns
+     *            regular expressions of http.cache.urls property and of the urls of http.cache.pages property.
+     * @param maxEntries
+     *            value of http.cache.maxEntries property (may be null or empty).
+     * @param maxAge
+     *            value of http.cache.maxAge property (may be null or empty).
+     * @param directory
+     *            value of http.cache.directory property (may be null or empty).
+     * @return the policy, {@link #DISABLED} if there is no pattern.
+     */
+    public static HttpCachePolicy valueOf(List<String> urlPatterns, String maxEntries, String maxAge, String directory) {
+        final List<Pattern> patterns = new ArrayList<>();
+        for (final String urlPattern : urlPatterns) {
+            if (isSet(urlPattern)) {
+                patterns.add(Pattern.compile(urlPattern.trim()));
+            }
+        }
+        if (patterns.isEmpty()) {
+            return DISABLED;
+        }
+        return new HttpCachePolicy(patterns, isSet(maxEntries) ? Integer.parseInt(maxEntries.trim()) : DEFAULT_MAX_ENTRIES,
+                isSet(maxAge) ? Long.parseLong(maxAge.trim()) : SERVER_MAX_AGE, isSet(directory) ? new File(directory.trim()) : null);
+    }
+
+    /**
+     * @param url
+     *            full url.
+     * @return true if responses of this url are cached.
+     */
+    public boolean isCached(String url) {
+        for (final Pattern pattern : urlPatterns) {
+            if (pattern.matcher(url).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEnabled() {
+        return !urlPatterns.isEmpty();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "HttpCachePolicy [urlPatterns=" + urlPatterns + ", maxEntries=" + maxEntries + ", maxAge=" + maxAge + ", directory=" + directory + "]";
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !"".equals(value.trim());
+    }
+
+}
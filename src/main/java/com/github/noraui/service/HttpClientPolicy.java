@@ -0,0 +1,113 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service;
+
+/**
+ * Settings of the HTTP clients of {@link HttpService} (http.pool.* and http.*Timeout properties).
+ */
+public final class HttpClientPolicy {
+
+    /**
+     * Default policy: 5 idle connections kept alive 5 minutes, 10 seconds connect and read timeouts.
+     */
+    public static final HttpClientPolicy DEFAULT = new HttpClientPolicy(5, 300000, 10000, 10000);
+
+    private final int maxIdleConnections;
+    private final long keepAlive;
+    private final long connectTimeout;
+    private final long readTimeout;
+
+    /**
+     * @param maxIdleConnections
+     *            max number of idle connections kept open.
+     * @param keepAlive
+     *            idle connections older than this delay in milliseconds are closed.
+     * @param connectTimeout
+     *            connect timeout in milliseconds (0 for no timeout).
+     * @param readTimeout
+     *            read and write timeout in milliseconds (0 for no timeout).
+     */
+    public HttpClientPolicy(int maxIdleConnections, long keepAlive, long connectTimeout, long readTimeout) {
+        this.maxIdleConnections = maxIdleConnections;
+        this.keepAlive = keepAlive;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @param maxIdleConnections
+     *            value of http.pool.maxIdle property (may be null or empty).
+     * @param keepAlive
+     *            value of http.pool.keepAlive property (may be null or empty).
+     * @param connectTimeout
+     *            value of http.connectTimeout property (may be null or empty).
+     * @param readTimeout
+     *            value of http.readTimeout property (may be null or empty).
+     * @return the policy, with {@link #DEFAULT} values for each property not set.
+     */
+    public static HttpClientPolicy valueOf(String maxIdleConnections, String keepAlive, String connectTimeout, String readTimeout) {
+        return new HttpClientPolicy(isSet(maxIdleConnections) ? Integer.parseInt(maxIdleConnections.trim()) : DEFAULT.maxIdleConnections,
+                isSet(keepAlive) ? Long.parseLong(keepAlive.trim()) : DEFAULT.keepAlive, isSet(connectTimeout) ? Long.parseLong(connectTimeout.trim()) : DEFAULT.connectTimeout,
+                isSet(readTimeout) ? Long.parseLong(readTimeout.trim()) : DEFAULT.readTimeout);
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public long getKeepAlive() {
+        return keepAlive;
+    }
+
+    public long getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public long getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HttpClientPolicy)) {
+            return false;
+        }
+        final HttpClientPolicy other = (HttpClientPolicy) obj;
+        return maxIdleConnections == other.maxIdleConnections && keepAlive == other.keepAlive && connectTimeout == other.connectTimeout && readTimeout == other.readTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int result = maxIdleConnections;
+        result = 31 * result + (int) (keepAlive ^ (keepAlive >>> 32));
+        result = 31 * result + (int) (connectTimeout ^ (connectTimeout >>> 32));
+        return 31 * result + (int) (readTimeout ^ (readTimeout >>> 32));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "HttpClientPolicy [maxIdleConnections=" + maxIdleConnections + ", keepAlive=" + keepAlive + ", connectTimeout=" + connectTimeout + ", readTimeout=" + readTimeout
+                + "]";
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !"".equals(value.trim());
+    }
+
+}
@@ -6,6 +6,8 @@
  */
 package com.github.noraui.service;
 
+import java.util.List;
+
 import com.github.noraui.exception.HttpServiceException;
 import com.github.noraui.exception.TechnicalException;
 
@@ -48,4 +50,71 @@ public interface HttpService {
      */
     String post(String url, String json) throws HttpServiceException, TechnicalException;
 
+    /**
+     * GET of one value of a JSON response: the value is extracted while the response is read, without building the whole response.
+     *
+     * @param url
+     *            is full url
+     * @param jsonPath
+     *            path of the value in the response (field names and array indexes, for example $.items[0].login).
+     * @return the value (a json string if it is an object or an array), or null if the path is not found.
+     * @throws HttpServiceException
+     *             is thrown if you have a technical error (IOException on GET) in NoraUi.
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     *             Exception with {@value com.github.noraui.exception.TechnicalException#TECHNICAL_ERROR_MESSAGE_WRONG_JSON_PATH} message if jsonPath is malformed.
+     */
+    String getJsonValue(String url, String jsonPath) throws HttpServiceException, TechnicalException;
+
+    /**
+     * Gets the validator (ETag, else Last-Modified) of a resource without downloading it: a conditional GET with the validators of its cached response (see
+     * {@link HttpCachePolicy}), or a HEAD if it is not cached.
+     *
+     * @param url
+     *            is full url
+     * @return "ETag {etag}" or "Last-Modified {date}", or null if the server does not give any validator.
+     * @throws HttpServiceException
+     *             is thrown if you have a technical error (IOException on GET or HEAD) in NoraUi.
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     */
+    String getValidator(String url) throws HttpServiceException, TechnicalException;
+
+    /**
+     * Non-blocking GET: the request is sent by the HTTP client dispatcher.
+     *
+     * @param url
+     *            is full url
+     * @param callback
+     *            receives the json string, or an {@link HttpServiceException} (IOException on GET).
+     */
+    void getAsync(String url, HttpServiceCallback callback);
+
+    /**
+     * Non-blocking POST: the request is sent by the HTTP client dispatcher.
+     *
+     * @param url
+     *            is full url
+     * @param json
+     *            body string
+     * @param callback
+     *            receives the json string, or an {@link HttpServiceException} (IOException on POST).
+     */
+    void postAsync(String url, String json, HttpServiceCallback callback);
+
+    /**
+     * GETs several urls concurrently.
+     *
+     * @param urls
+     *            full urls
+     * @param maxConcurrency
+     *            max number of requests in progress at the same time.
+     * @return json strings, in the order of urls.
+     * @throws HttpServiceException
+     *             is thrown if you have a technical error (IOException on one GET) in NoraUi.
+     * @throws TechnicalException
+     *             is thrown if current thread is interrupted while waiting for responses.
+     */
+    List<String> getAll(List<String> urls, int maxConcurrency) throws HttpServiceException, TechnicalException;
+
 }
@@ -0,0 +1,28 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service;
+
+import com.github.noraui.exception.HttpServiceException;
+
+/**
+ * Receives the result of a non-blocking call of {@link HttpService}. Methods are called by a thread of the HTTP client dispatcher: they must not block.
+ */
+public interface HttpServiceCallback {
+
+    /**
+     * @param json
+     *            json string of the response.
+     */
+    void onResponse(String json);
+
+    /**
+     * @param e
+     *            error of the call (IOException on GET or POST).
+     */
+    void onFailure(HttpServiceException e);
+
+}
@@ -0,0 +1,186 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service.impl;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.service.HttpClientPolicy;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+
+/**
+ * Shared {@link OkHttpClient}s of {@link HttpServiceImpl}: one client per proxy configuration, all clients share one connection pool and one dispatcher so connections (and TLS
+ * sessions) are reused from a request to the next one. Clients are built again when the {@link HttpClientPolicy} changes.
+ */
+public final class HttpClientPool implements HttpClientPoolMXBean {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(HttpClientPool.class);
+
+    private static final String DIRECT = "DIRECT";
+
+    private static final HttpClientPool INSTANCE = new HttpClientPool();
+
+    private final AtomicLong reusedConnections = new AtomicLong();
+    private final AtomicLong newConnections = new AtomicLong();
+    private final Map<String, OkHttpClient> clients = new HashMap<>();
+    private HttpClientPolicy policy;
+    private OkHttpClient baseClient;
+
+    private HttpClientPool() {
+        final MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName name = new ObjectName("com.github.noraui.service:type=HttpClientPool");
+            if (!mbs.isRegistered(name)) {
+                mbs.registerMBean(this, name);
+            }
+        } catch (final JMException e) {
+            logger.warn("HTTP client pool metrics can not be registered in JMX", e);
+        }
+    }
+
+    public static HttpClientPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param httpProxy
+     *            HTTP proxy (host:port) or null/empty for a direct connection.
+     * @param clientPolicy
+     *            pool and timeouts settings.
+     * @return the shared client of this proxy configuration.
+     */
+    public synchronized OkHttpClient getClient(String httpProxy, HttpClientPolicy clientPolicy) {
+        if (baseClient == null || !clientPolicy.equals(policy)) {
+            if (baseClient != null) {
+                baseClient.connectionPool().evictAll();
+            }
+            clients.clear();
+            policy = clientPolicy;
+            baseClient = new OkHttpClient.Builder().connectionPool(new ConnectionPool(policy.getMaxIdleConnections(), policy.getKeepAlive(), TimeUnit.MILLISECONDS))
+                    .connectTimeout(policy.getConnectTimeout(), TimeUnit.MILLISECONDS).readTimeout(policy.getReadTimeout(), TimeUnit.MILLISECONDS)
+                    .writeTimeout(policy.getReadTimeout(), TimeUnit.MILLISECONDS).eventListenerFactory(new EventListener.Factory() {
+                        @Override
+                        public EventListener create(Call call) {
+                            return new ConnectionReuseListener();
+                        }
+                    }).build();
+            logger.debug("HTTP clients built with {}", policy);
+        }
+        final String key = httpProxy == null || "".equals(httpProxy) ? DIRECT : httpProxy;
+        OkHttpClient client = clients.get(key);
+        if (client == null) {
+            if (DIRECT.equals(key)) {
+                client = baseClient;
+            } else {
+                final String[] p = httpProxy.split(":");
+                client = baseClient.newBuilder().proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(p[0], Integer.parseInt(p[1])))).build();
+            }
+            clients.put(key, client);
+        }
+        return client;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getReusedConnections() {
+        return reusedConnections.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getNewConnections() {
+        return newConnections.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getOpenConnections() {
+        return baseClient == null ? 0 : baseClient.connectionPool().connectionCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getIdleConnections() {
+        return baseClient == null ? 0 : baseClient.connectionPool().idleConnectionCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getClients() {
+        return clients.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "HttpClientPool [reused=" + getReusedConnections() + ", new=" + getNewConnections() + ", open=" + getOpenConnections() + ", idle=" + getIdleConnections()
+                + ", clients=" + getClients() + "]";
+    }
+
+    /**
+     * Counts, for each connection acquired by a call, whether it has been opened by this call (pool miss) or taken from the pool (pool hit).
+     */
+    private class ConnectionReuseListener extends EventListener {
+
+        private boolean connecting;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connecting = true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            if (connecting) {
+                newConnections.incrementAndGet();
+            } else {
+                reusedConnections.incrementAndGet();
+            }
+            connecting = false;
+        }
+
+    }
+
+}
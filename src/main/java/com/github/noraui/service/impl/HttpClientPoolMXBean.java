@@ -0,0 +1,39 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service.impl;
+
+/**
+ * Metrics of the {@link HttpClientPool}, exposed through JMX (com.github.noraui.service:type=HttpClientPool).
+ */
+public interface HttpClientPoolMXBean {
+
+    /**
+     * @return number of requests sent on a connection already open (pool hit).
+     */
+    long getReusedConnections();
+
+    /**
+     * @return number of connections opened (pool miss).
+     */
+    long getNewConnections();
+
+    /**
+     * @return number of open connections (idle and in use).
+     */
+    int getOpenConnections();
+
+    /**
+     * @return number of idle connections.
+     */
+    int getIdleConnections();
+
+    /**
+     * @return number of HTTP clients (one per proxy configuration).
+     */
+    int getClients();
+
+}
@@ -0,0 +1,336 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.noraui.data.DataUtils;
+import com.github.noraui.service.HttpCachePolicy;
+
+import okhttp3.CacheControl;
+import okhttp3.Response;
+import okio.ByteString;
+
+/**
+ * Responses of the GETs of {@link HttpServiceImpl} on urls of the {@link HttpCachePolicy}. Responses are kept in memory (least recently used responses are evicted) and, if the
+ * policy has a directory, persisted in this directory so they survive from a run to the next one. A fresh response is served without calling the server; a stale response is
+ * revalidated with If-None-Match/If-Modified-Since and served again on 304 Not Modified.
+ */
+public final class HttpResponseCache implements HttpResponseCacheMXBean {
+
+    /**
+     * Specific logger
+     */
+    private static final Logger logger = LoggerFactory.getLogger(HttpResponseCache.class);
+
+    private static final HttpResponseCache INSTANCE = new HttpResponseCache();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private int maxEntries = HttpCachePolicy.DEFAULT_MAX_ENTRIES;
+    private final Map<String, CachedResponse> responses = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private HttpResponseCache() {
+        final MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        try {
+            final ObjectName name = new ObjectName("com.github.noraui.service:type=HttpResponseCache");
+            if (!mbs.isRegistered(name)) {
+                mbs.registerMBean(this, name);
+            }
+        } catch (final JMException e) {
+            logger.warn("HTTP response cache metrics can not be registered in JMX", e);
+        }
+    }
+
+    public static HttpResponseCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param url
+     *            full url.
+     * @param policy
+     *            cache settings.
+     * @return the cached response of this url (fresh or stale), or null.
+     */
+    public synchronized CachedResponse get(String url, HttpCachePolicy policy) {
+        maxEntries = policy.getMaxEntries();
+        CachedResponse cached = responses.get(url);
+        if (cached == null && policy.getDirectory() != null) {
+            cached = read(getFile(policy.getDirectory(), url), url);
+            if (cached != null) {
+                responses.put(url, cached);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Counts a response served without calling the server.
+     *
+     * @param url
+     *            full url.
+     */
+    public void hit(String url) {
+        hits.incrementAndGet();
+        logger.debug("Response of [{}] served from cache", url);
+    }
+
+    /**
+     * Counts a response downloaded from the server and caches it if possible.
+     *
+     * @param url
+     *            full url.
+     * @param response
+     *            the response (its body has been read).
+     * @param body
+     *            body of the response.
+     * @param policy
+     *            cache settings.
+     */
+    public void put(String url, Response response, String body, HttpCachePolicy policy) {
+        misses.incrementAndGet();
+        if (!response.isSuccessful() || response.cacheControl().noStore()) {
+            return;
+        }
+        final CachedResponse cached = new CachedResponse(body, response.header("ETag"), response.header("Last-Modified"), getExpiresAt(response, policy));
+        if (cached.getEtag() == null && cached.getLastModified() == null && !cached.isFresh()) {
+            return;
+        }
+        store(url, cached, policy);
+    }
+
+    /**
+     * Counts a 304 Not Modified and extends the freshness of the cached response.
+     *
+     * @param url
+     *            full url.
+     * @param cached
+     *            the revalidated response.
+     * @param response
+     *            the 304 response.
+     * @param policy
+     *            cache settings.
+     * @return the cached body.
+     */
+    public String revalidate(String url, CachedResponse cached, Response response, HttpCachePolicy policy) {
+        revalidations.incrementAndGet();
+        logger.debug("Response of [{}] not modified", url);
+        store(url, new CachedResponse(cached.getBody(), cached.getEtag(), cached.getLastModified(), getExpiresAt(response, policy)), policy);
+        return cached.getBody();
+    }
+
+    /**
+     * Removes all responses kept in memory (persisted responses are kept).
+     */
+    public synchronized void clear() {
+        responses.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getHitRatio() {
+        final long served = getHits() + getRevalidations();
+        final long total = served + getMisses();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized int getEntries() {
+        return responses.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "HttpResponseCache [hits=" + getHits() + ", revalidations=" + getRevalidations() + ", misses=" + getMisses() + ", hitRatio=" + getHitRatio() + ", entries="
+                + getEntries() + "]";
+    }
+
+    private synchronized void store(String url, CachedResponse cached, HttpCachePolicy policy) {
+        maxEntries = policy.getMaxEntries();
+        responses.put(url, cached);
+        if (policy.getDirectory() != null) {
+            write(getFile(policy.getDirectory(), url), url, cached);
+        }
+    }
+
+    private static long getExpiresAt(Response response, HttpCachePolicy policy) {
+        final long now = System.currentTimeMillis();
+        if (policy.getMaxAge() != HttpCachePolicy.SERVER_MAX_AGE) {
+            return now + policy.getMaxAge();
+        }
+        final CacheControl cacheControl = response.cacheControl();
+        return cacheControl.noCache() || cacheControl.maxAgeSeconds() < 0 ? now : now + cacheControl.maxAgeSeconds() * 1000L;
+    }
+
+    private static File getFile(File directory, String url) {
+        return new File(directory, ByteString.encodeUtf8(url).sha1().hex());
+    }
+
+    private static CachedResponse read(File file, String url) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (!url.equals(in.readUTF())) {
+                return null;
+            }
+            final String etag = in.readUTF();
+            final String lastModified = in.readUTF();
+            final long expiresAt = in.readLong();
+            final byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CachedResponse(new String(body, StandardCharsets.UTF_8), "".equals(etag) ? null : etag, "".equals(lastModified) ? null : lastModified, expiresAt);
+        } catch (final IOException e) {
+            logger.warn("Cached response of [{}] can not be read from {}", url, file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the entry in a temporary file then moves it on the entry file, so that a crash or a concurrent reader never sees a truncated entry.
+     */
+    private static void write(File file, String url, CachedResponse cached) {
+        if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+            logger.warn("Cache directory {} can not be created", file.getParentFile());
+            return;
+        }
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp.toFile())))) {
+                out.writeUTF(url);
+                out.writeUTF(cached.getEtag() == null ? "" : cached.getEtag());
+                out.writeUTF(cached.getLastModified() == null ? "" : cached.getLastModified());
+                out.writeLong(cached.getExpiresAt());
+                final byte[] body = cached.getBody().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            DataUtils.moveAtomically(temp, file.toPath());
+        } catch (final IOException e) {
+            logger.warn("Response of [{}] can not be persisted in {}", url, file, e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp != null) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (final IOException e) {
+                logger.debug("{} can not be deleted", temp, e);
+            }
+        }
+    }
+
+    /**
+     * Body and validators of a cached response.
+     */
+    public static final class CachedResponse {
+
+        private final String body;
+        private final String etag;
+        private final String lastModified;
+        private final long expiresAt;
+
+        CachedResponse(String body, String etag, String lastModified, long expiresAt) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * @return true if the response can be served without calling the server.
+         */
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service.impl;
+
+/**
+ * Metrics of the {@link HttpResponseCache}, exposed through JMX (com.github.noraui.service:type=HttpResponseCache).
+ */
+public interface HttpResponseCacheMXBean {
+
+    /**
+     * @return number of GETs answered from the cache without calling the server.
+     */
+    long getHits();
+
+    /**
+     * @return number of GETs answered from the cache after a 304 Not Modified.
+     */
+    long getRevalidations();
+
+    /**
+     * @return number of GETs of a cached url downloaded from the server.
+     */
+    long getMisses();
+
+    /**
+     * @return (hits + revalidations) / GETs of cached urls, 0 if there is none.
+     */
+    double getHitRatio();
+
+    /**
+     * @return number of responses kept in memory.
+     */
+    int getEntries();
+
+}
@@ -7,20 +7,30 @@
 package com.github.noraui.service.impl;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Proxy;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.noraui.exception.HttpServiceException;
 import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.service.HttpCachePolicy;
 import com.github.noraui.service.HttpService;
+import com.github.noraui.service.HttpServiceCallback;
 import com.github.noraui.utils.Context;
 import com.github.noraui.utils.Messages;
+import com.google.gson.JsonParseException;
 import com.google.inject.Singleton;
 
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -35,18 +45,26 @@ public class HttpServiceImpl implements HttpService {
      */
     private static final Logger logger = LoggerFactory.getLogger(HttpServiceImpl.class);
 
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    /**
+     * Max number of characters of a response written in logs.
+     */
+    private static final int MAX_LOGGED_LENGTH = 1000;
+
     /**
      * {@inheritDoc}
      */
     @Override
     public String get(String url) throws HttpServiceException, TechnicalException {
         logger.debug("HttpService GET on url: {}", url);
-        Response response;
-        try {
-            response = getClient().newCall(new Request.Builder().url(new URL(url)).header("Accept", "application/json").build()).execute();
+        final HttpCachePolicy cachePolicy = Context.getHttpCachePolicy();
+        if (cachePolicy.isCached(url)) {
+            return getCached(url, cachePolicy);
+        }
+        try (Response response = getClient().newCall(new Request.Builder().url(new URL(url)).header("Accept", "application/json").build()).execute()) {
             String jsonResponse = response.body().string();
-            logger.info("JSON response is: {}", jsonResponse);
-            response.close();
+            logger.info("JSON response is: {}", abbreviate(jsonResponse));
             return jsonResponse;
         } catch (IOException e) {
             throw new HttpServiceException(Messages.format(Messages.getMessage(HttpServiceException.HTTP_SERVICE_ERROR_MESSAGE)), e);
@@ -67,12 +85,176 @@ public class HttpServiceImpl implements HttpService {
     @Override
     public String post(String url, String json) throws HttpServiceException, TechnicalException {
         logger.debug("HttpService POST on url: {}", url);
-        Response response;
+        try (Response response = getClient().newCall(new Request.Builder().url(url).post(RequestBody.create(JSON, json)).build()).execute()) {
+            String jsonResponse = response.body().string();
+            logger.info("JSON response is: {}", abbreviate(jsonResponse));
+            return jsonResponse;
+        } catch (IOException e) {
+            throw new HttpServiceException(Messages.format(Messages.getMessage(HttpServiceException.HTTP_SERVICE_ERROR_MESSAGE)), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getJsonValue(String url, String jsonPath) throws HttpServiceException, TechnicalException {
+        logger.debug("HttpService GET of {} on url: {}", jsonPath, url);
+        final JsonPathExtractor extractor = new JsonPathExtractor(jsonPath);
+        try {
+            final String value;
+            final HttpCachePolicy cachePolicy = Context.getHttpCachePolicy();
+            if (cachePolicy.isCached(url)) {
+                value = extractor.extract(new StringReader(getCached(url, cachePolicy)));
+            } else {
+                try (Response response = getClient().newCall(new Request.Builder().url(new URL(url)).header("Accept", "application/json").build()).execute()) {
+                    value = extractor.extract(response.body().charStream());
+                }
+            }
+            logger.info("JSON value of {} is: {}", extractor, abbreviate(value));
+            return value;
+        } catch (IOException | JsonParseException e) {
+            throw new HttpServiceException(Messages.format(Messages.getMessage(HttpServiceException.HTTP_SERVICE_ERROR_MESSAGE)), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValidator(String url) throws HttpServiceException, TechnicalException {
+        return getValidator(url, Context.getHttpCachePolicy());
+    }
+
+    /**
+     * @param url
+     *            is full url
+     * @param cachePolicy
+     *            cache settings.
+     * @return "ETag {etag}" or "Last-Modified {date}", or null if the server does not give any validator.
+     * @throws HttpServiceException
+     *             is thrown if you have a technical error (IOException on GET or HEAD) in NoraUi.
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     */
+    String getValidator(String url, HttpCachePolicy cachePolicy) throws HttpServiceException, TechnicalException {
+        logger.debug("HttpService validator of url: {}", url);
+        if (cachePolicy.isCached(url)) {
+            final HttpResponseCache cache = HttpResponseCache.getInstance();
+            final HttpResponseCache.CachedResponse cached = cache.get(url, cachePolicy);
+            if (cached != null && getValidator(cached.getEtag(), cached.getLastModified()) != null) {
+                // the body is downloaded (and cached for next GET) only if it has changed
+                getCached(url, cachePolicy);
+                final HttpResponseCache.CachedResponse current = cache.get(url, cachePolicy);
+                return current == null ? null : getValidator(current.getEtag(), current.getLastModified());
+            }
+        }
+        try (Response response = getClient().newCall(new Request.Builder().url(new URL(url)).head().build()).execute()) {
+            return response.isSuccessful() ? getValidator(response.header("ETag"), response.header("Last-Modified")) : null;
+        } catch (IOException e) {
+            throw new HttpServiceException(Messages.format(Messages.getMessage(HttpServiceException.HTTP_SERVICE_ERROR_MESSAGE)), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void getAsync(String url, HttpServiceCallback callback) {
+        logger.debug("HttpService async GET on url: {}", url);
         try {
-            response = getClient().newCall(new Request.Builder().url(url).post(RequestBody.create(MediaType.parse("application/json"), json)).build()).execute();
+            getClient().newCall(new Request.Builder().url(new URL(url)).header("Accept", "application/json").build()).enqueue(new ResponseCallback(callback));
+        } catch (IOException e) {
+            callback.onFailure(new HttpServiceException(Messages.getMessage(HttpServiceException.HTTP_SERVICE_ERROR_MESSAGE), e));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void postAsync(String url, String json, HttpServiceCallback callback) {
+        logger.debug("HttpService async POST on url: {}", url);
+        getClient().newCall(new Request.Builder().url(url).post(RequestBody.create(JSON, json)).build()).enqueue(new ResponseCallback(callback));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getAll(List<String> urls, int maxConcurrency) throws HttpServiceException, TechnicalException {
+        final Semaphore permits = new Semaphore(Math.max(1, maxConcurrency));
+        final String[] responses = new String[urls.size()];
+        final AtomicReference<HttpServiceException> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(urls.size());
+        try {
+            for (int i = 0; i < responses.length && failure.get() == null; i++) {
+                permits.acquire();
+                final int index = i;
+                getAsync(urls.get(i), new HttpServiceCallback() {
+
+                    @Override
+                    public void onResponse(String json) {
+                        responses[index] = json;
+                        permits.release();
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(HttpServiceException e) {
+                        failure.compareAndSet(null, e);
+                        permits.release();
+                        done.countDown();
+                    }
+                });
+            }
+            if (failure.get() == null) {
+                done.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + e.getMessage(), e);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return Arrays.asList(responses);
+    }
+
+    /**
+     * GET through the {@link HttpResponseCache}: a fresh cached response is served without calling the server, a stale one is revalidated with a conditional GET.
+     *
+     * @param url
+     *            is full url
+     * @param cachePolicy
+     *            cache settings.
+     * @return json string
+     * @throws HttpServiceException
+     *             is thrown if you have a technical error (IOException on GET) in NoraUi.
+     * @throws TechnicalException
+     *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
+     */
+    String getCached(String url, HttpCachePolicy cachePolicy) throws HttpServiceException, TechnicalException {
+        final HttpResponseCache cache = HttpResponseCache.getInstance();
+        final HttpResponseCache.CachedResponse cached = cache.get(url, cachePolicy);
+        if (cached != null && cached.isFresh()) {
+            cache.hit(url);
+            return cached.getBody();
+        }
+        final Request.Builder request = new Request.Builder().url(url).header("Accept", "application/json");
+        if (cached != null && cached.getEtag() != null) {
+            request.header("If-None-Match", cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            request.header("If-Modified-Since", cached.getLastModified());
+        }
+        try (Response response = getClient().newCall(request.build()).execute()) {
+            if (cached != null && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return cache.revalidate(url, cached, response, cachePolicy);
+            }
             String jsonResponse = response.body().string();
-            logger.info("JSON response is: {}", jsonResponse);
-            response.close();
+            logger.info("JSON response is: {}", abbreviate(jsonResponse));
+            cache.put(url, response, jsonResponse, cachePolicy);
             return jsonResponse;
         } catch (IOException e) {
             throw new HttpServiceException(Messages.format(Messages.getMessage(HttpServiceException.HTTP_SERVICE_ERROR_MESSAGE)), e);
@@ -80,18 +262,74 @@ public class HttpServiceImpl implements HttpService {
     }
 
     /**
-     * @return
+     * @param etag
+     *            ETag header (may be null).
+     * @param lastModified
+     *            Last-Modified header (may be null).
+     * @return the strongest validator, or null if there is none.
+     */
+    private static String getValidator(String etag, String lastModified) {
+        if (etag != null) {
+            return "ETag " + etag;
+        }
+        return lastModified == null ? null : "Last-Modified " + lastModified;
+    }
+
+    /**
+     * @param json
+     *            a response.
+     * @return the response, cut after {@link #MAX_LOGGED_LENGTH} characters.
+     */
+    static String abbreviate(String json) {
+        if (json == null || json.length() <= MAX_LOGGED_LENGTH) {
+            return json;
+        }
+        return json.substring(0, MAX_LOGGED_LENGTH) + "... (" + json.length() + " characters)";
+    }
+
+    /**
+     * @return the shared client of current proxy configuration (see {@link HttpClientPool}).
      */
     private OkHttpClient getClient() {
-        OkHttpClient client;
         org.openqa.selenium.Proxy proxy = Context.getProxy();
-        if (proxy != null && proxy.getHttpProxy() != null && !"".equals(proxy.getHttpProxy())) {
-            String[] p = proxy.getHttpProxy().split(":");
-            client = new OkHttpClient.Builder().proxy(new Proxy(Proxy.Type.HTTP, new InetSocketAddress(p[0], Integer.parseInt(p[1])))).build();
-        } else {
-            client = new OkHttpClient.Builder().build();
+        return HttpClientPool.getInstance().getClient(proxy != null ? proxy.getHttpProxy() : null, Context.getHttpClientPolicy());
+    }
+
+    /**
+     * Gives the body of the response of an asynchronous call to a {@link HttpServiceCallback}.
+     */
+    private static class ResponseCallback implements Callback {
+
+        private final HttpServiceCallback callback;
+
+        ResponseCallback(HttpServiceCallback callback) {
+            this.callback = callback;
         }
-        return client;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onFailure(Call call, IOException e) {
+            callback.onFailure(new HttpServiceException(Messages.getMessage(HttpServiceException.HTTP_SERVICE_ERROR_MESSAGE), e));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onResponse(Call call, Response response) {
+            final String jsonResponse;
+            try (Response r = response) {
+                jsonResponse = r.body().string();
+            } catch (IOException e) {
+                onFailure(call, e);
+                return;
+            }
+            logger.info("JSON response is: {}", abbreviate(jsonResponse));
+            callback.onResponse(jsonResponse);
+        }
+
     }
 
 }
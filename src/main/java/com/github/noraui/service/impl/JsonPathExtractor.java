@@ -0,0 +1,118 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.utils.Messages;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Extracts one value of a JSON document while it is read: fields and array items outside of the path are skipped without being built, and reading stops once the value is
+ * found. Paths are made of field names and array indexes, for example $.items[0].login or items[0].login.
+ */
+final class JsonPathExtractor {
+
+    private static final Pattern STEP = Pattern.compile("\\.?([^.\\[\\]]+)|\\[(\\d+)\\]");
+
+    private final String path;
+
+    /**
+     * Field names (String) and array indexes (Integer).
+     */
+    private final List<Object> steps = new ArrayList<>();
+
+    /**
+     * @param path
+     *            JSON path of the value.
+     * @throws TechnicalException
+     *             if the path is empty or malformed.
+     */
+    JsonPathExtractor(String path) throws TechnicalException {
+        this.path = path;
+        final String p = path == null ? "" : path.trim().replaceFirst("^\\$", "");
+        final Matcher matcher = STEP.matcher(p);
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            steps.add(matcher.group(1) != null ? matcher.group(1) : (Object) Integer.valueOf(matcher.group(2)));
+            end = matcher.end();
+        }
+        if (steps.isEmpty() || end != p.length()) {
+            throw new TechnicalException(Messages.format(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE_WRONG_JSON_PATH), path));
+        }
+    }
+
+    /**
+     * @param json
+     *            the JSON document (not closed).
+     * @return the value as a string (a JSON string if it is an object or an array), or null if the path is not found or the value is null.
+     * @throws IOException
+     *             if the document can not be read or is not JSON.
+     */
+    String extract(Reader json) throws IOException {
+        final JsonReader reader = new JsonReader(json);
+        for (final Object step : steps) {
+            if (!moveTo(reader, step)) {
+                return null;
+            }
+        }
+        final JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+            return new JsonParser().parse(reader).toString();
+        } else if (token == JsonToken.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
+        } else if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private static boolean moveTo(JsonReader reader, Object step) throws IOException {
+        if (step instanceof Integer) {
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                return false;
+            }
+            reader.beginArray();
+            for (int i = 0; i < (Integer) step; i++) {
+                if (!reader.hasNext()) {
+                    return false;
+                }
+                reader.skipValue();
+            }
+            return reader.hasNext();
+        }
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            return false;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (step.equals(reader.nextName())) {
+                return true;
+            }
+            reader.skipValue();
+        }
+        return false;
+    }
+
+}
@@ -9,18 +9,20 @@ package com.github.noraui.utils;
 import static com.github.noraui.utils.Constants.DATA_IN;
 import static com.github.noraui.utils.Constants.DATA_OUT;
 import static com.github.noraui.utils.Constants.SCENARIO_FILE;
+import static com.github.noraui.utils.Constants.USER_DIR;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 import org.ini4j.Ini;
 import org.ini4j.InvalidFileFormatException;
@@ -38,14 +40,20 @@ import com.github.noraui.browser.Auth;
 import com.github.noraui.browser.DriverFactory;
 import com.github.noraui.browser.WindowManager;
 import com.github.noraui.browser.steps.BrowserSteps;
-import com.github.noraui.data.DataIndex;
+import com.github.noraui.data.BufferedDataOutputProvider;
+import com.github.noraui.data.CommonDataProvider;
 import com.github.noraui.data.DataInputProvider;
 import com.github.noraui.data.DataOutputProvider;
+import com.github.noraui.data.DataPlan;
 import com.github.noraui.data.DataProvider;
-import com.github.noraui.data.DataUtils;
+import com.github.noraui.data.WriteBehindPolicy;
 import com.github.noraui.data.console.OutputConsoleDataProvider;
 import com.github.noraui.data.csv.CsvDataProvider;
+import com.github.noraui.data.csv.MappedCsvDataProvider;
+import com.github.noraui.data.db.ConnectionPool;
+import com.github.noraui.data.db.ConnectionPoolPolicy;
 import com.github.noraui.data.db.DBDataProvider;
+import com.github.noraui.data.db.OutputDBDataProvider;
 import com.github.noraui.data.excel.InputExcelDataProvider;
 import com.github.noraui.data.excel.OutputExcelDataProvider;
 import com.github.noraui.data.gherkin.InputGherkinDataProvider;
@@ -53,10 +61,11 @@ import com.github.noraui.data.rest.RestDataProvider;
 import com.github.noraui.exception.Callbacks;
 import com.github.noraui.exception.Callbacks.Callback;
 import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.gherkin.GherkinFactory;
 import com.github.noraui.gherkin.ScenarioRegistry;
 import com.github.noraui.main.ScenarioInitiator;
-import com.github.noraui.model.Model;
-import com.github.noraui.model.ModelList;
+import com.github.noraui.service.HttpCachePolicy;
+import com.github.noraui.service.HttpClientPolicy;
 
 import cucumber.api.Scenario;
 
@@ -85,6 +94,33 @@ public class Context {
     public static final String BROWSER_KEY = "browser";
     public static final String MODEL_PACKAGES = "model.packages";
     public static final String SELECTORS_VERSION = "selectors.version";
+    public static final String DATA_OUT_FLUSH_WRITES = "dataProvider.out.flush.writes";
+    public static final String DATA_OUT_FLUSH_DELAY = "dataProvider.out.flush.delay";
+    public static final String DB_POOL_SIZE = "dataProvider.db.pool.size";
+    public static final String DB_POOL_MAX_WAIT = "dataProvider.db.pool.maxWait";
+    public static final String DB_POOL_IDLE_TIMEOUT = "dataProvider.db.pool.idleTimeout";
+    public static final String DB_POOL_VALIDATION_TIMEOUT = "dataProvider.db.pool.validationTimeout";
+    public static final String DB_SPILL_THRESHOLD = "dataProvider.db.spill.threshold";
+    public static final String DB_STREAMING = "dataProvider.db.streaming";
+    public static final String DB_FETCH_SIZE = "dataProvider.db.fetchSize";
+    public static final String DB_RESULTS_TABLE = "dataProvider.db.results.table";
+    public static final String REST_BULK = "dataProvider.rest.bulk";
+    public static final String HTTP_POOL_MAX_IDLE = "http.pool.maxIdle";
+    public static final String HTTP_POOL_KEEP_ALIVE = "http.pool.keepAlive";
+    public static final String HTTP_CONNECT_TIMEOUT = "http.connectTimeout";
+    public static final String HTTP_READ_TIMEOUT = "http.readTimeout";
+    public static final String HTTP_CACHE_URLS = "http.cache.urls";
+    public static final String HTTP_CACHE_PAGES = "http.cache.pages";
+    public static final String HTTP_CACHE_MAX_ENTRIES = "http.cache.maxEntries";
+    public static final String HTTP_CACHE_MAX_AGE = "http.cache.maxAge";
+    public static final String HTTP_CACHE_DIRECTORY = "http.cache.directory";
+    public static final String INJECTION_THREADS = "injection.threads";
+    public static final int DEFAULT_INJECTION_THREADS = 4;
+    public static final String INJECTION_MANIFEST = "injection.manifest";
+    public static final String DEFAULT_INJECTION_MANIFEST = "target/injection.manifest";
+    public static final String INJECTION_MODELS = "injection.models";
+    public static final String INJECTION_MODELS_INLINE = "inline";
+    public static final String INJECTION_MODELS_STORE = "store";
 
     /**
      * DEMO
@@ -133,6 +169,7 @@ public class Context {
     private static final String CONTEXT_ERROR_WHEN_PLUGING_DATA_PROVIDER = "CONTEXT_ERROR_WHEN_PLUGING_DATA_PROVIDER";
     private static Properties scenariosProperties = null;
     private static Properties webdriversProperties = null;
+    private static boolean flushOnShutdownRegistered = false;
 
     /**
      * Static context instance.
@@ -220,6 +257,16 @@ public class Context {
      */
     private Proxy proxy;
 
+    /**
+     * Pool and timeouts settings of HTTP clients.
+     */
+    private HttpClientPolicy httpClientPolicy;
+
+    /**
+     * Response cache settings of HTTP GETs (built at first GET, when urls of pages are known).
+     */
+    private HttpCachePolicy httpCachePolicy;
+
     /**
      * Current locale
      */
@@ -323,6 +370,11 @@ public class Context {
         // set list of model packages
         modelPackages = getProperty(MODEL_PACKAGES, applicationProperties);
 
+        // HTTP clients configuration (used by REST data provider)
+        httpClientPolicy = HttpClientPolicy.valueOf(applicationProperties.getProperty(HTTP_POOL_MAX_IDLE), applicationProperties.getProperty(HTTP_POOL_KEEP_ALIVE),
+                applicationProperties.getProperty(HTTP_CONNECT_TIMEOUT), applicationProperties.getProperty(HTTP_READ_TIMEOUT));
+        httpCachePolicy = null;
+
         plugDataProvider(applicationProperties);
 
         // Paths configuration
@@ -573,6 +625,28 @@ public class Context {
         return getInstance().dataInputProvider;
     }
 
+    /**
+     * Creates a new input provider from the configuration of current input provider (DB providers share the pool of connections of current one), so that several scenarios can
+     * be read at the same time.
+     *
+     * @return a new input provider, not prepared (to close once its scenario is read if it is {@link java.io.Closeable}).
+     * @throws TechnicalException
+     *             if the provider can not be created.
+     */
+    public static DataInputProvider newDataInputProvider() throws TechnicalException {
+        final Context context = getInstance();
+        try {
+            final DataInputProvider provider = context.createDataInputProvider(context.applicationProperties,
+                    context.dataInputProvider instanceof DBDataProvider ? ((DBDataProvider) context.dataInputProvider).getConnectionPool() : null);
+            provider.setDataInPath(context.resourcesPath + DATA_IN);
+            return provider;
+        } catch (final TechnicalException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new TechnicalException(Messages.getMessage(CONTEXT_ERROR_WHEN_PLUGING_DATA_PROVIDER), e);
+        }
+    }
+
     public static void setDataInputProvider(DataInputProvider dataInputProvider) {
         getInstance().dataInputProvider = dataInputProvider;
     }
@@ -585,6 +659,20 @@ public class Context {
         getInstance().dataOutputProvider = dataOutputProvider;
     }
 
+    /**
+     * Writes all pending results of DataOutputProvider (if it is a {@link BufferedDataOutputProvider}).
+     */
+    public static void flushDataOutputProvider() {
+        final DataOutputProvider provider = getInstance().dataOutputProvider;
+        if (provider instanceof BufferedDataOutputProvider) {
+            try {
+                ((BufferedDataOutputProvider) provider).flush();
+            } catch (final TechnicalException e) {
+                logger.error(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE), e);
+            }
+        }
+    }
+
     /**
      * @param loader
      *            is class loader.
@@ -707,6 +795,84 @@ public class Context {
         return getInstance().proxy;
     }
 
+    /**
+     * @return pool and timeouts settings of HTTP clients ({@link HttpClientPolicy#DEFAULT} if environment is not initialized).
+     */
+    public static HttpClientPolicy getHttpClientPolicy() {
+        final HttpClientPolicy policy = getInstance().httpClientPolicy;
+        return policy != null ? policy : HttpClientPolicy.DEFAULT;
+    }
+
+    /**
+     * @return response cache settings of HTTP GETs: urls matching a regular expression of http.cache.urls or starting with the url of a page of http.cache.pages
+     *         ({@link HttpCachePolicy#DISABLED} if environment is not initialized).
+     */
+    public static HttpCachePolicy getHttpCachePolicy() {
+        final Context context = getInstance();
+        synchronized (context) {
+            if (context.applicationProperties == null) {
+                return HttpCachePolicy.DISABLED;
+            }
+            if (context.httpCachePolicy == null) {
+                final List<String> urlPatterns = new ArrayList<>();
+                final String urls = context.applicationProperties.getProperty(HTTP_CACHE_URLS);
+                if (urls != null) {
+                    urlPatterns.addAll(Arrays.asList(urls.split(",")));
+                }
+                final String pages = context.applicationProperties.getProperty(HTTP_CACHE_PAGES);
+                if (pages != null && !"".equals(pages.trim())) {
+                    for (final String pageKey : pages.split(",")) {
+                        final String url = getUrlByPagekey(pageKey.trim());
+                        if (url != null) {
+                            urlPatterns.add(Pattern.quote(url) + ".*");
+                        } else {
+                            logger.warn("Page {} of {} is unknown, its responses are not cached", pageKey.trim(), HTTP_CACHE_PAGES);
+                        }
+                    }
+                }
+                context.httpCachePolicy = HttpCachePolicy.valueOf(urlPatterns, context.applicationProperties.getProperty(HTTP_CACHE_MAX_ENTRIES),
+                        context.applicationProperties.getProperty(HTTP_CACHE_MAX_AGE), context.applicationProperties.getProperty(HTTP_CACHE_DIRECTORY));
+                logger.debug("HTTP responses cached with {}", context.httpCachePolicy);
+            }
+            return context.httpCachePolicy;
+        }
+    }
+
+    /**
+     * @return max number of scenarios injected at the same time by {@link ScenarioInitiator} (injection.threads property, {@link #DEFAULT_INJECTION_THREADS} if empty). With a DB
+     *         input provider, it is kept below the size of the pool of connections: a scenario read through a cursor keeps a connection and borrows another one to count its rows.
+     */
+    public static int getInjectionThreads() {
+        final Context context = getInstance();
+        final Properties properties = context.applicationProperties;
+        final String value = properties == null ? null : properties.getProperty(INJECTION_THREADS);
+        int threads = value != null && !"".equals(value.trim()) ? Math.max(1, Integer.parseInt(value.trim())) : DEFAULT_INJECTION_THREADS;
+        if (context.dataInputProvider instanceof DBDataProvider) {
+            threads = Math.max(1, Math.min(threads, ((DBDataProvider) context.dataInputProvider).getConnectionPool().getMaxConnections() - 1));
+        }
+        return threads;
+    }
+
+    /**
+     * @return manifest of the fingerprints of injected scenarios (injection.manifest property, {@link #DEFAULT_INJECTION_MANIFEST} if empty), relative to working directory.
+     */
+    public static File getInjectionManifest() {
+        final Properties properties = getInstance().applicationProperties;
+        final String manifest = properties == null ? null : properties.getProperty(INJECTION_MANIFEST);
+        final File file = new File(manifest != null && !"".equals(manifest.trim()) ? manifest.trim() : DEFAULT_INJECTION_MANIFEST);
+        return file.isAbsolute() ? file : new File(System.getProperty(USER_DIR), file.getPath());
+    }
+
+    /**
+     * @return true if serialized models are written in a {@link com.github.noraui.data.ModelStore} beside the feature file and only referenced in its examples (injection.models
+     *         property set to {@value #INJECTION_MODELS_STORE}), false if they are inlined in examples ({@value #INJECTION_MODELS_INLINE}, default).
+     */
+    public static boolean isModelStoreUsed() {
+        final Properties properties = getInstance().applicationProperties;
+        final String models = properties == null ? null : properties.getProperty(INJECTION_MODELS);
+        return models != null && INJECTION_MODELS_STORE.equalsIgnoreCase(models.trim());
+    }
+
     public static Locale getLocale() {
         return getInstance().currentLocale;
     }
@@ -784,7 +950,8 @@ public class Context {
     }
 
     /**
-     * init all Data index (by model).
+     * init all Data index (by model). The index is loaded from the {@link DataPlan} saved by {@link ScenarioInitiator} if the feature file has not changed since its
+     * injection, else input data are read (and fused by model) again.
      * 
      * @param scenarioName
      *            name of scenario.
@@ -792,36 +959,38 @@ public class Context {
      *             is thrown if you have a technical error (format, configuration, datas, ...) in NoraUi.
      */
     private static void initDataId(String scenarioName) throws TechnicalException {
-        final List<DataIndex> indexData = new ArrayList<>();
         try {
-            Context.getDataInputProvider().prepare(scenarioName);
-            final Class<Model> model = Context.getDataInputProvider().getModel(Context.getModelPackages());
-            if (model != null) {
-                final String[] headers = Context.getDataInputProvider().readLine(0, false);
-                if (headers != null) {
-                    final Constructor<Model> modelConstructor = DataUtils.getModelConstructor(model, headers);
-                    final Map<String, ModelList> fusionedData = DataUtils.fusionProcessor(model, modelConstructor);
-                    int dataIndex = 0;
-                    for (final Entry<String, ModelList> e : fusionedData.entrySet()) {
-                        dataIndex++;
-                        indexData.add(new DataIndex(dataIndex, e.getValue().getIds()));
-                    }
-                } else {
-                    logger.error(Messages.getMessage(ScenarioInitiator.SCENARIO_INITIATOR_ERROR_EMPTY_FILE));
-                }
+            final DataInputProvider dataInputProvider = Context.getDataInputProvider();
+            dataInputProvider.prepare(scenarioName);
+            DataPlan plan = DataPlan.load(GherkinFactory.getDataPlanPath(scenarioName), GherkinFactory.getFeatureFingerprint(scenarioName));
+            if (plan == null) {
+                plan = DataPlan.build(dataInputProvider, dataInputProvider.getModel(Context.getModelPackages()));
+            }
+            if (dataInputProvider instanceof CommonDataProvider) {
+                ((CommonDataProvider) dataInputProvider).setIndexData(plan.getDataIndexes());
             } else {
-                for (int i = 1; i < Context.getDataInputProvider().getNbLines(); i++) {
-                    final List<Integer> index = new ArrayList<>();
-                    index.add(i);
-                    indexData.add(new DataIndex(i, index));
-                }
+                dataInputProvider.setIndexData(plan.getDataIndexes().toList());
             }
-            Context.getDataInputProvider().setIndexData(indexData);
         } catch (final Exception te) {
             throw new TechnicalException(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE) + te.getMessage(), te);
         }
     }
 
+    /**
+     * Registers (once) a JVM shutdown hook writing all pending results of DataOutputProvider.
+     */
+    private static synchronized void registerFlushOnShutdown() {
+        if (!flushOnShutdownRegistered) {
+            Runtime.getRuntime().addShutdownHook(new Thread("noraui-flush-data-output-provider") {
+                @Override
+                public void run() {
+                    flushDataOutputProvider();
+                }
+            });
+            flushOnShutdownRegistered = true;
+        }
+    }
+
     /**
      * initialize Locale (fr, en).
      */
@@ -845,38 +1014,34 @@ public class Context {
      */
     private void plugDataProvider(Properties applicationProperties) {
         try {
-            final String dataIn = getProperty("dataProvider.in.type", applicationProperties);
             final String dataOut = getProperty("dataProvider.out.type", applicationProperties);
 
             // plug input provider
-            if (DataProvider.type.EXCEL.toString().equals(dataIn)) {
-                dataInputProvider = new InputExcelDataProvider();
-            } else if (DataProvider.type.CSV.toString().equals(dataIn)) {
-                dataInputProvider = new CsvDataProvider();
-            } else if (DataProvider.type.DB.toString().equals(dataIn)) {
-                dataInputProvider = new DBDataProvider(getProperty("dataProvider.db.type", applicationProperties), getProperty("dataProvider.db.user", applicationProperties),
-                        getProperty("dataProvider.db.password", applicationProperties), getProperty("dataProvider.db.hostname", applicationProperties),
-                        getProperty("dataProvider.db.port", applicationProperties), getProperty("dataProvider.db.name", applicationProperties));
-            } else if (DataProvider.type.REST.toString().equals(dataIn)) {
-                dataInputProvider = new RestDataProvider(getProperty("dataProvider.rest.type", applicationProperties), getProperty("dataProvider.rest.hostname", applicationProperties),
-                        getProperty("dataProvider.rest.port", applicationProperties));
-            } else if (DataProvider.type.GHERKIN.toString().equals(dataIn)) {
-                dataInputProvider = new InputGherkinDataProvider();
-            } else {
-                dataInputProvider = (DataInputProvider) Class.forName(dataIn).getConstructor().newInstance();
-            }
+            dataInputProvider = createDataInputProvider(applicationProperties, null);
 
             // plug output provider
             if (DataProvider.type.EXCEL.toString().equals(dataOut)) {
                 dataOutputProvider = new OutputExcelDataProvider();
             } else if (DataProvider.type.CSV.toString().equals(dataOut)) {
                 if (dataInputProvider instanceof CsvDataProvider) {
+                    if (dataInputProvider instanceof MappedCsvDataProvider) {
+                        logger.warn("Input file is mapped but CSV output keeps the whole output file in memory, use another dataProvider.out.type to keep heap usage flat");
+                    }
                     dataOutputProvider = (CsvDataProvider) dataInputProvider;
                 } else {
                     dataOutputProvider = new CsvDataProvider();
                 }
             } else if (DataProvider.type.DB.toString().equals(dataOut)) {
-                // TODO DBDataProvider not implemented for outputDataProvider
+                if (dataInputProvider instanceof DBDataProvider) {
+                    dataOutputProvider = new OutputDBDataProvider(((DBDataProvider) dataInputProvider).getConnectionPool(), applicationProperties.getProperty(DB_RESULTS_TABLE));
+                } else {
+                    dataOutputProvider = new OutputDBDataProvider(getProperty("dataProvider.db.type", applicationProperties), getProperty("dataProvider.db.user", applicationProperties),
+                            getProperty("dataProvider.db.password", applicationProperties), getProperty("dataProvider.db.hostname", applicationProperties),
+                            getProperty("dataProvider.db.port", applicationProperties), getProperty("dataProvider.db.name", applicationProperties),
+                            ConnectionPoolPolicy.valueOf(applicationProperties.getProperty(DB_POOL_SIZE), applicationProperties.getProperty(DB_POOL_MAX_WAIT),
+                                    applicationProperties.getProperty(DB_POOL_IDLE_TIMEOUT), applicationProperties.getProperty(DB_POOL_VALIDATION_TIMEOUT)),
+                            applicationProperties.getProperty(DB_RESULTS_TABLE));
+                }
             } else if (DataProvider.type.REST.toString().equals(dataOut)) {
                 if (dataInputProvider instanceof RestDataProvider) {
                     dataOutputProvider = (RestDataProvider) dataInputProvider;
@@ -893,9 +1058,64 @@ public class Context {
                     dataOutputProvider = (DataOutputProvider) Class.forName(dataOut).getConstructor().newInstance();
                 }
             }
+
+            // write-behind configuration of output provider
+            if (dataOutputProvider instanceof BufferedDataOutputProvider) {
+                ((BufferedDataOutputProvider) dataOutputProvider)
+                        .setWriteBehindPolicy(WriteBehindPolicy.valueOf(applicationProperties.getProperty(DATA_OUT_FLUSH_WRITES), applicationProperties.getProperty(DATA_OUT_FLUSH_DELAY)));
+                registerFlushOnShutdown();
+            }
         } catch (final Exception e) {
             logger.error(Messages.getMessage(CONTEXT_ERROR_WHEN_PLUGING_DATA_PROVIDER), e);
         }
     }
 
+    /**
+     * Creates an input provider of dataProvider.in.type.
+     *
+     * @param applicationProperties
+     *            configuration of the provider.
+     * @param connectionPool
+     *            pool of connections to share with a DB provider, or null to create a new pool.
+     * @return a new input provider.
+     * @throws Exception
+     *             if the provider can not be created.
+     */
+    private DataInputProvider createDataInputProvider(Properties applicationProperties, ConnectionPool connectionPool) throws Exception {
+        final String dataIn = getProperty("dataProvider.in.type", applicationProperties);
+        final DataInputProvider provider;
+        if (DataProvider.type.EXCEL.toString().equals(dataIn)) {
+            provider = new InputExcelDataProvider();
+        } else if (DataProvider.type.CSV.toString().equals(dataIn)) {
+            provider = new CsvDataProvider();
+        } else if (DataProvider.type.DB.toString().equals(dataIn)) {
+            final DBDataProvider dbDataProvider = connectionPool != null ? new DBDataProvider(connectionPool)
+                    : new DBDataProvider(getProperty("dataProvider.db.type", applicationProperties), getProperty("dataProvider.db.user", applicationProperties),
+                            getProperty("dataProvider.db.password", applicationProperties), getProperty("dataProvider.db.hostname", applicationProperties),
+                            getProperty("dataProvider.db.port", applicationProperties), getProperty("dataProvider.db.name", applicationProperties),
+                            ConnectionPoolPolicy.valueOf(applicationProperties.getProperty(DB_POOL_SIZE), applicationProperties.getProperty(DB_POOL_MAX_WAIT),
+                                    applicationProperties.getProperty(DB_POOL_IDLE_TIMEOUT), applicationProperties.getProperty(DB_POOL_VALIDATION_TIMEOUT)));
+            final String spillThreshold = applicationProperties.getProperty(DB_SPILL_THRESHOLD);
+            if (spillThreshold != null && !"".equals(spillThreshold.trim())) {
+                dbDataProvider.setSpillThreshold(Integer.parseInt(spillThreshold.trim()));
+            }
+            final String fetchSize = applicationProperties.getProperty(DB_FETCH_SIZE);
+            if (fetchSize != null && !"".equals(fetchSize.trim())) {
+                dbDataProvider.setFetchSize(Integer.parseInt(fetchSize.trim()));
+            }
+            dbDataProvider.setStreaming("true".equals(applicationProperties.getProperty(DB_STREAMING)));
+            provider = dbDataProvider;
+        } else if (DataProvider.type.REST.toString().equals(dataIn)) {
+            final RestDataProvider restDataProvider = new RestDataProvider(getProperty("dataProvider.rest.type", applicationProperties),
+                    getProperty("dataProvider.rest.hostname", applicationProperties), getProperty("dataProvider.rest.port", applicationProperties));
+            restDataProvider.setBulk("true".equals(applicationProperties.getProperty(REST_BULK)));
+            provider = restDataProvider;
+        } else if (DataProvider.type.GHERKIN.toString().equals(dataIn)) {
+            provider = new InputGherkinDataProvider();
+        } else {
+            provider = (DataInputProvider) Class.forName(dataIn).getConstructor().newInstance();
+        }
+        return provider;
+    }
+
 }
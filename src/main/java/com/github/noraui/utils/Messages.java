@@ -96,6 +96,7 @@ public class Messages {
     public static final String FAIL_MESSAGE_FILE_NOT_MATCHES = "FAIL_MESSAGE_FILE_NOT_MATCHES";
     public static final String FAIL_MESSAGE_UPLOADING_FILE = "FAIL_MESSAGE_UPLOADING_FILE";
     public static final String FAIL_MESSAGE_MAIL_ACTIVATION = "FAIL_MESSAGE_MAIL_ACTIVATION";
+    public static final String FAIL_MESSAGE_UNABLE_TO_FIND_JSON_PATH = "FAIL_MESSAGE_UNABLE_TO_FIND_JSON_PATH";
 
     /**
      * Format given message with provided arguments
@@ -147,7 +147,7 @@ public class LogoGameSteps extends Step {
             WebElement message = Context.waitUntil(ExpectedConditions.presenceOfElementLocated(Utilities.getLocator(this.logoGamePage.scoreMessage)));
             try {
                 Context.getCurrentScenario().write("score is:\n" + message.getText());
-                Context.getDataOutputProvider().writeDataResult("score", Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndexes().get(0), message.getText());
+                Context.getDataOutputProvider().writeDataResult("score", Context.getDataInputProvider().getIndexData(Context.getCurrentScenarioData()).getIndex(0), message.getText());
             } catch (TechnicalException e) {
                 logger.error(Messages.getMessage(TechnicalException.TECHNICAL_ERROR_MESSAGE), e);
             }
@@ -0,0 +1,75 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.noraui.data.csv.CsvDataProvider;
+
+public class DataIndexesUT {
+
+    @Test
+    public void testGet() {
+        // example 1: lines 1 and 3, example 2: line 2, example 3: no line
+        DataIndexes indexes = new DataIndexes(new int[] { 0, 2, 3, 3 }, new int[] { 1, 3, 2 });
+        Assert.assertEquals(3, indexes.size());
+        DataIndex first = indexes.get(1);
+        Assert.assertEquals(1, first.getDataLine());
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(3, first.getIndex(1));
+        Assert.assertEquals(Arrays.asList(1, 3), first.getIndexes());
+        Assert.assertEquals(Arrays.asList(2), indexes.get(2).getIndexes());
+        Assert.assertEquals(0, indexes.get(3).size());
+        Assert.assertNull(indexes.get(0));
+        Assert.assertNull(indexes.get(4));
+        try {
+            first.getIndex(2);
+            Assert.fail("IndexOutOfBoundsException expected");
+        } catch (IndexOutOfBoundsException e) {
+            Assert.assertEquals("Index: 2, Size: 2", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongOffsets() {
+        new DataIndexes(new int[] { 0, 2 }, new int[] { 1, 3, 2 });
+    }
+
+    @Test
+    public void testValueOf() {
+        List<DataIndex> indexData = new ArrayList<>();
+        indexData.add(new DataIndex(1, Arrays.asList(1, 3)));
+        indexData.add(new DataIndex(2, Arrays.asList(2)));
+        CsvDataProvider csvDataProvider = new CsvDataProvider();
+        csvDataProvider.setIndexData(indexData);
+        Assert.assertEquals(2, csvDataProvider.getNbGherkinExample());
+        Assert.assertEquals(Arrays.asList(1, 3), csvDataProvider.getIndexData(1).getIndexes());
+        Assert.assertEquals(2, csvDataProvider.getIndexData(2).getIndex(0));
+        Assert.assertNull(csvDataProvider.getIndexData(3));
+        Assert.assertEquals(Arrays.asList(2), DataIndexes.valueOf(indexData).toList().get(1).getIndexes());
+
+        // examples not in order of their data lines are still accepted by providers
+        csvDataProvider.setIndexData(Arrays.asList(new DataIndex(2, Arrays.asList(2)), new DataIndex(1, Arrays.asList(1, 3))));
+        Assert.assertEquals(2, csvDataProvider.getNbGherkinExample());
+        Assert.assertEquals(Arrays.asList(1, 3), csvDataProvider.getIndexData(1).getIndexes());
+        Assert.assertEquals(Arrays.asList(2), csvDataProvider.getIndexData(2).getIndexes());
+        Assert.assertNull(csvDataProvider.getIndexData(3));
+        Assert.assertFalse(DataIndexes.isOrdered(Arrays.asList(new DataIndex(2, Arrays.asList(2)))));
+        try {
+            DataIndexes.valueOf(Arrays.asList(new DataIndex(2, Arrays.asList(2))));
+            Assert.fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+            Assert.assertNotNull(e.getMessage());
+        }
+    }
+
+}
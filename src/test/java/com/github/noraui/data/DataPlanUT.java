@@ -0,0 +1,74 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.noraui.application.model.logogame.Logo;
+import com.github.noraui.data.csv.CsvDataProvider;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.model.Model;
+
+public class DataPlanUT {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testBuildWithoutModel() throws TechnicalException, IOException {
+        DataPlan plan = DataPlan.build(prepare("author;zip;Result\nJenkins T1;35000;\nJenkins T2;75000;\nJenkins T3;56100;\n"), null);
+        Assert.assertEquals(Arrays.asList("author", "zip"), plan.getColumns());
+        Assert.assertEquals(3, plan.size());
+        Assert.assertNull(plan.getModelLists());
+        DataIndexes indexData = plan.getDataIndexes();
+        Assert.assertEquals(3, indexData.size());
+        Assert.assertEquals(3, indexData.get(3).getDataLine());
+        Assert.assertEquals(Arrays.asList(3), indexData.get(3).getIndexes());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testBuildWithModelAndReload() throws TechnicalException, IOException {
+        DataPlan plan = DataPlan.build(prepare("player;brand;score;Result\nPeter;amazon;1;\nWendy;ebay;2;\nPeter;michelin;3;\nWendy;twitter;4;\nSteven;youtube;5;\n"),
+                (Class<Model>) (Class<?>) Logo.class);
+        Assert.assertEquals(3, plan.size());
+        Assert.assertEquals(Arrays.asList("Peter", "Wendy", "Steven"), Arrays.asList(plan.getModelLists().keySet().toArray()));
+        Assert.assertEquals(Arrays.asList(1, 3), plan.getDataIndexes().get(1).getIndexes());
+        Assert.assertEquals(Arrays.asList(2, 4), plan.getDataIndexes().get(2).getIndexes());
+
+        Path file = folder.getRoot().toPath().resolve("playToLogoGame" + DataPlan.EXTENSION);
+        plan.save(file, "f1");
+        Assert.assertNull(DataPlan.load(file, "f2"));
+        Assert.assertNull(DataPlan.load(file, null));
+        Assert.assertNull(DataPlan.load(folder.getRoot().toPath().resolve("unknown" + DataPlan.EXTENSION), "f1"));
+        DataPlan loaded = DataPlan.load(file, "f1");
+        Assert.assertEquals(plan.getColumns(), loaded.getColumns());
+        Assert.assertEquals(3, loaded.size());
+        Assert.assertEquals(Arrays.asList(5), loaded.getDataIndexes().get(3).getIndexes());
+        Assert.assertEquals(3, loaded.getDataIndexes().get(3).getDataLine());
+    }
+
+    private DataInputProvider prepare(String content) throws IOException {
+        File in = folder.newFolder();
+        Files.write(new File(in, "plan.csv").toPath(), content.getBytes(StandardCharsets.UTF_8));
+        CsvDataProvider csvDataProvider = new CsvDataProvider();
+        csvDataProvider.setDataInPath(in.getPath() + File.separator);
+        csvDataProvider.prepare("plan");
+        return csvDataProvider;
+    }
+
+}
@@ -0,0 +1,39 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FileRowStoreUT {
+
+    @Test
+    public void testRowsAreReadBackFromFile() throws IOException {
+        FileRowStore rows = new FileRowStore();
+        rows.add(new String[] { "author", "zip", "Result" });
+        for (int i = 1; i <= 3000; i++) {
+            rows.add(new String[] { "Jenkins T" + i + " é", i % 10 == 0 ? null : String.valueOf(i), "" });
+        }
+        Assert.assertEquals(3001, rows.size());
+        Assert.assertArrayEquals(new String[] { "author", "zip", "Result" }, rows.getRow(0));
+        Assert.assertArrayEquals(new String[] { "Jenkins T2999 é", "2999", "" }, rows.getRow(2999));
+        Assert.assertNull(rows.getValue(30, 1));
+        Assert.assertEquals("Jenkins T1 é", rows.getValue(1, 0));
+        Assert.assertNull(rows.getRow(3001));
+        try {
+            rows.add(new String[] { "late" });
+            Assert.fail("Rows can not be added once read.");
+        } catch (IOException e) {
+            Assert.assertEquals(3001, rows.size());
+        }
+        rows.close();
+        Assert.assertNull(rows.getRow(1));
+    }
+
+}
@@ -0,0 +1,54 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.noraui.exception.TechnicalException;
+
+public class ModelStoreUT {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReference() {
+        String reference = ModelStore.reference("playToLogoGame", 3);
+        Assert.assertEquals("models:playToLogoGame#3", reference);
+        Assert.assertTrue(ModelStore.isReference(reference));
+        Assert.assertFalse(ModelStore.isReference("[{\"brand\":\"amazon\"}]"));
+        Assert.assertFalse(ModelStore.isReference("models:#3"));
+        Assert.assertFalse(ModelStore.isReference(null));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException, TechnicalException {
+        Path file = folder.getRoot().toPath().resolve("playToLogoGame" + ModelStore.EXTENSION);
+        ModelStore.write(file, Arrays.asList("[{\"brand\":\"amazon\"}]", "[{\"brand\":\"citroën\"},{\"brand\":\"ebay\"}]", "[]"));
+        Assert.assertEquals("[{\"brand\":\"citroën\"},{\"brand\":\"ebay\"}]", ModelStore.read(file, 2));
+        Assert.assertEquals("[]", ModelStore.read(file, 3));
+        Assert.assertEquals("[{\"brand\":\"amazon\"}]", ModelStore.read(file, 1));
+
+        // a store written again is opened again
+        ModelStore.write(file, Arrays.asList("[{\"brand\":\"michelin\"}]"));
+        Assert.assertEquals("[{\"brand\":\"michelin\"}]", ModelStore.read(file, 1));
+        try {
+            ModelStore.read(file, 2);
+            Assert.fail("TechnicalException expected");
+        } catch (TechnicalException e) {
+            Assert.assertTrue(e.getMessage().contains("#2"));
+        }
+    }
+
+}
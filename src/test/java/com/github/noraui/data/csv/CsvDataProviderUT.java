@@ -14,16 +14,24 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import com.github.noraui.data.WriteBehindPolicy;
 import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.utils.Messages;
 import com.opencsv.CSVReader;
 
 public class CsvDataProviderUT {
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testConstructorIsPublic() throws Exception {
         Constructor<CsvDataProvider> constructor = CsvDataProvider.class.getDeclaredConstructor();
@@ -46,19 +54,93 @@ public class CsvDataProviderUT {
         Assert.assertEquals("UT Failed Message", reader.readAll().get(1)[7]);
         reader.close();
 
-        reader = new CSVReader(new FileReader(new File("src/test/resources" + DATA_OUT + "hello.csv")), ';');
         csvDataProvider.writeSuccessResult(2);
+        reader = new CSVReader(new FileReader(new File("src/test/resources" + DATA_OUT + "hello.csv")), ';');
         Assert.assertEquals(Messages.getMessage(Messages.SUCCESS_MESSAGE), reader.readAll().get(2)[7]);
         reader.close();
 
-        reader = new CSVReader(new FileReader(new File("src/test/resources" + DATA_OUT + "hello.csv")), ';');
         csvDataProvider.writeWarningResult(3, "UT Warning Message");
+        reader = new CSVReader(new FileReader(new File("src/test/resources" + DATA_OUT + "hello.csv")), ';');
         Assert.assertEquals("UT Warning Message", reader.readAll().get(3)[7]);
         reader.close();
 
-        reader = new CSVReader(new FileReader(new File("src/test/resources" + DATA_OUT + "hello.csv")), ';');
         csvDataProvider.writeDataResult("title", 4, "UT title");
+        reader = new CSVReader(new FileReader(new File("src/test/resources" + DATA_OUT + "hello.csv")), ';');
         Assert.assertEquals("UT title", reader.readAll().get(4)[6]);
         reader.close();
     }
+
+    @Test
+    public void testReadFromMemoryAndReloadWhenFileChanges() throws TechnicalException, IOException {
+        File in = folder.newFolder("in");
+        File data = new File(in, "hello.csv");
+        Files.write(data.toPath(), "author;zip;Result\nJenkins T1;35000;\nJenkins T2;75000;\n".getBytes(StandardCharsets.UTF_8));
+
+        CsvDataProvider csvDataProvider = new CsvDataProvider();
+        csvDataProvider.setDataInPath(in.getPath() + File.separator);
+        csvDataProvider.prepare("hello");
+
+        Assert.assertEquals(3, csvDataProvider.getNbLines());
+        Assert.assertEquals("75000", csvDataProvider.readValue("zip", 2));
+        Assert.assertArrayEquals(new String[] { "Jenkins T1", "35000" }, csvDataProvider.readLine(1, false));
+        Assert.assertArrayEquals(new String[] { "Jenkins T1", "35000", "" }, csvDataProvider.readLine(1, true));
+        Assert.assertNull(csvDataProvider.readLine(3, false));
+
+        Files.write(data.toPath(), "author;zip;Result\nJenkins T1;35000;\nJenkins T2;75000;\nJenkins T3;56100;\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(4, csvDataProvider.getNbLines());
+        Assert.assertEquals("56100", csvDataProvider.readValue("zip", 3));
+    }
+
+    @Test
+    public void testDataFingerprint() throws TechnicalException, IOException {
+        File in = folder.newFolder("in");
+        File data = new File(in, "hello.csv");
+        Files.write(data.toPath(), "author;zip;Result\nJenkins T1;35000;\n".getBytes(StandardCharsets.UTF_8));
+
+        CsvDataProvider csvDataProvider = new CsvDataProvider();
+        csvDataProvider.setDataInPath(in.getPath() + File.separator);
+        csvDataProvider.prepare("hello");
+        String fingerprint = csvDataProvider.getDataFingerprint();
+        Assert.assertEquals(40, fingerprint.length());
+        Assert.assertEquals(fingerprint, csvDataProvider.getDataFingerprint());
+
+        Files.write(data.toPath(), "author;zip;Result\nJenkins T1;35001;\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertNotEquals(fingerprint, csvDataProvider.getDataFingerprint());
+    }
+
+    @Test
+    public void testWriteBehind() throws TechnicalException, IOException {
+        File in = folder.newFolder("in");
+        File out = folder.newFolder("out");
+        String content = "author;zip;Result\nJenkins T1;35000;\nJenkins T2;75000;\nJenkins T3;56100;\n";
+        Files.write(new File(in, "hello.csv").toPath(), content.getBytes(StandardCharsets.UTF_8));
+        File result = new File(out, "hello.csv");
+        Files.write(result.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+        CsvDataProvider csvDataProvider = new CsvDataProvider();
+        csvDataProvider.setDataInPath(in.getPath() + File.separator);
+        csvDataProvider.setDataOutPath(out.getPath() + File.separator);
+        csvDataProvider.setWriteBehindPolicy(new WriteBehindPolicy(3, 0));
+        csvDataProvider.prepare("hello");
+
+        csvDataProvider.writeFailedResult(1, "UT Failed Message");
+        csvDataProvider.writeWarningResult(2, "UT Warning Message");
+        Assert.assertEquals(content, new String(Files.readAllBytes(result.toPath()), StandardCharsets.UTF_8));
+
+        csvDataProvider.writeDataResult("zip", 3, "56000");
+        CSVReader reader = new CSVReader(new FileReader(result), ';');
+        Assert.assertEquals("UT Failed Message", reader.readAll().get(1)[2]);
+        reader.close();
+
+        csvDataProvider.writeSuccessResult(3);
+        reader = new CSVReader(new FileReader(result), ';');
+        Assert.assertEquals("", reader.readAll().get(3)[2]);
+        reader.close();
+
+        csvDataProvider.flush();
+        reader = new CSVReader(new FileReader(result), ';');
+        Assert.assertEquals(Messages.getMessage(Messages.SUCCESS_MESSAGE), reader.readAll().get(3)[2]);
+        reader.close();
+        Assert.assertEquals(1, out.list().length);
+    }
 }
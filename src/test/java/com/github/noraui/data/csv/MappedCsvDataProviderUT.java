@@ -0,0 +1,95 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.csv;
+
+import static com.github.noraui.utils.Constants.DATA_IN;
+import static com.github.noraui.utils.Constants.DATA_OUT;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.noraui.exception.TechnicalException;
+
+public class MappedCsvDataProviderUT {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReadLikeCsvDataProvider() throws TechnicalException {
+        CsvDataProvider csvDataProvider = new CsvDataProvider();
+        csvDataProvider.setDataInPath("src/test/resources" + DATA_IN);
+        csvDataProvider.setDataOutPath("src/test/resources" + DATA_OUT);
+        csvDataProvider.prepare("hello");
+
+        MappedCsvDataProvider mappedCsvDataProvider = new MappedCsvDataProvider();
+        mappedCsvDataProvider.setDataInPath("src/test/resources" + DATA_IN);
+        mappedCsvDataProvider.setDataOutPath("src/test/resources" + DATA_OUT);
+        mappedCsvDataProvider.prepare("hello");
+
+        Assert.assertEquals(csvDataProvider.getNbLines(), mappedCsvDataProvider.getNbLines());
+        for (int line = 0; line <= csvDataProvider.getNbLines(); line++) {
+            Assert.assertArrayEquals(csvDataProvider.readLine(line, true), mappedCsvDataProvider.readLine(line, true));
+            Assert.assertArrayEquals(csvDataProvider.readLine(line, false), mappedCsvDataProvider.readLine(line, false));
+        }
+        Assert.assertEquals("Lorient", mappedCsvDataProvider.readValue("city", 3));
+    }
+
+    @Test
+    public void testReadLargeFileWithSparseIndex() throws TechnicalException, IOException {
+        File in = folder.newFolder("in");
+        StringBuilder content = new StringBuilder("author;zip;Result\r\n");
+        for (int i = 1; i <= 1000; i++) {
+            content.append("Jenkins T").append(i).append(';').append(i % 7 == 0 ? "\"multi\nline\"" : String.valueOf(i)).append(";\r\n");
+        }
+        Files.write(new File(in, "large.csv").toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+        MappedCsvDataProvider mappedCsvDataProvider = new MappedCsvDataProvider();
+        mappedCsvDataProvider.setDataInPath(in.getPath() + File.separator);
+        mappedCsvDataProvider.prepare("large");
+
+        Assert.assertEquals(1001, mappedCsvDataProvider.getNbLines());
+        Assert.assertArrayEquals(new String[] { "Jenkins T1000", "1000", "" }, mappedCsvDataProvider.readLine(1000, true));
+        Assert.assertArrayEquals(new String[] { "Jenkins T65", "65" }, mappedCsvDataProvider.readLine(65, false));
+        Assert.assertEquals("66", mappedCsvDataProvider.readValue("zip", 66));
+        Assert.assertEquals("multi\nline", mappedCsvDataProvider.readValue("zip", 63));
+        Assert.assertArrayEquals(new String[] { "Jenkins T2", "2" }, mappedCsvDataProvider.readLine(2, false));
+        Assert.assertNull(mappedCsvDataProvider.readLine(1001, false));
+    }
+
+    @Test
+    public void testCloseReleasesMappedFile() throws TechnicalException, IOException {
+        File in = folder.newFolder("in");
+        File file = new File(in, "small.csv");
+        Files.write(file.toPath(), "author;zip;Result\nJenkins T1;35000;\n".getBytes(StandardCharsets.UTF_8));
+
+        MappedCsvRowStore rows = new MappedCsvRowStore(file.toPath(), CsvDataProvider.CSV_CHAR_SEPARATOR);
+        Assert.assertArrayEquals(new String[] { "Jenkins T1", "35000", "" }, rows.getRow(1));
+        rows.close();
+        rows.close();
+        Assert.assertNull(rows.getRow(1));
+        Assert.assertNull(rows.getValue(1, 0));
+
+        MappedCsvDataProvider mappedCsvDataProvider = new MappedCsvDataProvider();
+        mappedCsvDataProvider.setDataInPath(in.getPath() + File.separator);
+        mappedCsvDataProvider.prepare("small");
+        Assert.assertEquals("35000", mappedCsvDataProvider.readValue("zip", 1));
+        mappedCsvDataProvider.close();
+        Assert.assertTrue(file.delete());
+        Files.write(file.toPath(), "author;zip;Result\nJenkins T2;75000;\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals("75000", mappedCsvDataProvider.readValue("zip", 1));
+        mappedCsvDataProvider.close();
+    }
+
+}
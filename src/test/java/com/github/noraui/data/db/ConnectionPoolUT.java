@@ -0,0 +1,285 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.db;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ConnectionPoolUT {
+
+    private static final String URL = "jdbc:noraui-pool-test:db";
+
+    private static final AtomicBoolean valid = new AtomicBoolean(true);
+
+    private static Driver driver;
+
+    @BeforeClass
+    public static void registerDriver() throws SQLException {
+        driver = (Driver) Proxy.newProxyInstance(ConnectionPoolUT.class.getClassLoader(), new Class<?>[] { Driver.class }, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "acceptsURL":
+                        return URL.equals(args[0]);
+                    case "connect":
+                        return URL.equals(args[0]) ? newConnection() : null;
+                    case "getMajorVersion":
+                    case "getMinorVersion":
+                        return 1;
+                    case "jdbcCompliant":
+                        return false;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            }
+        });
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterClass
+    public static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    public void testConnectionIsReused() throws SQLException {
+        valid.set(true);
+        ConnectionPool pool = new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT);
+        Connection connection = pool.getConnection();
+        Assert.assertEquals(1, pool.getActiveConnections());
+        Assert.assertFalse(connection.isClosed());
+        connection.close();
+        connection.close();
+        Assert.assertTrue(connection.isClosed());
+        Assert.assertEquals(0, pool.getActiveConnections());
+        Assert.assertEquals(1, pool.getIdleConnections());
+        try {
+            connection.createStatement();
+            Assert.fail("A closed connection must not be used.");
+        } catch (SQLException e) {
+            Assert.assertEquals("Connection is closed", e.getMessage());
+        }
+
+        try (Connection other = pool.getConnection()) {
+            Assert.assertEquals(0, pool.getIdleConnections());
+        }
+        Assert.assertEquals(2, pool.getBorrowCount());
+        Assert.assertEquals(1, pool.getCreatedConnections());
+        pool.close();
+        Assert.assertEquals(0, pool.getIdleConnections());
+    }
+
+    @Test
+    public void testPoolIsBounded() throws SQLException {
+        valid.set(true);
+        ConnectionPool pool = new ConnectionPool(URL, "user", "password", new ConnectionPoolPolicy(1, 50, 0, 1));
+        try (Connection connection = pool.getConnection()) {
+            pool.getConnection();
+            Assert.fail("Pool size is 1.");
+        } catch (SQLException e) {
+            Assert.assertEquals(0, pool.getActiveConnections());
+        }
+        pool.getConnection().close();
+        Assert.assertEquals(1, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void testInvalidAndIdleConnectionsAreEvicted() throws SQLException, InterruptedException {
+        valid.set(true);
+        ConnectionPool pool = new ConnectionPool(URL, "user", "password", new ConnectionPoolPolicy(2, 50, 0, 1));
+        pool.getConnection().close();
+        valid.set(false);
+        pool.getConnection().close();
+        Assert.assertEquals(1, pool.getEvictedConnections());
+        Assert.assertEquals(2, pool.getCreatedConnections());
+
+        valid.set(true);
+        pool = new ConnectionPool(URL, "user", "password", new ConnectionPoolPolicy(2, 50, 5, 1));
+        pool.getConnection().close();
+        Thread.sleep(20);
+        pool.getConnection().close();
+        Assert.assertEquals(1, pool.getEvictedConnections());
+        Assert.assertEquals(2, pool.getCreatedConnections());
+    }
+
+    @Test
+    public void testStatementsAreCachedPerConnection() throws SQLException {
+        valid.set(true);
+        ConnectionPool pool = new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT);
+        PreparedStatement first;
+        try (Connection connection = pool.getConnection(); PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+            first = statement;
+            Assert.assertSame(connection, statement.getConnection());
+        }
+        Assert.assertTrue(first.isClosed());
+        try {
+            first.executeQuery();
+            Assert.fail("A closed statement must not be used.");
+        } catch (SQLException e) {
+            Assert.assertEquals("Statement is closed", e.getMessage());
+        }
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement("SELECT 1");
+            Assert.assertFalse(statement.isClosed());
+            statement.close();
+            connection.prepareStatement("SELECT 1", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY).close();
+        }
+        Assert.assertEquals(1, pool.getStatementCacheHits());
+        Assert.assertEquals(2, pool.getStatementCacheMisses());
+        Assert.assertEquals(1, pool.getCreatedConnections());
+        pool.close();
+    }
+
+    @Test
+    public void testCachedStatementIsNotShared() throws SQLException {
+        valid.set(true);
+        ConnectionPool pool = new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT);
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement first = connection.prepareStatement("SELECT 2");
+            first.setFetchSize(500);
+            first.setMaxRows(10);
+            first.setQueryTimeout(30);
+            PreparedStatement second = connection.prepareStatement("SELECT 2");
+            Assert.assertEquals(0, second.getFetchSize());
+            second.close();
+            Assert.assertFalse(first.isClosed());
+            Assert.assertEquals(500, first.getFetchSize());
+            first.close();
+
+            PreparedStatement third = connection.prepareStatement("SELECT 2");
+            Assert.assertEquals(0, third.getFetchSize());
+            Assert.assertEquals(0, third.getMaxRows());
+            Assert.assertEquals(0, third.getQueryTimeout());
+            third.close();
+        }
+        Assert.assertEquals(1, pool.getStatementCacheHits());
+        Assert.assertEquals(2, pool.getStatementCacheMisses());
+        pool.close();
+    }
+
+    @Test
+    public void testPolicyValueOf() {
+        ConnectionPoolPolicy policy = ConnectionPoolPolicy.valueOf("8", "", null, " 2 ");
+        Assert.assertEquals(8, policy.getMaxSize());
+        Assert.assertEquals(ConnectionPoolPolicy.DEFAULT.getMaxWait(), policy.getMaxWait());
+        Assert.assertEquals(ConnectionPoolPolicy.DEFAULT.getIdleTimeout(), policy.getIdleTimeout());
+        Assert.assertEquals(2, policy.getValidationTimeout());
+    }
+
+    private static Connection newConnection() {
+        return (Connection) Proxy.newProxyInstance(ConnectionPoolUT.class.getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        closed = true;
+                        return null;
+                    case "isClosed":
+                        return closed;
+                    case "isValid":
+                        return !closed && valid.get();
+                    case "getAutoCommit":
+                        return true;
+                    case "prepareStatement":
+                        return newStatement();
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+
+    private static PreparedStatement newStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(ConnectionPoolUT.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+
+            private boolean closed;
+            private final Map<String, Object> settings = new HashMap<>();
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        closed = true;
+                        return null;
+                    case "isClosed":
+                        return closed;
+                    case "setFetchSize":
+                    case "setMaxRows":
+                    case "setQueryTimeout":
+                        settings.put(method.getName().substring(3), args[0]);
+                        return null;
+                    case "getFetchSize":
+                    case "getMaxRows":
+                    case "getQueryTimeout":
+                        return settings.containsKey(method.getName().substring(3)) ? settings.get(method.getName().substring(3)) : 0;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+
+
+    @Test
+    public void testEachPoolHasItsOwnMBean() throws JMException {
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        ConnectionPool first = new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT);
+        ConnectionPool second = new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT);
+        first.registerMBean();
+        second.registerMBean();
+        ObjectName firstName = first.getObjectName();
+        ObjectName secondName = second.getObjectName();
+        Assert.assertNotEquals(firstName, secondName);
+        Assert.assertTrue(mbs.isRegistered(firstName));
+        Assert.assertTrue(mbs.isRegistered(secondName));
+        Assert.assertEquals(ConnectionPoolPolicy.DEFAULT.getMaxSize(), mbs.getAttribute(secondName, "MaxConnections"));
+
+        first.close();
+        Assert.assertNull(first.getObjectName());
+        Assert.assertFalse(mbs.isRegistered(firstName));
+        Assert.assertTrue(mbs.isRegistered(secondName));
+        second.close();
+        Assert.assertFalse(mbs.isRegistered(secondName));
+    }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CursorRowStoreUT {
+
+    private static final String URL = "jdbc:noraui-cursor-test:db";
+
+    private static final int ROWS = 250;
+
+    private static final List<String> queries = new ArrayList<>();
+
+    private static final List<Integer> fetchSizes = new ArrayList<>();
+
+    private static Driver driver;
+
+    @BeforeClass
+    public static void registerDriver() throws SQLException {
+        driver = (Driver) proxy(Driver.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "acceptsURL":
+                        return URL.equals(args[0]);
+                    case "connect":
+                        return URL.equals(args[0]) ? newConnection() : null;
+                    case "getMajorVersion":
+                    case "getMinorVersion":
+                        return 1;
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterClass
+    public static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    public void testRowsAreStreamed() throws SQLException {
+        queries.clear();
+        fetchSizes.clear();
+        ConnectionPool pool = new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT);
+        CursorRowStore rows = new CursorRowStore(pool, "SELECT * FROM authors;", 50);
+        Assert.assertArrayEquals(new String[] { "author", "zip" }, rows.getRow(0));
+        Assert.assertEquals(1, pool.getActiveConnections());
+        Assert.assertEquals(Integer.valueOf(50), fetchSizes.get(0));
+
+        Assert.assertArrayEquals(new String[] { "Jenkins T1", "1" }, rows.getRow(1));
+        Assert.assertArrayEquals(new String[] { "Jenkins T1", "1" }, rows.getRow(1));
+        Assert.assertEquals("Jenkins T120", rows.getValue(120, 0));
+        Assert.assertEquals(1, queries.size());
+
+        Assert.assertEquals(ROWS + 1, rows.size());
+        Assert.assertEquals("SELECT COUNT(*) FROM (SELECT * FROM authors) noraui_count", queries.get(1));
+        Assert.assertEquals(ROWS + 1, rows.size());
+        Assert.assertEquals(2, queries.size());
+
+        Assert.assertEquals("12", rows.getValue(12, 1));
+        Assert.assertEquals(3, queries.size());
+
+        Assert.assertNotNull(rows.getRow(ROWS));
+        Assert.assertNull(rows.getRow(ROWS + 1));
+        Assert.assertEquals(0, pool.getActiveConnections());
+        Assert.assertNull(rows.getRow(ROWS + 2));
+        Assert.assertEquals(3, queries.size());
+
+        Assert.assertEquals("Jenkins T3", rows.getValue(3, 0));
+        Assert.assertEquals(4, queries.size());
+        rows.close();
+        Assert.assertEquals(0, pool.getActiveConnections());
+    }
+
+    private static Connection newConnection() {
+        return proxy(Connection.class, new InvocationHandler() {
+
+            private boolean closed;
+            private boolean autoCommit = true;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        closed = true;
+                        return null;
+                    case "isClosed":
+                        return closed;
+                    case "isValid":
+                        return !closed;
+                    case "getAutoCommit":
+                        return autoCommit;
+                    case "setAutoCommit":
+                        autoCommit = (Boolean) args[0];
+                        return null;
+                    case "prepareStatement":
+                        return newStatement((String) args[0]);
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    private static PreparedStatement newStatement(final String sql) {
+        return proxy(PreparedStatement.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "setFetchSize":
+                        fetchSizes.add((Integer) args[0]);
+                        return null;
+                    case "executeQuery":
+                        queries.add(sql);
+                        return sql.startsWith("SELECT COUNT(*)") ? newResultSet(new String[] { "count" }, 1, String.valueOf(ROWS))
+                                : newResultSet(new String[] { "author", "zip" }, ROWS, null);
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    private static ResultSet newResultSet(final String[] labels, final int size, final String value) {
+        final ResultSetMetaData metaData = proxy(ResultSetMetaData.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getColumnCount":
+                        return labels.length;
+                    case "getColumnLabel":
+                        return labels[(Integer) args[0] - 1];
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+        return proxy(ResultSet.class, new InvocationHandler() {
+
+            private int row;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getMetaData":
+                        return metaData;
+                    case "next":
+                        return ++row <= size;
+                    case "getString":
+                        if (value != null) {
+                            return value;
+                        }
+                        return (Integer) args[0] == 1 ? "Jenkins T" + row : String.valueOf(row);
+                    case "getInt":
+                        return Integer.parseInt(value);
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                return method.getReturnType() == boolean.class ? Boolean.FALSE : null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(CursorRowStoreUT.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+}
@@ -0,0 +1,216 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.data.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.noraui.data.WriteBehindPolicy;
+import com.github.noraui.exception.TechnicalException;
+
+public class OutputDBDataProviderUT {
+
+    private static final String URL = "jdbc:noraui-output-test:db";
+
+    private static final List<String> inserted = new ArrayList<>();
+
+    private static final List<Integer> batches = new ArrayList<>();
+
+    private static int failedBatches;
+
+    private static Driver driver;
+
+    @BeforeClass
+    public static void registerDriver() throws SQLException {
+        driver = proxy(Driver.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "acceptsURL":
+                        return URL.equals(args[0]);
+                    case "connect":
+                        return URL.equals(args[0]) ? newConnection() : null;
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+        DriverManager.registerDriver(driver);
+    }
+
+    @AfterClass
+    public static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(driver);
+    }
+
+    @Test
+    public void testResultsAreInsertedInBatches() throws TechnicalException {
+        inserted.clear();
+        batches.clear();
+        ConnectionPool pool = new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT);
+        OutputDBDataProvider provider = new OutputDBDataProvider(pool, "RESULTS");
+        provider.setWriteBehindPolicy(new WriteBehindPolicy(3, 0));
+        provider.prepare("hello");
+        provider.writeSuccessResult(1);
+        provider.writeFailedResult(2, "KO");
+        Assert.assertEquals(2, provider.getPendingResults());
+        Assert.assertTrue(batches.isEmpty());
+
+        provider.writeDataResult("title", 2, "Bonjour");
+        Assert.assertEquals(0, provider.getPendingResults());
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(Integer.valueOf(3), batches.get(0));
+        Assert.assertEquals("INSERT INTO RESULTS (SCENARIO, LINE, RESULT_COLUMN, RESULT_VALUE, WRITTEN_AT) VALUES (?, ?, ?, ?, ?)|hello|2|KO|commit", inserted.get(1));
+        Assert.assertEquals("INSERT INTO RESULTS (SCENARIO, LINE, RESULT_COLUMN, RESULT_VALUE, WRITTEN_AT) VALUES (?, ?, ?, ?, ?)|hello|2|Bonjour|commit", inserted.get(2));
+
+        provider.writeWarningResult(3, "warning");
+        provider.flush();
+        provider.flush();
+        Assert.assertEquals(2, batches.size());
+        Assert.assertEquals(Integer.valueOf(1), batches.get(1));
+        Assert.assertEquals(0, pool.getActiveConnections());
+    }
+
+    @Test(expected = TechnicalException.class)
+    public void testWrongResultsTableName() throws TechnicalException {
+        new OutputDBDataProvider(new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT), "RESULTS; DROP TABLE USERS");
+    }
+
+    @Test(expected = TechnicalException.class)
+    public void testMissingResultsTable() throws TechnicalException {
+        new OutputDBDataProvider(new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT), "MISSING");
+    }
+
+    @Test
+    public void testFailedInsertsAreNotRetriedOnEachWrite() throws TechnicalException {
+        failedBatches = 0;
+        ConnectionPool pool = new ConnectionPool(URL, "user", "password", ConnectionPoolPolicy.DEFAULT);
+        OutputDBDataProvider provider = new OutputDBDataProvider(pool, "FAILING");
+        provider.prepare("hello");
+        for (int line = 1; line <= 5; line++) {
+            provider.writeSuccessResult(line);
+        }
+        Assert.assertEquals(1, failedBatches);
+        Assert.assertEquals(5, provider.getPendingResults());
+        try {
+            provider.flush();
+            Assert.fail("TechnicalException expected");
+        } catch (TechnicalException e) {
+            Assert.assertEquals(2, failedBatches);
+        }
+
+        for (int line = 0; line < OutputDBDataProvider.MAX_PENDING_RESULTS; line++) {
+            provider.writeSuccessResult(line);
+        }
+        Assert.assertEquals(OutputDBDataProvider.MAX_PENDING_RESULTS, provider.getPendingResults());
+        Assert.assertEquals(0, pool.getActiveConnections());
+    }
+
+    private static Connection newConnection() {
+        return proxy(Connection.class, new InvocationHandler() {
+
+            private boolean autoCommit = true;
+            private final List<String> batch = new ArrayList<>();
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "isValid":
+                        return true;
+                    case "getAutoCommit":
+                        return autoCommit;
+                    case "setAutoCommit":
+                        autoCommit = (Boolean) args[0];
+                        return null;
+                    case "commit":
+                        for (final String row : batch) {
+                            inserted.add(row + "|commit");
+                        }
+                        batch.clear();
+                        return null;
+                    case "rollback":
+                        batch.clear();
+                        return null;
+                    case "prepareStatement":
+                        if (((String) args[0]).contains("FROM MISSING")) {
+                            throw new SQLException("Table MISSING not found", "42S02");
+                        }
+                        return newStatement((String) args[0], batch);
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    private static PreparedStatement newStatement(final String sql, final List<String> batch) {
+        return proxy(PreparedStatement.class, new InvocationHandler() {
+
+            private final Object[] parameters = new Object[5];
+            private final List<String> rows = new ArrayList<>();
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "setString":
+                    case "setInt":
+                    case "setTimestamp":
+                        parameters[(Integer) args[0] - 1] = args[1];
+                        return null;
+                    case "addBatch":
+                        rows.add(sql + "|" + parameters[0] + "|" + parameters[1] + "|" + parameters[3]);
+                        return null;
+                    case "executeBatch":
+                        if (sql.contains("INTO FAILING")) {
+                            failedBatches++;
+                            throw new SQLException("Table FAILING is read only", "25006");
+                        }
+                        batches.add(rows.size());
+                        batch.addAll(rows);
+                        rows.clear();
+                        return new int[batches.get(batches.size() - 1)];
+                    default:
+                        return defaultValue(proxy, method, args);
+                }
+            }
+        });
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                if (method.getReturnType() == boolean.class) {
+                    return Boolean.FALSE;
+                }
+                return method.getReturnType() == int.class ? Integer.valueOf(0) : null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(OutputDBDataProviderUT.class.getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+}
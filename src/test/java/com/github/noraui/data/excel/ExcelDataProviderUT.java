@@ -6,14 +6,37 @@
  */
 package com.github.noraui.data.excel;
 
+import static com.github.noraui.utils.Constants.DATA_IN;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.nio.file.Files;
 
+import org.apache.poi.hssf.util.HSSFColor;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.noraui.data.WriteBehindPolicy;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.utils.Messages;
 
 public class ExcelDataProviderUT {
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testInputConstructorIsPublic() throws Exception {
         Constructor<InputExcelDataProvider> constructor = InputExcelDataProvider.class.getDeclaredConstructor();
@@ -37,4 +60,229 @@ public class ExcelDataProviderUT {
         constructor.setAccessible(true);
     }
 
+    @Test
+    public void testReadDecodedSheet() throws TechnicalException, IOException {
+        InputExcelDataProvider excelDataProvider = new InputExcelDataProvider();
+        excelDataProvider.setDataInPath("src/test/resources" + DATA_IN);
+        excelDataProvider.prepare("hello");
+        Assert.assertEquals(9, excelDataProvider.getNbLines());
+        Assert.assertEquals("16/01/2020", excelDataProvider.readValue("date", 1));
+        Assert.assertEquals("Lorient", excelDataProvider.readLine(3, false)[2]);
+        Assert.assertNull(excelDataProvider.readLine(42, false));
+
+        File out = folder.newFolder("out");
+        Files.copy(new File("src/test/resources" + DATA_IN + "hello.xlsx").toPath(), new File(out, "hello.xlsx").toPath());
+        OutputExcelDataProvider outputDataProvider = new OutputExcelDataProvider();
+        outputDataProvider.setDataOutPath(out.getPath() + File.separator);
+        outputDataProvider.prepare("hello");
+        outputDataProvider.writeDataResult("city", 3, "Brest");
+        Assert.assertEquals("Brest", outputDataProvider.readValue("city", 3));
+    }
+
+    @Test
+    public void testWriteBehind() throws TechnicalException, IOException {
+        File out = folder.newFolder("out");
+        File result = new File(out, "hello.xlsx");
+        Files.copy(new File("src/test/resources" + DATA_IN + "hello.xlsx").toPath(), result.toPath());
+        byte[] content = Files.readAllBytes(result.toPath());
+
+        OutputExcelDataProvider excelDataProvider = new OutputExcelDataProvider();
+        excelDataProvider.setDataOutPath(out.getPath() + File.separator);
+        excelDataProvider.setWriteBehindPolicy(new WriteBehindPolicy(3, 0));
+        excelDataProvider.prepare("hello");
+
+        excelDataProvider.writeFailedResult(1, "UT Failed Message");
+        excelDataProvider.writeWarningResult(2, "UT Warning Message");
+        Assert.assertArrayEquals(content, Files.readAllBytes(result.toPath()));
+
+        excelDataProvider.writeSuccessResult(3);
+        Assert.assertEquals("UT Failed Message", readResult(result, 1));
+        Assert.assertEquals(Messages.getMessage(Messages.SUCCESS_MESSAGE), readResult(result, 3));
+
+        excelDataProvider.writeSuccessResult(4);
+        Assert.assertNotEquals(Messages.getMessage(Messages.SUCCESS_MESSAGE), readResult(result, 4));
+        excelDataProvider.flush();
+        Assert.assertEquals(Messages.getMessage(Messages.SUCCESS_MESSAGE), readResult(result, 4));
+        Assert.assertEquals(1, out.list().length);
+    }
+
+    @Test
+    public void testWriteBehindAcrossScenarios() throws TechnicalException, IOException {
+        File out = folder.newFolder("out");
+        File hello = new File(out, "hello.xlsx");
+        File bonjour = new File(out, "bonjour.xlsx");
+        Files.copy(new File("src/test/resources" + DATA_IN + "hello.xlsx").toPath(), hello.toPath());
+        Files.copy(new File("src/test/resources" + DATA_IN + "bonjour.xlsx").toPath(), bonjour.toPath());
+
+        OutputExcelDataProvider excelDataProvider = new OutputExcelDataProvider();
+        excelDataProvider.setDataOutPath(out.getPath() + File.separator);
+        excelDataProvider.setWriteBehindPolicy(new WriteBehindPolicy(100, 0));
+        excelDataProvider.prepare("hello");
+        excelDataProvider.writeFailedResult(1, "UT hello");
+        excelDataProvider.prepare("bonjour");
+        excelDataProvider.writeFailedResult(2, "UT bonjour");
+        excelDataProvider.flush();
+
+        Assert.assertEquals("UT hello", readResult(hello, 1));
+        Assert.assertEquals("Result", readResult(hello, 0));
+        Assert.assertEquals("UT bonjour", readResult(bonjour, 2));
+        Assert.assertEquals("Résultat", readResult(bonjour, 0));
+        Assert.assertEquals(2, out.list().length);
+    }
+
+    @Test
+    public void testStreamingInputReadsLikeInputExcelDataProvider() throws TechnicalException {
+        for (String scenario : new String[] { "hello", "bonjour", "blog", "LoginLogout", "playToLogoGame", "sampleRESTAPI" }) {
+            InputExcelDataProvider excelDataProvider = new InputExcelDataProvider();
+            excelDataProvider.setDataInPath("src/test/resources" + DATA_IN);
+            excelDataProvider.prepare(scenario);
+
+            StreamingInputExcelDataProvider streamingDataProvider = new StreamingInputExcelDataProvider();
+            streamingDataProvider.setDataInPath("src/test/resources" + DATA_IN);
+            streamingDataProvider.prepare(scenario);
+
+            Assert.assertEquals(excelDataProvider.getResultColumnName(), streamingDataProvider.getResultColumnName());
+            Assert.assertEquals(excelDataProvider.getNbLines(), streamingDataProvider.getNbLines());
+            for (int line = 0; line <= excelDataProvider.getNbLines(); line++) {
+                Assert.assertArrayEquals(excelDataProvider.readLine(line, true), streamingDataProvider.readLine(line, true));
+                Assert.assertArrayEquals(excelDataProvider.readLine(line, false), streamingDataProvider.readLine(line, false));
+                Assert.assertEquals(excelDataProvider.readValue(excelDataProvider.getResultColumnName(), line),
+                        streamingDataProvider.readValue(excelDataProvider.getResultColumnName(), line));
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingOutput() throws TechnicalException, IOException {
+        File out = folder.newFolder("out");
+        File result = new File(out, "hello.xlsx");
+        Files.copy(new File("src/test/resources" + DATA_IN + "hello.xlsx").toPath(), result.toPath());
+
+        StreamingOutputExcelDataProvider excelDataProvider = new StreamingOutputExcelDataProvider();
+        excelDataProvider.setDataOutPath(out.getPath() + File.separator);
+        excelDataProvider.prepare("hello");
+        Assert.assertEquals("Result", excelDataProvider.getResultColumnName());
+
+        excelDataProvider.writeSuccessResult(1);
+        excelDataProvider.writeFailedResult(3, "UT Failed Message");
+        excelDataProvider.writeDataResult("title", 4, "UT title");
+        excelDataProvider.writeWarningResult(2, "UT Warning Message");
+        excelDataProvider.flush();
+
+        Assert.assertEquals(Messages.getMessage(Messages.SUCCESS_MESSAGE), readResult(result, 1));
+        Assert.assertEquals("UT Warning Message", readResult(result, 2));
+        Assert.assertEquals("UT Failed Message", readResult(result, 3));
+        try (FileInputStream in = new FileInputStream(result); Workbook workbook = new XSSFWorkbook(in)) {
+            Assert.assertEquals(HSSFColor.HSSFColorPredefined.RED.getIndex(), workbook.getFontAt(workbook.getSheetAt(0).getRow(3).getCell(7).getCellStyle().getFontIndex()).getColor());
+            Assert.assertEquals("UT title", workbook.getSheetAt(0).getRow(4).getCell(6).getStringCellValue());
+            Assert.assertEquals("Jenkins T8", workbook.getSheetAt(0).getRow(8).getCell(0).getStringCellValue());
+        }
+
+        excelDataProvider.writeSuccessResult(5);
+        excelDataProvider.flush();
+        Assert.assertEquals(Messages.getMessage(Messages.SUCCESS_MESSAGE), readResult(result, 5));
+        Assert.assertEquals("UT Failed Message", readResult(result, 3));
+        Assert.assertEquals(1, out.list().length);
+    }
+
+    @Test
+    public void testStreamingOutputKeepsTypesAndStylesAcrossFlushes() throws TechnicalException, IOException {
+        File out = folder.newFolder("out");
+        File result = new File(out, "hello.xlsx");
+        try (FileInputStream in = new FileInputStream("src/test/resources" + DATA_IN + "hello.xlsx"); Workbook workbook = new XSSFWorkbook(in)) {
+            Sheet other = workbook.createSheet("other");
+            other.createRow(0).createCell(0).setCellValue("kept");
+            other.getRow(0).createCell(1).setCellValue(42);
+            try (FileOutputStream fileOut = new FileOutputStream(result)) {
+                workbook.write(fileOut);
+            }
+        }
+
+        StreamingOutputExcelDataProvider excelDataProvider = new StreamingOutputExcelDataProvider();
+        excelDataProvider.setDataOutPath(out.getPath() + File.separator);
+        excelDataProvider.prepare("hello");
+        excelDataProvider.writeFailedResult(3, "UT Failed Message");
+        excelDataProvider.flush();
+        excelDataProvider.writeSuccessResult(4);
+        excelDataProvider.flush();
+
+        try (FileInputStream in = new FileInputStream(result); Workbook workbook = new XSSFWorkbook(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Cell failed = sheet.getRow(3).getCell(7);
+            Assert.assertEquals("UT Failed Message", failed.getStringCellValue());
+            Assert.assertEquals(HSSFColor.HSSFColorPredefined.RED.getIndex(), workbook.getFontAt(failed.getCellStyle().getFontIndex()).getColor());
+            Cell success = sheet.getRow(4).getCell(7);
+            Assert.assertEquals(HSSFColor.HSSFColorPredefined.GREEN.getIndex(), workbook.getFontAt(success.getCellStyle().getFontIndex()).getColor());
+
+            Cell date = sheet.getRow(1).getCell(5);
+            Assert.assertEquals(CellType.NUMERIC, date.getCellTypeEnum());
+            Assert.assertTrue(DateUtil.isCellDateFormatted(date));
+            Assert.assertEquals("16/01/2020", ExcelDataProvider.DATE_FORMATTER.print(date.getDateCellValue().getTime()));
+            Assert.assertEquals(CellType.BLANK, sheet.getRow(1).getCell(6).getCellTypeEnum());
+            Assert.assertEquals(CellType.NUMERIC, sheet.getRow(2).getCell(7).getCellTypeEnum());
+            Assert.assertEquals(30.0, sheet.getRow(2).getCell(7).getNumericCellValue(), 0);
+            Assert.assertEquals("Jenkins T8", sheet.getRow(8).getCell(0).getStringCellValue());
+
+            Assert.assertEquals(2, workbook.getNumberOfSheets());
+            Assert.assertEquals("other", workbook.getSheetName(1));
+            Assert.assertEquals("kept", workbook.getSheetAt(1).getRow(0).getCell(0).getStringCellValue());
+            Assert.assertEquals(42, workbook.getSheetAt(1).getRow(0).getCell(1).getNumericCellValue(), 0);
+        }
+    }
+
+    @Test
+    public void testStreamingOutputWritesRowsOutOfWindow() throws TechnicalException, IOException {
+        File out = folder.newFolder("out");
+        File result = new File(out, "hello.xlsx");
+        int lastLine = 3 * StreamingOutputExcelDataProvider.ROW_ACCESS_WINDOW;
+        try (FileInputStream in = new FileInputStream("src/test/resources" + DATA_IN + "hello.xlsx"); Workbook workbook = new XSSFWorkbook(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (int i = sheet.getLastRowNum() + 1; i <= lastLine; i++) {
+                sheet.createRow(i).createCell(0).setCellValue("Jenkins T" + i);
+            }
+            try (FileOutputStream fileOut = new FileOutputStream(result)) {
+                workbook.write(fileOut);
+            }
+        }
+
+        StreamingOutputExcelDataProvider excelDataProvider = new StreamingOutputExcelDataProvider();
+        excelDataProvider.setDataOutPath(out.getPath() + File.separator);
+        excelDataProvider.setWriteBehindPolicy(new WriteBehindPolicy(1000, 0));
+        excelDataProvider.prepare("hello");
+        // lines of a fused example far from each other, then a result of an earlier line rewritten
+        excelDataProvider.writeFailedResult(1, "UT Failed Message");
+        excelDataProvider.writeFailedResult(lastLine, "UT Failed Message");
+        excelDataProvider.writeSuccessResult(2);
+        excelDataProvider.writeWarningResult(1, "UT Warning Message");
+        excelDataProvider.flush();
+
+        Assert.assertEquals("UT Warning Message", readResult(result, 1));
+        Assert.assertEquals(Messages.getMessage(Messages.SUCCESS_MESSAGE), readResult(result, 2));
+        Assert.assertEquals("UT Failed Message", readResult(result, lastLine));
+        try (FileInputStream in = new FileInputStream(result); Workbook workbook = new XSSFWorkbook(in)) {
+            Assert.assertEquals("Jenkins T" + (lastLine - 1), workbook.getSheetAt(0).getRow(lastLine - 1).getCell(0).getStringCellValue());
+        }
+        Assert.assertEquals(1, out.list().length);
+    }
+
+    @Test
+    public void testStreamingOutputWriteThrough() throws TechnicalException, IOException {
+        File out = folder.newFolder("out");
+        File result = new File(out, "hello.xlsx");
+        Files.copy(new File("src/test/resources" + DATA_IN + "hello.xlsx").toPath(), result.toPath());
+
+        StreamingOutputExcelDataProvider excelDataProvider = new StreamingOutputExcelDataProvider();
+        excelDataProvider.setDataOutPath(out.getPath() + File.separator);
+        excelDataProvider.setWriteBehindPolicy(WriteBehindPolicy.WRITE_THROUGH);
+        excelDataProvider.prepare("hello");
+        excelDataProvider.writeFailedResult(3, "UT Failed Message");
+        Assert.assertEquals("UT Failed Message", readResult(result, 3));
+    }
+
+    private String readResult(File file, int line) throws IOException {
+        try (FileInputStream in = new FileInputStream(file); Workbook workbook = new XSSFWorkbook(in)) {
+            return workbook.getSheetAt(0).getRow(line).getCell(7).getStringCellValue();
+        }
+    }
+
 }
@@ -6,13 +6,16 @@
  */
 package com.github.noraui.data.rest;
 
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.util.Arrays;
 
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.github.noraui.data.WriteBehindPolicy;
 import com.github.noraui.exception.HttpServiceException;
 import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.exception.data.WebServicesException;
@@ -61,4 +64,173 @@ public class RestDataProviderUT {
         restDataProvider.writeWarningResult(3, "UT Warning Message");
         restDataProvider.writeDataResult("title", 4, "UT title");
     }
+
+    @Test
+    public void testReadRows() throws WebServicesException, TechnicalException, HttpServiceException {
+        final HttpService httpServiceMock = Mockito.mock(HttpService.class);
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello/columns")).thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":null}");
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello")).thenReturn(
+                "{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T1\",\"35000\",\"MY TITLE\"],\"errorStepIndex\":-1},{\"columns\":[\"Jenkins T2\",\"75000\",\"\"],\"errorStepIndex\":24,\"result\":\"KO\"}]}");
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello/line/2"))
+                .thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T2\",\"75000\",\"\"],\"errorStepIndex\":24,\"result\":\"KO\"}]}");
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/", "hello/nbLines")).thenReturn("2");
+
+        RestDataProvider restDataProvider = new RestDataProvider(RestDataProvider.types.JSON.toString(), "http://localhost", "8084");
+        restDataProvider.setHttpService(httpServiceMock);
+        restDataProvider.setBulk(true);
+        restDataProvider.prepare("hello");
+        Assert.assertEquals(3, restDataProvider.getNbLines());
+        Assert.assertArrayEquals(new String[] { "Jenkins T2", "75000", "", "24" }, restDataProvider.readLine(2, true));
+        Assert.assertEquals("MY TITLE", restDataProvider.readValue("title", 1));
+        Assert.assertEquals("KO", restDataProvider.readValue(restDataProvider.getResultColumnName(), 2));
+        Assert.assertNull(restDataProvider.readLine(3, true));
+        Mockito.verify(httpServiceMock, Mockito.times(1)).get("http://localhost:8084/noraui/api/hello");
+        Mockito.verify(httpServiceMock, Mockito.never()).get("http://localhost:8084/noraui/api/", "hello/nbLines");
+
+        restDataProvider.setBulk(false);
+        restDataProvider.prepare("hello");
+        Assert.assertEquals("75000", restDataProvider.readValue("zip", 2));
+        Assert.assertEquals("Jenkins T2", restDataProvider.readLine(2, false)[0]);
+        Assert.assertEquals(3, restDataProvider.getNbLines());
+        Assert.assertEquals(3, restDataProvider.getNbLines());
+        Mockito.verify(httpServiceMock, Mockito.times(1)).get("http://localhost:8084/noraui/api/hello/line/2");
+        Mockito.verify(httpServiceMock, Mockito.times(1)).get("http://localhost:8084/noraui/api/", "hello/nbLines");
+    }
+
+    @Test
+    public void testReadHeadersInBulk() throws WebServicesException, TechnicalException, HttpServiceException {
+        final HttpService httpServiceMock = Mockito.mock(HttpService.class);
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello/columns")).thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":null}");
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello/line/0"))
+                .thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"author\",\"zip\",\"title\"],\"errorStepIndex\":-1}]}");
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello")).thenReturn(
+                "{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T1\",\"35000\",\"MY TITLE\"],\"errorStepIndex\":-1}]}",
+                "{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T1\",\"35000\",\"OTHER TITLE\"],\"errorStepIndex\":-1}]}");
+
+        RestDataProvider restDataProvider = new RestDataProvider(RestDataProvider.types.JSON.toString(), "http://localhost", "8084");
+        restDataProvider.setHttpService(httpServiceMock);
+        restDataProvider.setBulk(true);
+        restDataProvider.prepare("hello");
+        Assert.assertArrayEquals(new String[] { "author", "zip", "title", "-1" }, restDataProvider.readLine(0, false));
+        Assert.assertArrayEquals(new String[] { "author", "zip", "title", "-1" }, restDataProvider.readLine(0, false));
+        Assert.assertEquals("MY TITLE", restDataProvider.readValue("title", 1));
+        final String fingerprint = restDataProvider.getDataFingerprint();
+
+        restDataProvider.prepare("hello");
+        Assert.assertEquals("OTHER TITLE", restDataProvider.readValue("title", 1));
+        Assert.assertNotEquals(fingerprint, restDataProvider.getDataFingerprint());
+        Mockito.verify(httpServiceMock, Mockito.times(2)).get("http://localhost:8084/noraui/api/hello/line/0");
+        Mockito.verify(httpServiceMock, Mockito.never()).get("http://localhost:8084/noraui/api/hello/line/1");
+    }
+
+    @Test
+    public void testFingerprintFromValidator() throws WebServicesException, TechnicalException, HttpServiceException {
+        final HttpService httpServiceMock = Mockito.mock(HttpService.class);
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello/columns")).thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":null}");
+        Mockito.when(httpServiceMock.getValidator("http://localhost:8084/noraui/api/hello")).thenReturn("ETag \"v1\"", "ETag \"v1\"", "ETag \"v2\"");
+
+        RestDataProvider restDataProvider = new RestDataProvider(RestDataProvider.types.JSON.toString(), "http://localhost", "8084");
+        restDataProvider.setHttpService(httpServiceMock);
+        restDataProvider.prepare("hello");
+        final String fingerprint = restDataProvider.getDataFingerprint();
+        Assert.assertNotNull(fingerprint);
+        Assert.assertEquals(fingerprint, restDataProvider.getDataFingerprint());
+        Assert.assertNotEquals(fingerprint, restDataProvider.getDataFingerprint());
+        Mockito.verify(httpServiceMock, Mockito.never()).get(Mockito.startsWith("http://localhost:8084/noraui/api/hello/line/"));
+    }
+
+    @Test
+    public void testReadRowsConcurrently() throws WebServicesException, TechnicalException, HttpServiceException {
+        final HttpService httpServiceMock = Mockito.mock(HttpService.class);
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello/columns")).thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":null}");
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello")).thenThrow(new HttpServiceException("UT"));
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/", "hello/nbLines")).thenReturn("2");
+        Mockito.when(httpServiceMock.getAll(Arrays.asList("http://localhost:8084/noraui/api/hello/line/1", "http://localhost:8084/noraui/api/hello/line/2"), 4))
+                .thenReturn(Arrays.asList("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T1\",\"35000\",\"MY TITLE\"],\"errorStepIndex\":-1}]}",
+                        "{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T2\",\"75000\",\"\"],\"errorStepIndex\":24,\"result\":\"KO\"}]}"));
+
+        RestDataProvider restDataProvider = new RestDataProvider(RestDataProvider.types.JSON.toString(), "http://localhost", "8084");
+        restDataProvider.setHttpService(httpServiceMock);
+        restDataProvider.setBulk(true);
+        restDataProvider.prepare("hello");
+        Assert.assertEquals(3, restDataProvider.getNbLines());
+        Assert.assertEquals("MY TITLE", restDataProvider.readValue("title", 1));
+        Assert.assertArrayEquals(new String[] { "Jenkins T2", "75000", "", "24" }, restDataProvider.readLine(2, true));
+
+        restDataProvider.prepare("hello");
+        Assert.assertEquals("KO", restDataProvider.readValue(restDataProvider.getResultColumnName(), 2));
+        Mockito.verify(httpServiceMock, Mockito.times(1)).get("http://localhost:8084/noraui/api/hello");
+        Mockito.verify(httpServiceMock, Mockito.times(2)).getAll(Mockito.anyListOf(String.class), Mockito.eq(4));
+        Mockito.verify(httpServiceMock, Mockito.never()).get("http://localhost:8084/noraui/api/hello/line/1");
+    }
+
+    @Test
+    public void testWriteBehind() throws WebServicesException, TechnicalException, HttpServiceException, IOException, InterruptedException {
+        final HttpService httpServiceMock = Mockito.mock(HttpService.class);
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello/columns")).thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":null}");
+        Mockito.when(httpServiceMock.post("http://localhost:8084/noraui/api/hello/column/3/line/1", "UT Warning Message")).thenThrow(new HttpServiceException("UT"))
+                .thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T1\",\"35000\",\"\"],\"errorStepIndex\":-1,\"result\":\"UT Warning Message\"}]}");
+        Mockito.when(httpServiceMock.post("http://localhost:8084/noraui/api/hello/column/2/line/1", "UT title"))
+                .thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T1\",\"35000\",\"UT title\"],\"errorStepIndex\":-1}]}");
+
+        RestDataProvider restDataProvider = new RestDataProvider(RestDataProvider.types.JSON.toString(), "http://localhost", "8084");
+        restDataProvider.setHttpService(httpServiceMock);
+        restDataProvider.setWriteBehindPolicy(new WriteBehindPolicy(10, 0));
+        restDataProvider.prepare("hello");
+        restDataProvider.writeFailedResult(1, "UT Failed Message");
+        restDataProvider.writeWarningResult(1, "UT Warning Message");
+        restDataProvider.writeDataResult("title", 1, "UT title");
+        Mockito.verify(httpServiceMock, Mockito.never()).post(Mockito.anyString(), Mockito.anyString());
+
+        restDataProvider.flush();
+        Mockito.verify(httpServiceMock, Mockito.never()).post("http://localhost:8084/noraui/api/hello/column/3/line/1", "UT Failed Message");
+        Mockito.verify(httpServiceMock, Mockito.times(2)).post("http://localhost:8084/noraui/api/hello/column/3/line/1", "UT Warning Message");
+        Mockito.verify(httpServiceMock, Mockito.times(1)).post("http://localhost:8084/noraui/api/hello/column/2/line/1", "UT title");
+
+        Assert.assertEquals("UT Warning Message", RestDataProvider.readWrittenValue("{\"rows\":[{\"columns\":[\"a\"],\"result\":\"KO\"},{\"result\":\"UT Warning Message\",\"columns\":[\"b\"]}]}", 2, -1));
+        Assert.assertEquals("b", RestDataProvider.readWrittenValue("{\"columns\":[\"x\"],\"rows\":[{\"columns\":[\"a\"]},{\"columns\":[\"b\"]}]}", 2, 0));
+        Assert.assertNull(RestDataProvider.readWrittenValue("{\"rows\":null}", 1, 0));
+
+        // the background sender stops when it is replaced
+        restDataProvider.setWriteBehindPolicy(WriteBehindPolicy.WRITE_THROUGH);
+        for (int i = 0; i < 50 && isSenderRunning(); i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertFalse(isSenderRunning());
+    }
+
+    @Test(timeout = 30000)
+    public void testWriteBehindSenderRestartsAfterError() throws WebServicesException, TechnicalException, HttpServiceException {
+        final HttpService httpServiceMock = Mockito.mock(HttpService.class);
+        Mockito.when(httpServiceMock.get("http://localhost:8084/noraui/api/hello/columns")).thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":null}");
+        Mockito.when(httpServiceMock.post("http://localhost:8084/noraui/api/hello/column/2/line/1", "UT title")).thenThrow(new StackOverflowError("UT"))
+                .thenReturn("{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":[{\"columns\":[\"Jenkins T1\",\"35000\",\"UT title\"],\"errorStepIndex\":-1}]}");
+
+        RestDataProvider restDataProvider = new RestDataProvider(RestDataProvider.types.JSON.toString(), "http://localhost", "8084");
+        restDataProvider.setHttpService(httpServiceMock);
+        restDataProvider.setWriteBehindPolicy(new WriteBehindPolicy(10, 0));
+        restDataProvider.prepare("hello");
+        restDataProvider.writeDataResult("title", 1, "UT title");
+        try {
+            restDataProvider.flush();
+            Assert.fail("TechnicalException expected");
+        } catch (TechnicalException e) {
+            Assert.assertNotNull(e.getMessage());
+        }
+
+        // a new sender thread sends next results
+        restDataProvider.writeDataResult("title", 1, "UT title");
+        restDataProvider.flush();
+        Mockito.verify(httpServiceMock, Mockito.times(2)).post("http://localhost:8084/noraui/api/hello/column/2/line/1", "UT title");
+        restDataProvider.setWriteBehindPolicy(WriteBehindPolicy.WRITE_THROUGH);
+    }
+
+    private static boolean isSenderRunning() {
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if ("noraui-rest-result-sender".equals(thread.getName()) && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -6,14 +6,28 @@
  */
 package com.github.noraui.gherkin;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class GherkinFactoryUT {
 
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void testConstructorIsPrivate() throws Exception {
         Constructor<GherkinFactory> constructor = GherkinFactory.class.getDeclaredConstructor();
@@ -22,4 +36,49 @@ public class GherkinFactoryUT {
         constructor.newInstance();
     }
 
+    @Test
+    public void testReadExamples() throws IOException {
+        File feature = folder.newFile("hello.feature");
+        Files.write(feature.toPath(), Arrays.asList("Feature: hello", "  Scenario Outline: hello", "    Given I say hello", "  Examples:", "    #DATA", "    |id|author|zip|",
+                "    |1|Jenkins T1|35000|", "    |2|Jenkins T2|75000|", "    #END"), StandardCharsets.UTF_8);
+        Path path = feature.toPath();
+        FileTime lastModified = Files.getLastModifiedTime(path);
+        GherkinExamples examples = GherkinFactory.readExamples(path, lastModified, Files.size(path));
+        Assert.assertEquals(3, examples.size());
+        Assert.assertArrayEquals(new String[] { "    |id|author|zip|", "    |1|Jenkins T1|35000|", "    |2|Jenkins T2|75000|" }, examples.getLines());
+        Assert.assertEquals(Arrays.asList("id", "author", "zip"), examples.getColumns());
+        Assert.assertArrayEquals(new String[] { "    ", "2", "Jenkins T2", "75000", "" }, examples.getCells(2));
+        Assert.assertTrue(examples.isUpToDate(lastModified, Files.size(path)));
+        Assert.assertFalse(examples.isUpToDate(lastModified, Files.size(path) + 1));
+        Assert.assertFalse(examples.isUpToDate(FileTime.fromMillis(lastModified.toMillis() + 1000), Files.size(path)));
+
+        Files.write(path, Arrays.asList("Feature: hello", "    #DATA", "    |id|author|zip|"), StandardCharsets.UTF_8);
+        Assert.assertEquals(0, GherkinFactory.readExamples(path, lastModified, Files.size(path)).size());
+        Assert.assertEquals(0, GherkinExamples.EMPTY.size());
+        Assert.assertTrue(GherkinExamples.EMPTY.getColumns().isEmpty());
+    }
+
+    @Test
+    public void testInjectDataInGherkinExamples() throws IOException, NoSuchAlgorithmException {
+        Path path = folder.newFile("hello.feature").toPath();
+        String before = "Feature: hello\r\n  Scenario Outline: hello\r\n  Examples:\r\n    #DATA\r\n    |id|author|zip|\r\n    |1|old|0|\r\n    #END\r\n# end of feature\r\n";
+        Files.write(path, before.getBytes(StandardCharsets.UTF_8));
+        List<String[]> lines = Arrays.asList(new String[] { "Jenkins T1", "35000" }, new String[] { "$1 Jenkins T2", "75000" });
+
+        Assert.assertTrue(GherkinFactory.injectDataInGherkinExamples(path, lines));
+        String after = "Feature: hello\r\n  Scenario Outline: hello\r\n  Examples:\r\n    #DATA\r\n    |id|author|zip|\r\n    |1|Jenkins T1|35000|\n    |2|$1 Jenkins T2|75000|\n    #END\r\n# end of feature\r\n";
+        Assert.assertEquals(after, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+
+        FileTime lastModified = FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() - 60000);
+        Files.setLastModifiedTime(path, lastModified);
+        Assert.assertFalse(GherkinFactory.injectDataInGherkinExamples(path, lines));
+        Assert.assertEquals(lastModified, Files.getLastModifiedTime(path));
+        Assert.assertEquals(after, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+        Assert.assertFalse(Files.exists(path.resolveSibling("hello.feature.tmp")));
+
+        Files.write(path, "Feature: hello\n    #DATA\n    |id|author|zip|\n".getBytes(StandardCharsets.UTF_8));
+        Assert.assertFalse(GherkinFactory.injectDataInGherkinExamples(path, lines));
+        Assert.assertEquals("Feature: hello\n    #DATA\n    |id|author|zip|\n", new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+    }
+
 }
@@ -0,0 +1,47 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.main;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InjectionManifestUT {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSkipUnchangedScenarios() throws IOException {
+        File file = new File(folder.getRoot(), "target/injection.manifest");
+        InjectionManifest manifest = new InjectionManifest(file);
+        Assert.assertFalse(manifest.isUpToDate("hello", "d1", "f1"));
+        manifest.put("hello", "d1", "f1", 1200);
+        manifest.put("bonjour", null, "f2", 300);
+        manifest.save();
+        Assert.assertTrue(file.isFile());
+
+        manifest = new InjectionManifest(file);
+        Assert.assertTrue(manifest.isUpToDate("hello", "d1", "f1"));
+        Assert.assertFalse(manifest.isUpToDate("hello", "d2", "f1"));
+        Assert.assertFalse(manifest.isUpToDate("hello", "d1", "f2"));
+        Assert.assertFalse(manifest.isUpToDate("hello", null, "f1"));
+        Assert.assertFalse(manifest.isUpToDate("bonjour", null, "f2"));
+        Assert.assertEquals(1200, manifest.skip("hello"));
+        Assert.assertEquals(1, manifest.getSkipped());
+        Assert.assertEquals(1200, manifest.getSavedTime());
+
+        long lastModified = file.lastModified();
+        manifest.save();
+        Assert.assertEquals(lastModified, file.lastModified());
+    }
+
+}
@@ -6,9 +6,21 @@
  */
 package com.github.noraui.main;
 
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.github.noraui.data.CommonDataProvider;
+import com.github.noraui.data.DataInputProvider;
+import com.github.noraui.exception.TechnicalException;
 import com.github.noraui.utils.Context;
 
 public class ScenarioInitiatorUT {
@@ -63,4 +75,84 @@ public class ScenarioInitiatorUT {
         ScenarioInitiatorRunner.main(null);
         Context.clear();
     }
+
+    @Test
+    public void testProcessInjectionsClosesProvidersAndCollectsErrors() {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<FailingDataProvider> providers = Collections.synchronizedList(new ArrayList<FailingDataProvider>());
+        Map<String, Throwable> errors = ScenarioInitiator.processInjections(Arrays.asList("hello", "bonjour", "blog", "LoginLogout"), 2, new Callable<DataInputProvider>() {
+
+            @Override
+            public DataInputProvider call() {
+                FailingDataProvider provider = new FailingDataProvider(running, maxRunning);
+                providers.add(provider);
+                return provider;
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList("hello", "bonjour", "blog", "LoginLogout"), new ArrayList<>(errors.keySet()));
+        for (Map.Entry<String, Throwable> error : errors.entrySet()) {
+            Assert.assertTrue(error.getValue() instanceof TechnicalException);
+            Assert.assertEquals("No data for " + error.getKey(), error.getValue().getMessage());
+        }
+        Assert.assertEquals(4, providers.size());
+        for (FailingDataProvider provider : providers) {
+            Assert.assertTrue(provider.closed);
+        }
+        Assert.assertTrue(maxRunning.get() <= 2);
+    }
+
+    /**
+     * Input provider failing to prepare any scenario, counting the scenarios prepared at the same time.
+     */
+    private static class FailingDataProvider extends CommonDataProvider implements DataInputProvider, Closeable {
+
+        private final AtomicInteger running;
+        private final AtomicInteger maxRunning;
+        private volatile boolean closed;
+
+        FailingDataProvider(AtomicInteger running, AtomicInteger maxRunning) {
+            this.running = running;
+            this.maxRunning = maxRunning;
+        }
+
+        @Override
+        public void prepare(String scenario) throws TechnicalException {
+            int current = running.incrementAndGet();
+            int max;
+            while (current > (max = maxRunning.get()) && !maxRunning.compareAndSet(max, current)) {
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            throw new TechnicalException("No data for " + scenario);
+        }
+
+        @Override
+        public int getNbLines() {
+            return 0;
+        }
+
+        @Override
+        public String readValue(String column, int line) {
+            return null;
+        }
+
+        @Override
+        public String[] readLine(int line, boolean readResult) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
 }
@@ -0,0 +1,85 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.noraui.exception.HttpServiceException;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.service.impl.HttpClientPool;
+import com.github.noraui.service.impl.HttpServiceImpl;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpClientPoolUT {
+
+    private static HttpServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/noraui/api/hello/nbLines", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final byte[] body = "8".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testClientIsSharedPerProxy() {
+        HttpClientPool pool = HttpClientPool.getInstance();
+        Assert.assertSame(pool.getClient(null, HttpClientPolicy.DEFAULT), pool.getClient("", HttpClientPolicy.DEFAULT));
+        Assert.assertSame(pool.getClient("proxy:8080", HttpClientPolicy.DEFAULT), pool.getClient("proxy:8080", HttpClientPolicy.DEFAULT));
+        Assert.assertNotSame(pool.getClient(null, HttpClientPolicy.DEFAULT), pool.getClient("proxy:8080", HttpClientPolicy.DEFAULT));
+        Assert.assertSame(pool.getClient(null, HttpClientPolicy.DEFAULT).connectionPool(), pool.getClient("proxy:8080", HttpClientPolicy.DEFAULT).connectionPool());
+        Assert.assertEquals(2, pool.getClients());
+
+        HttpClientPolicy policy = HttpClientPolicy.valueOf("2", null, " 500 ", "");
+        Assert.assertEquals(2, policy.getMaxIdleConnections());
+        Assert.assertEquals(500, pool.getClient(null, policy).connectTimeoutMillis());
+        Assert.assertEquals(HttpClientPolicy.DEFAULT.getReadTimeout(), pool.getClient(null, policy).readTimeoutMillis());
+        Assert.assertEquals(1, pool.getClients());
+        pool.getClient(null, HttpClientPolicy.DEFAULT);
+    }
+
+    @Test
+    public void testConnectionIsReused() throws HttpServiceException, TechnicalException {
+        HttpClientPool pool = HttpClientPool.getInstance();
+        long newConnections = pool.getNewConnections();
+        long reusedConnections = pool.getReusedConnections();
+        HttpService httpService = new HttpServiceImpl();
+        String api = "http://localhost:" + server.getAddress().getPort() + "/noraui/api/";
+        Assert.assertEquals("8", httpService.get(api, "hello/nbLines"));
+        Assert.assertEquals("8", httpService.get(api, "hello/nbLines"));
+        Assert.assertEquals("8", httpService.get(api + "hello/nbLines"));
+        Assert.assertEquals(1, pool.getNewConnections() - newConnections);
+        Assert.assertEquals(2, pool.getReusedConnections() - reusedConnections);
+        Assert.assertEquals(1, pool.getIdleConnections());
+    }
+
+}
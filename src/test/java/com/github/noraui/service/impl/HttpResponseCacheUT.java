@@ -0,0 +1,171 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.noraui.exception.HttpServiceException;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.service.HttpCachePolicy;
+import com.github.noraui.service.HttpClientPolicy;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpResponseCacheUT {
+
+    private static final AtomicInteger calls = new AtomicInteger();
+    private static final AtomicInteger notModified = new AtomicInteger();
+    private static final AtomicInteger validatedNotModified = new AtomicInteger();
+    private static HttpServer server;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/noraui/api/reference", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                calls.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                final byte[] body = "{\"countries\":[\"FR\",\"US\"]}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.createContext("/noraui/api/validated", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().add("ETag", "\"v2\"");
+                if ("\"v2\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    validatedNotModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+                if ("HEAD".equals(exchange.getRequestMethod())) {
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                    return;
+                }
+                final byte[] body = "{\"currencies\":[\"EUR\",\"USD\"]}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        HttpClientPool.getInstance().getClient(null, HttpClientPolicy.DEFAULT).connectionPool().evictAll();
+        server.stop(0);
+    }
+
+    @Test
+    public void testPolicy() {
+        Assert.assertSame(HttpCachePolicy.DISABLED, HttpCachePolicy.valueOf(Arrays.asList("", " "), "10", "10", null));
+        Assert.assertFalse(HttpCachePolicy.DISABLED.isCached("http://localhost/noraui/api/reference"));
+        HttpCachePolicy policy = HttpCachePolicy.valueOf(Arrays.asList(" .*/reference ", "http://localhost/hello/.*"), null, "", " ");
+        Assert.assertTrue(policy.isEnabled());
+        Assert.assertTrue(policy.isCached("http://localhost/noraui/api/reference"));
+        Assert.assertTrue(policy.isCached("http://localhost/hello/columns"));
+        Assert.assertFalse(policy.isCached("http://localhost/noraui/api/reference/1"));
+        Assert.assertEquals(HttpCachePolicy.DEFAULT_MAX_ENTRIES, policy.getMaxEntries());
+        Assert.assertEquals(HttpCachePolicy.SERVER_MAX_AGE, policy.getMaxAge());
+        Assert.assertNull(policy.getDirectory());
+    }
+
+    @Test
+    public void testConditionalGetAndPersistence() throws HttpServiceException, TechnicalException, IOException {
+        HttpResponseCache cache = HttpResponseCache.getInstance();
+        cache.clear();
+        long hits = cache.getHits();
+        long revalidations = cache.getRevalidations();
+        long misses = cache.getMisses();
+        int initialCalls = calls.get();
+        HttpServiceImpl httpService = new HttpServiceImpl();
+        String url = "http://localhost:" + server.getAddress().getPort() + "/noraui/api/reference";
+        String directory = folder.newFolder().getAbsolutePath();
+
+        // no max-age: each GET is revalidated
+        HttpCachePolicy policy = HttpCachePolicy.valueOf(Collections.singletonList(".*/reference"), "2", null, directory);
+        Assert.assertEquals("{\"countries\":[\"FR\",\"US\"]}", httpService.getCached(url, policy));
+        Assert.assertEquals("{\"countries\":[\"FR\",\"US\"]}", httpService.getCached(url, policy));
+        Assert.assertEquals(2, calls.get() - initialCalls);
+        Assert.assertEquals(1, notModified.get());
+        Assert.assertEquals(1, cache.getMisses() - misses);
+        Assert.assertEquals(1, cache.getRevalidations() - revalidations);
+
+        // max-age override: GETs are served without calling the server
+        policy = HttpCachePolicy.valueOf(Collections.singletonList(".*/reference"), "2", "60000", directory);
+        Assert.assertEquals("{\"countries\":[\"FR\",\"US\"]}", httpService.getCached(url, policy));
+        Assert.assertEquals("{\"countries\":[\"FR\",\"US\"]}", httpService.getCached(url, policy));
+        Assert.assertEquals("{\"countries\":[\"FR\",\"US\"]}", httpService.getCached(url, policy));
+        Assert.assertEquals(3, calls.get() - initialCalls);
+        Assert.assertEquals(2, cache.getHits() - hits);
+        Assert.assertEquals(1, cache.getEntries());
+
+        // responses are read again from the directory
+        cache.clear();
+        Assert.assertEquals(0, cache.getEntries());
+        Assert.assertEquals("{\"countries\":[\"FR\",\"US\"]}", httpService.getCached(url, policy));
+        Assert.assertEquals(3, calls.get() - initialCalls);
+        Assert.assertEquals(3, cache.getHits() - hits);
+        Assert.assertTrue(cache.getHitRatio() > 0.5);
+
+        // one entry file and no temporary file left in the directory
+        Assert.assertEquals(1, new File(directory).list().length);
+        Assert.assertFalse(new File(directory).list()[0].endsWith(".tmp"));
+    }
+
+    @Test
+    public void testValidator() throws HttpServiceException, TechnicalException, IOException {
+        HttpResponseCache.getInstance().clear();
+        HttpServiceImpl httpService = new HttpServiceImpl();
+        String url = "http://localhost:" + server.getAddress().getPort() + "/noraui/api/validated";
+
+        // not cached: HEAD
+        Assert.assertEquals("ETag \"v2\"", httpService.getValidator(url, HttpCachePolicy.DISABLED));
+
+        // cached: conditional GET answered by 304
+        HttpCachePolicy policy = HttpCachePolicy.valueOf(Collections.singletonList(".*/validated"), "2", null, folder.newFolder().getAbsolutePath());
+        httpService.getCached(url, policy);
+        Assert.assertEquals(0, validatedNotModified.get());
+        Assert.assertEquals("ETag \"v2\"", httpService.getValidator(url, policy));
+        Assert.assertEquals(1, validatedNotModified.get());
+    }
+
+}
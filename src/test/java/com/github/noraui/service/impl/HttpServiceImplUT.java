@@ -0,0 +1,119 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.github.noraui.exception.HttpServiceException;
+import com.github.noraui.exception.TechnicalException;
+import com.github.noraui.service.HttpClientPolicy;
+import com.github.noraui.service.HttpService;
+import com.github.noraui.service.HttpServiceCallback;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpServiceImplUT {
+
+    private static HttpServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/noraui/api/hello/nbLines", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final byte[] body = "8".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.createContext("/noraui/api/hello/columns", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                final byte[] body = "{\"columns\":[\"author\",\"zip\",\"title\"],\"rows\":null}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testJsonValue() throws HttpServiceException, TechnicalException {
+        HttpService httpService = new HttpServiceImpl();
+        String url = "http://localhost:" + server.getAddress().getPort() + "/noraui/api/hello/columns";
+        Assert.assertEquals("zip", httpService.getJsonValue(url, "$.columns[1]"));
+        Assert.assertEquals("[\"author\",\"zip\",\"title\"]", httpService.getJsonValue(url, "$.columns"));
+        Assert.assertNull(httpService.getJsonValue(url, "$.rows[0]"));
+        HttpClientPool.getInstance().getClient(null, HttpClientPolicy.DEFAULT).connectionPool().evictAll();
+    }
+
+    @Test
+    public void testNoValidator() throws HttpServiceException, TechnicalException {
+        HttpService httpService = new HttpServiceImpl();
+        Assert.assertNull(httpService.getValidator("http://localhost:" + server.getAddress().getPort() + "/noraui/api/hello/nbLines"));
+        HttpClientPool.getInstance().getClient(null, HttpClientPolicy.DEFAULT).connectionPool().evictAll();
+    }
+
+    @Test
+    public void testAsyncCalls() throws HttpServiceException, TechnicalException, InterruptedException {
+        HttpService httpService = new HttpServiceImpl();
+        String url = "http://localhost:" + server.getAddress().getPort() + "/noraui/api/hello/nbLines";
+        final AtomicReference<String> response = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        httpService.getAsync(url, new HttpServiceCallback() {
+
+            @Override
+            public void onResponse(String json) {
+                response.set(json);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(HttpServiceException e) {
+                done.countDown();
+            }
+        });
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals("8", response.get());
+        Assert.assertEquals(Arrays.asList("8", "8", "8", "8", "8"), httpService.getAll(Arrays.asList(url, url, url, url, url), 2));
+        Assert.assertTrue(httpService.getAll(new ArrayList<String>(), 2).isEmpty());
+        try {
+            httpService.getAll(Arrays.asList(url, "http://localhost:1/noraui/api/hello/nbLines"), 2);
+            Assert.fail("HttpServiceException expected");
+        } catch (HttpServiceException e) {
+            Assert.assertNotNull(e.getMessage());
+        }
+        HttpClientPool.getInstance().getClient(null, HttpClientPolicy.DEFAULT).connectionPool().evictAll();
+    }
+
+}
@@ -0,0 +1,54 @@
+/**
+ * NoraUi is licensed under the license GNU AFFERO GENERAL PUBLIC LICENSE
+ *
+ * @author Nicolas HALLOUIN
+ * @author Stéphane GRILLON
+ */
+package com.github.noraui.service.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.noraui.exception.TechnicalException;
+
+public class JsonPathExtractorUT {
+
+    private static final String JSON = "{\"total_count\":2,\"incomplete\":false,\"items\":[{\"login\":\"jenkins\",\"id\":1,\"site\":null},{\"login\":\"noraui\",\"id\":2,\"tags\":[\"a\",\"b\"]}],\"next\":{\"page\":2}}";
+
+    @Test
+    public void testExtract() throws TechnicalException, IOException {
+        Assert.assertEquals("2", extract("$.total_count"));
+        Assert.assertEquals("2", extract("total_count"));
+        Assert.assertEquals("false", extract("$.incomplete"));
+        Assert.assertEquals("jenkins", extract("$.items[0].login"));
+        Assert.assertEquals("noraui", extract("$.items[1].login"));
+        Assert.assertEquals("b", extract("$.items[1].tags[1]"));
+        Assert.assertEquals("[\"a\",\"b\"]", extract("$.items[1].tags"));
+        Assert.assertEquals("{\"page\":2}", extract("$.next"));
+        Assert.assertNull(extract("$.items[0].site"));
+        Assert.assertNull(extract("$.items[2].login"));
+        Assert.assertNull(extract("$.items[0].unknown"));
+        Assert.assertNull(extract("$.total_count[0]"));
+        Assert.assertNull(extract("$.items.login"));
+    }
+
+    @Test
+    public void testWrongPath() {
+        for (final String path : new String[] { null, "", "$", "$.items[a]", "$.items..login", "$.items[0" }) {
+            try {
+                new JsonPathExtractor(path);
+                Assert.fail("TechnicalException expected for " + path);
+            } catch (final TechnicalException e) {
+                Assert.assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    private static String extract(String path) throws TechnicalException, IOException {
+        return new JsonPathExtractor(path).extract(new StringReader(JSON));
+    }
+
+}